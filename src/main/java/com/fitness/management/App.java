@@ -1,5 +1,7 @@
 package com.fitness.management;
 
+import com.fitness.management.context.ApplicationContext;
+import com.fitness.management.event.ConsoleEventConsumer;
 import com.fitness.management.service.AdminService;
 import com.fitness.management.service.AuthService;
 import com.fitness.management.service.BookingService;
@@ -8,15 +10,13 @@ import com.fitness.management.model.UserType;
 import com.fitness.management.model.FitnessClass;
 import com.fitness.management.model.ClassType;
 import com.fitness.management.repository.RepositoryFactory;
-import com.fitness.management.service.impl.AdminServiceImpl;
-import com.fitness.management.service.impl.AuthServiceImpl;
-import com.fitness.management.service.impl.BookingServiceImpl;
 import com.fitness.management.exception.BookingLimitExceededException;
 import com.fitness.management.exception.ClassFullException;
 import com.fitness.management.exception.TimeConflictException;
 import com.fitness.management.util.DateTimeUtils;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
 
 public class App {
     public static void main(String[] args) {
@@ -30,13 +30,24 @@ public class App {
         } catch (Exception e) {
             System.out.println("Application error: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            // Let the booking event log catch up before the JVM exits
+            try {
+                ApplicationContext.getDefault().getEventBus().shutdown(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
         }
     }
     
     private static void runFitnessClassSystem() {
-        AuthService authService = new AuthServiceImpl();
-        AdminService adminService = new AdminServiceImpl();
-        BookingService bookingService = new BookingServiceImpl();
+        ApplicationContext context = ApplicationContext.getDefault();
+        AuthService authService = context.getAuthService();
+        AdminService adminService = context.getAdminService();
+        BookingService bookingService = context.getBookingService();
+        
+        // Booking events are printed by the event bus's dispatcher thread, so they may interleave with the output below
+        context.getEventBus().subscribe(new ConsoleEventConsumer());
         
         System.out.println("=== Fitness Class Management System ===");
         
@@ -176,11 +187,8 @@ public class App {
         // Demonstrate switching repository implementation at runtime
         System.out.println("\n=== Demonstrate MySQL Repository Implementation ===");
         try {
-            // Switch to MySQL implementation
-            RepositoryFactory.setDefaultType(RepositoryFactory.RepositoryType.MYSQL);
-            
-            // Try to use MySQL implementation (will throw exceptions)
-            AuthService mySqlAuthService = new AuthServiceImpl();
+            // Use the MySQL implementation (fails unless a database is configured through fitness.db.url)
+            AuthService mySqlAuthService = ApplicationContext.forType(RepositoryFactory.RepositoryType.MYSQL).getAuthService();
             mySqlAuthService.registerUser("testuser", "password", UserType.GOLD);
         } catch (Exception e) {
             System.out.println("Expected error using MySQL implementation: " + e.getMessage());
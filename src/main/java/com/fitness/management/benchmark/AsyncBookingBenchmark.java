@@ -0,0 +1,168 @@
+package com.fitness.management.benchmark;
+
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.repository.BookingRepository;
+import com.fitness.management.repository.RepositoryFactory;
+import com.fitness.management.repository.RepositoryFactory.RepositoryType;
+import com.fitness.management.service.impl.AsyncBookingServiceImpl;
+import com.fitness.management.service.impl.BookingServiceImpl;
+import com.fitness.management.service.impl.BookingServiceImpl.SeatReservationMode;
+import com.fitness.management.util.ExecutorUtils;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Compares bookClassAsync on a thread per request (virtual threads where available) against a fixed platform
+// thread pool. Each booking write waits for a simulated backend round trip, which is where threads block.
+public class AsyncBookingBenchmark {
+    private static final int REQUESTS = Integer.getInteger("bench.requests", 10_000);
+    private static final int CLASSES = Integer.getInteger("bench.classes", 1_000);
+    private static final int CAPACITY = Integer.getInteger("bench.capacity", 1_000);
+    private static final int PLATFORM_THREADS = Integer.getInteger("bench.platformThreads", 200);
+    private static final int ROUND_TRIP_MILLIS = Integer.getInteger("bench.roundTripMillis", 2);
+    private static final String OUTPUT = System.getProperty("bench.output", "bench_async_output.txt");
+    
+    private final PrintStream console = System.out;
+    private final BenchmarkReport report = new BenchmarkReport(String.format(
+            "requests=%d classes=%d capacity=%d platformThreads=%d roundTripMillis=%d virtualThreads=%s",
+            REQUESTS, CLASSES, CAPACITY, PLATFORM_THREADS, ROUND_TRIP_MILLIS, ExecutorUtils.isVirtualThreadSupported()));
+    private final Random random = new Random(42);
+    private boolean warmingUp;
+    
+    public static void main(String[] args) throws Exception {
+        new AsyncBookingBenchmark().run();
+    }
+    
+    private void run() throws Exception {
+        String perRequest = ExecutorUtils.isVirtualThreadSupported() ? "virtual" : "thread-per-request";
+        if (!ExecutorUtils.isVirtualThreadSupported()) {
+            console.println("Virtual threads are not available on this JVM; using a platform thread per request");
+        }
+        
+        for (int pass = 0; pass < 2; pass++) {
+            // The first pass only warms up the JIT
+            warmingUp = pass == 0;
+            measure("bookClassAsync/" + perRequest, 0,
+                    () -> ExecutorUtils.newThreadPerRequestExecutor("bench-request"));
+            measure("bookClassAsync/platform-pool", PLATFORM_THREADS,
+                    () -> ExecutorUtils.newPlatformThreadPool(PLATFORM_THREADS, "bench-pool"));
+        }
+        
+        console.println();
+        console.print(report.format());
+        Path output = Paths.get(OUTPUT);
+        report.write(output);
+        console.println("Report written to " + output.toAbsolutePath());
+    }
+    
+    // threads is the pool size, or 0 for a thread per request
+    private void measure(String scenario, int threads, Supplier<ExecutorService> executors) throws Exception {
+        BookingServiceImpl bookingService = new BookingServiceImpl(
+                new RoundTripBookingRepository(RepositoryFactory.createBookingRepository(RepositoryType.IN_MEMORY)),
+                RepositoryFactory.createWaitlistRepository(RepositoryType.IN_MEMORY),
+                RepositoryFactory.createFitnessClassRepository(RepositoryType.IN_MEMORY),
+                SeatReservationMode.LOCKED);
+        AsyncBookingServiceImpl asyncBookingService = new AsyncBookingServiceImpl(bookingService, executors.get());
+        BenchmarkDataSet dataSet = BenchmarkDataSet.create(0, CLASSES, CAPACITY);
+        
+        User[] users = new User[REQUESTS];
+        FitnessClass[] classes = new FitnessClass[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            users[i] = BenchmarkDataSet.newUser(scenario + "-" + i);
+            classes[i] = dataSet.randomClass(random);
+        }
+        
+        long[] latencies = new long[REQUESTS];
+        AtomicLong failures = new AtomicLong();
+        CompletableFuture<?>[] requests = new CompletableFuture<?>[REQUESTS];
+        
+        long began = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            final int index = i;
+            long submitted = System.nanoTime();
+            requests[i] = asyncBookingService.bookClassAsync(users[i], classes[i]).handle((booking, failure) -> {
+                latencies[index] = System.nanoTime() - submitted;
+                if (failure != null) {
+                    failures.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        CompletableFuture.allOf(requests).join();
+        long elapsed = System.nanoTime() - began;
+        asyncBookingService.shutdown(10, TimeUnit.SECONDS);
+        bookingService.shutdown(10, TimeUnit.SECONDS);
+        
+        if (warmingUp) {
+            return;
+        }
+        BenchmarkReport.Result result = report.record(scenario, threads, elapsed, latencies, failures.get());
+        console.printf("%-40s threads=%-4d %12.0f ops/s%n", scenario, threads, result.getOpsPerSecond());
+    }
+    
+    // Stands in for a remote store: every write blocks for one round trip
+    private static final class RoundTripBookingRepository implements BookingRepository {
+        private final BookingRepository delegate;
+        
+        RoundTripBookingRepository(BookingRepository delegate) {
+            this.delegate = delegate;
+        }
+        
+        @Override
+        public Booking save(Booking booking) {
+            roundTrip();
+            return delegate.save(booking);
+        }
+        
+        @Override
+        public List<Booking> saveAll(List<Booking> bookings) {
+            roundTrip();
+            return delegate.saveAll(bookings);
+        }
+        
+        @Override
+        public List<Booking> findByUser(User user) {
+            return delegate.findByUser(user);
+        }
+        
+        @Override
+        public List<Booking> findByFitnessClass(FitnessClass fitnessClass) {
+            return delegate.findByFitnessClass(fitnessClass);
+        }
+        
+        @Override
+        public Optional<Booking> findByUserAndFitnessClass(User user, FitnessClass fitnessClass) {
+            return delegate.findByUserAndFitnessClass(user, fitnessClass);
+        }
+        
+        @Override
+        public Optional<Booking> findConflictingBooking(User user, FitnessClass fitnessClass) {
+            return delegate.findConflictingBooking(user, fitnessClass);
+        }
+        
+        @Override
+        public List<Booking> findByUserBetween(User user, LocalDateTime start, LocalDateTime end) {
+            return delegate.findByUserBetween(user, start, end);
+        }
+        
+        private static void roundTrip() {
+            try {
+                Thread.sleep(ROUND_TRIP_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.fitness.management.benchmark;
+
+import com.fitness.management.model.ClassType;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.model.UserType;
+import com.fitness.management.service.BookingService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class BenchmarkDataSet {
+    private static final ClassType[] CLASS_TYPES = ClassType.values();
+    
+    private final List<User> users;
+    private final List<FitnessClass> fitnessClasses;
+    private final LocalDateTime scheduleStart;
+    
+    private BenchmarkDataSet(List<User> users, List<FitnessClass> fitnessClasses, LocalDateTime scheduleStart) {
+        this.users = users;
+        this.fitnessClasses = fitnessClasses;
+        this.scheduleStart = scheduleStart;
+    }
+    
+    // Classes are laid out back to back one hour apart, so bookings never conflict in time
+    public static BenchmarkDataSet create(int userCount, int classCount, int classCapacity) {
+        LocalDateTime scheduleStart = LocalDateTime.now().plusDays(1).withHour(6).withMinute(0).withSecond(0).withNano(0);
+        
+        List<User> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            users.add(newUser("member" + i));
+        }
+        
+        List<FitnessClass> fitnessClasses = new ArrayList<>(classCount);
+        for (int i = 0; i < classCount; i++) {
+            fitnessClasses.add(new FitnessClass("Class " + i, CLASS_TYPES[i % CLASS_TYPES.length],
+                    classCapacity, scheduleStart.plusHours(i), 60));
+        }
+        
+        return new BenchmarkDataSet(users, fitnessClasses, scheduleStart);
+    }
+    
+    public static User newUser(String username) {
+        return new User(username, "benchmark", UserType.PLATINUM);
+    }
+    
+    // Books each user into bookingsPerUser random classes, skipping requests the service rejects
+    public int seedBookings(BookingService bookingService, int bookingsPerUser, long seed) {
+        Random random = new Random(seed);
+        int booked = 0;
+        for (User user : users) {
+            for (int i = 0; i < bookingsPerUser; i++) {
+                try {
+                    bookingService.bookClass(user, randomClass(random));
+                    booked++;
+                } catch (RuntimeException e) {
+                    // Full classes and duplicates are expected while seeding
+                }
+            }
+        }
+        return booked;
+    }
+    
+    public FitnessClass randomClass(Random random) {
+        return fitnessClasses.get(random.nextInt(fitnessClasses.size()));
+    }
+    
+    public FitnessClass newClass(String name, int capacity, int hoursAfterSchedule) {
+        return new FitnessClass(name, ClassType.GYM, capacity, scheduleStart.plusHours(hoursAfterSchedule), 60);
+    }
+    
+    public List<User> getUsers() {
+        return users;
+    }
+    
+    public List<FitnessClass> getFitnessClasses() {
+        return fitnessClasses;
+    }
+}
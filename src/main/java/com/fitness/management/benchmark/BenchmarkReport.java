@@ -0,0 +1,123 @@
+package com.fitness.management.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BenchmarkReport {
+    private static final String HEADER = "scenario\tthreads\toperations\tfailures\tops_per_sec\tp50_us\tp99_us\tmax_us";
+    
+    private final List<Result> results = new ArrayList<>();
+    private final String description;
+    
+    public BenchmarkReport(String description) {
+        this.description = description;
+    }
+    
+    public Result record(String scenario, int threads, long elapsedNanos, long[] latencyNanos, long failures) {
+        long[] sorted = latencyNanos.clone();
+        Arrays.sort(sorted);
+        double opsPerSecond = sorted.length / (elapsedNanos / 1_000_000_000.0);
+        Result result = new Result(scenario, threads, sorted.length, failures, opsPerSecond,
+                percentileMicros(sorted, 0.50), percentileMicros(sorted, 0.99), percentileMicros(sorted, 1.0));
+        results.add(result);
+        return result;
+    }
+    
+    public List<Result> getResults() {
+        return results;
+    }
+    
+    // Tab-separated so reports from different commits can be diffed or loaded into a spreadsheet
+    public String format() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("# ").append(description).append('\n');
+        builder.append("# generated ").append(LocalDateTime.now())
+                .append(", java ").append(System.getProperty("java.version"))
+                .append(", cpus ").append(Runtime.getRuntime().availableProcessors()).append('\n');
+        builder.append(HEADER).append('\n');
+        for (Result result : results) {
+            builder.append(result.format()).append('\n');
+        }
+        return builder.toString();
+    }
+    
+    public void write(Path path) throws IOException {
+        Files.write(path, format().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public String compareWith(Path baselinePath) throws IOException {
+        Map<String, Double> baseline = new HashMap<>();
+        for (String line : Files.readAllLines(baselinePath, StandardCharsets.UTF_8)) {
+            if (line.startsWith("#") || line.equals(HEADER) || line.trim().isEmpty()) {
+                continue;
+            }
+            String[] columns = line.split("\t");
+            baseline.put(columns[0] + "/" + columns[1], Double.parseDouble(columns[4]));
+        }
+        
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%-40s %8s %14s %14s %8s%n", "scenario", "threads", "baseline ops/s", "current ops/s", "change"));
+        for (Result result : results) {
+            Double before = baseline.get(result.scenario + "/" + result.threads);
+            if (before == null) {
+                builder.append(String.format("%-40s %8d %14s %14.0f %8s%n", result.scenario, result.threads, "-", result.opsPerSecond, "new"));
+            } else {
+                double change = (result.opsPerSecond - before) / before * 100.0;
+                builder.append(String.format("%-40s %8d %14.0f %14.0f %+7.1f%%%n", result.scenario, result.threads, before, result.opsPerSecond, change));
+            }
+        }
+        return builder.toString();
+    }
+    
+    private static double percentileMicros(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000.0;
+    }
+    
+    public static class Result {
+        private final String scenario;
+        private final int threads;
+        private final long operations;
+        private final long failures;
+        private final double opsPerSecond;
+        private final double p50Micros;
+        private final double p99Micros;
+        private final double maxMicros;
+        
+        Result(String scenario, int threads, long operations, long failures, double opsPerSecond,
+               double p50Micros, double p99Micros, double maxMicros) {
+            this.scenario = scenario;
+            this.threads = threads;
+            this.operations = operations;
+            this.failures = failures;
+            this.opsPerSecond = opsPerSecond;
+            this.p50Micros = p50Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+        
+        public String getScenario() {
+            return scenario;
+        }
+        
+        public double getOpsPerSecond() {
+            return opsPerSecond;
+        }
+        
+        String format() {
+            return String.format("%s\t%d\t%d\t%d\t%.0f\t%.1f\t%.1f\t%.1f",
+                    scenario, threads, operations, failures, opsPerSecond, p50Micros, p99Micros, maxMicros);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.fitness.management.benchmark;
+
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.repository.RepositoryFactory;
+import com.fitness.management.repository.RepositoryFactory.RepositoryType;
+import com.fitness.management.service.BookingService;
+import com.fitness.management.service.impl.BookingServiceImpl;
+import com.fitness.management.service.impl.BookingServiceImpl.SeatReservationMode;
+import com.fitness.management.service.impl.ShardedBookingServiceImpl;
+import com.fitness.management.util.ConcurrencyUtils;
+
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+public class BookingBenchmark {
+    private static final int USERS = Integer.getInteger("bench.users", 10_000);
+    private static final int CLASSES = Integer.getInteger("bench.classes", 10_000);
+    private static final int CAPACITY = Integer.getInteger("bench.capacity", 100);
+    private static final int BOOKINGS_PER_USER = Integer.getInteger("bench.bookingsPerUser", 5);
+    private static final int OPERATIONS = Integer.getInteger("bench.operations", 20_000);
+    private static final int THREADS = Integer.getInteger("bench.threads", Math.max(4, Runtime.getRuntime().availableProcessors()));
+    private static final int SHARDS = Integer.getInteger("bench.shards", Runtime.getRuntime().availableProcessors());
+    private static final int CONTENDED_CAPACITY = Integer.getInteger("bench.contendedCapacity", 30);
+    private static final String OUTPUT = System.getProperty("bench.output", "bench_output.txt");
+    private static final String BASELINE = System.getProperty("bench.baseline");
+    private static final boolean LOCK_PROFILE = Boolean.getBoolean("bench.lockProfile");
+    
+    private final PrintStream console = System.out;
+    private final BenchmarkReport report = new BenchmarkReport(String.format(
+            "users=%d classes=%d capacity=%d bookingsPerUser=%d operations=%d threads=%d",
+            USERS, CLASSES, CAPACITY, BOOKINGS_PER_USER, OPERATIONS, THREADS));
+    private final Random random = new Random(42);
+    private boolean warmingUp;
+    
+    public static void main(String[] args) throws Exception {
+        new BookingBenchmark().run();
+    }
+    
+    private void run() throws Exception {
+        ConcurrencyUtils.setLockProfilingEnabled(LOCK_PROFILE);
+        
+        for (SeatReservationMode mode : SeatReservationMode.values()) {
+            runEngine(mode.name(), () -> new BookingServiceImpl(
+                    RepositoryFactory.createBookingRepository(RepositoryType.IN_MEMORY),
+                    RepositoryFactory.createWaitlistRepository(RepositoryType.IN_MEMORY),
+                    RepositoryFactory.createFitnessClassRepository(RepositoryType.IN_MEMORY),
+                    mode));
+        }
+        runEngine("SHARDED", () -> new ShardedBookingServiceImpl(
+                RepositoryFactory.createBookingRepository(RepositoryType.IN_MEMORY),
+                RepositoryFactory.createWaitlistRepository(RepositoryType.IN_MEMORY),
+                RepositoryFactory.createFitnessClassRepository(RepositoryType.IN_MEMORY),
+                SHARDS));
+        
+        console.println();
+        console.print(report.format());
+        Path output = Paths.get(OUTPUT);
+        report.write(output);
+        console.println("Report written to " + output.toAbsolutePath());
+        
+        if (BASELINE != null && Files.exists(Paths.get(BASELINE))) {
+            console.println();
+            console.print(report.compareWith(Paths.get(BASELINE)));
+        }
+        
+        if (LOCK_PROFILE) {
+            console.println();
+            console.println("Most contended classes:");
+            console.print(ConcurrencyUtils.formatLockProfile(10));
+        }
+    }
+    
+    // Every pass gets a new service on its own repositories so data sets never mix
+    private void runEngine(String engine, Supplier<BookingService> bookingServices) throws Exception {
+        // A throwaway pass lets the JIT settle before anything is recorded
+        warmingUp = true;
+        runScenarios(engine, bookingServices.get());
+        warmingUp = false;
+        runScenarios(engine, bookingServices.get());
+    }
+    
+    private void runScenarios(String engine, BookingService bookingService) throws Exception {
+        BenchmarkDataSet dataSet = BenchmarkDataSet.create(USERS, CLASSES, CAPACITY);
+        
+        console.println((warmingUp ? "Warming up " : "Seeding ") + engine + " data set...");
+        long seeded = dataSet.seedBookings(bookingService, BOOKINGS_PER_USER, 7);
+        console.println("Seeded " + seeded + " bookings");
+        
+        String suffix = "/" + engine.toLowerCase();
+        benchmarkBookClass("bookClass" + suffix, bookingService, dataSet, 1);
+        benchmarkBookClass("bookClass" + suffix, bookingService, dataSet, THREADS);
+        benchmarkSameClassRush("bookClass.sameClass6am" + suffix, bookingService, dataSet, THREADS);
+        benchmarkCancelBooking("cancelBooking" + suffix, bookingService, dataSet, 1);
+        benchmarkCancelBooking("cancelBooking" + suffix, bookingService, dataSet, THREADS);
+        benchmarkAddToWaitlist("addToWaitlist" + suffix, bookingService, dataSet, 1);
+        benchmarkAddToWaitlist("addToWaitlist" + suffix, bookingService, dataSet, THREADS);
+        
+        // Each pass's promoter and shard threads are stopped before the next pass starts
+        if (bookingService instanceof ShardedBookingServiceImpl) {
+            ((ShardedBookingServiceImpl) bookingService).shutdown(10, TimeUnit.SECONDS);
+        } else if (bookingService instanceof BookingServiceImpl) {
+            ((BookingServiceImpl) bookingService).shutdown(10, TimeUnit.SECONDS);
+        }
+    }
+    
+    private void benchmarkBookClass(String scenario, BookingService bookingService, BenchmarkDataSet dataSet, int threads) throws Exception {
+        List<User> users = freshUsers(scenario, OPERATIONS);
+        List<FitnessClass> classes = randomClasses(dataSet, OPERATIONS);
+        measure(scenario, threads, OPERATIONS, i -> bookingService.bookClass(users.get(i), classes.get(i)));
+    }
+    
+    // Every request targets one class that opens at 6am, so almost all of them end up on the waitlist
+    private void benchmarkSameClassRush(String scenario, BookingService bookingService, BenchmarkDataSet dataSet, int threads) throws Exception {
+        List<User> users = freshUsers(scenario, OPERATIONS);
+        FitnessClass spinClass = dataSet.newClass("6am Spin", CONTENDED_CAPACITY, -24);
+        measure(scenario, threads, OPERATIONS, i -> bookingService.bookClass(users.get(i), spinClass));
+    }
+    
+    private void benchmarkCancelBooking(String scenario, BookingService bookingService, BenchmarkDataSet dataSet, int threads) throws Exception {
+        List<User> users = freshUsers(scenario, OPERATIONS);
+        List<FitnessClass> classes = randomClasses(dataSet, OPERATIONS);
+        for (int i = 0; i < OPERATIONS; i++) {
+            try {
+                bookingService.bookClass(users.get(i), classes.get(i));
+            } catch (RuntimeException e) {
+                // Requests for full classes are left on the waitlist
+            }
+        }
+        measure(scenario, threads, OPERATIONS, i -> bookingService.cancelBooking(users.get(i), classes.get(i)));
+    }
+    
+    private void benchmarkAddToWaitlist(String scenario, BookingService bookingService, BenchmarkDataSet dataSet, int threads) throws Exception {
+        List<User> users = freshUsers(scenario, OPERATIONS);
+        List<FitnessClass> classes = randomClasses(dataSet, OPERATIONS);
+        measure(scenario, threads, OPERATIONS, i -> bookingService.addToWaitlist(users.get(i), classes.get(i)));
+    }
+    
+    private void measure(String scenario, int threads, int operations, Operation operation) throws Exception {
+        long[] latencies = new long[operations];
+        AtomicLong failures = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>(threads);
+        
+        for (int t = 0; t < threads; t++) {
+            final int from = (int) ((long) operations * t / threads);
+            final int to = (int) ((long) operations * (t + 1) / threads);
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = from; i < to; i++) {
+                    long began = System.nanoTime();
+                    try {
+                        operation.run(i);
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                    }
+                    latencies[i] = System.nanoTime() - began;
+                }
+            }, "bench-" + scenario + "-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        
+        long began = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - began;
+        
+        if (warmingUp) {
+            return;
+        }
+        BenchmarkReport.Result result = report.record(scenario, threads, elapsed, latencies, failures.get());
+        console.printf("%-40s threads=%-3d %12.0f ops/s%n", scenario, threads, result.getOpsPerSecond());
+    }
+    
+    private List<User> freshUsers(String scenario, int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(BenchmarkDataSet.newUser(scenario + "-" + i));
+        }
+        return users;
+    }
+    
+    private List<FitnessClass> randomClasses(BenchmarkDataSet dataSet, int count) {
+        List<FitnessClass> classes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            classes.add(dataSet.randomClass(random));
+        }
+        return classes;
+    }
+    
+    @FunctionalInterface
+    private interface Operation {
+        void run(int index);
+    }
+}
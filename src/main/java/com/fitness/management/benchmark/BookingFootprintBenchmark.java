@@ -0,0 +1,65 @@
+package com.fitness.management.benchmark;
+
+import com.fitness.management.model.Booking;
+import com.fitness.management.repository.BookingRepository;
+import com.fitness.management.repository.RepositoryFactory;
+import com.fitness.management.repository.RepositoryFactory.RepositoryType;
+
+import java.io.PrintStream;
+import java.util.Random;
+
+// Heap retained per booking by each booking repository, for a history where some bookings were cancelled.
+// Bookings are saved straight into the repository so only storage is measured. Run with a fixed heap (-Xms = -Xmx)
+// for stable numbers.
+public class BookingFootprintBenchmark {
+    private static final int BOOKINGS = Integer.getInteger("bench.bookings", 1_000_000);
+    private static final int USERS = Integer.getInteger("bench.users", 20_000);
+    private static final int CLASSES = Integer.getInteger("bench.classes", 20_000);
+    private static final int CANCELLED_PERCENT = Integer.getInteger("bench.cancelledPercent", 30);
+    
+    private final PrintStream console = System.out;
+    
+    public static void main(String[] args) {
+        new BookingFootprintBenchmark().run();
+    }
+    
+    private void run() {
+        console.printf("bookings=%d users=%d classes=%d cancelledPercent=%d%n", BOOKINGS, USERS, CLASSES, CANCELLED_PERCENT);
+        BenchmarkDataSet dataSet = BenchmarkDataSet.create(USERS, CLASSES, Integer.MAX_VALUE);
+        for (RepositoryType type : new RepositoryType[] {RepositoryType.IN_MEMORY, RepositoryType.COLUMNAR}) {
+            measure(type, dataSet);
+        }
+    }
+    
+    private void measure(RepositoryType type, BenchmarkDataSet dataSet) {
+        Random random = new Random(42);
+        long before = usedHeap();
+        BookingRepository repository = RepositoryFactory.createBookingRepository(type);
+        for (int i = 0; i < BOOKINGS; i++) {
+            Booking booking = new Booking(dataSet.getUsers().get(random.nextInt(USERS)), dataSet.randomClass(random));
+            if (random.nextInt(100) < CANCELLED_PERCENT) {
+                booking.setCancelled(true);
+            }
+            repository.save(booking);
+        }
+        long retained = usedHeap() - before;
+        console.printf("%-10s %10.1f MB %8.1f bytes/booking%n", type, retained / (1024.0 * 1024.0), (double) retained / BOOKINGS);
+        // Keeps the repository reachable until it has been measured
+        if (repository.findByUser(dataSet.getUsers().get(0)) == null) {
+            throw new IllegalStateException();
+        }
+    }
+    
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,184 @@
+package com.fitness.management.context;
+
+import com.fitness.management.event.BookingEventBus;
+import com.fitness.management.metrics.MeteredBookingRepository;
+import com.fitness.management.metrics.MeteredBookingService;
+import com.fitness.management.metrics.MeteredFitnessClassRepository;
+import com.fitness.management.metrics.MeteredUserRepository;
+import com.fitness.management.metrics.MeteredWaitlistRepository;
+import com.fitness.management.metrics.MetricsRegistry;
+import com.fitness.management.repository.BookingRepository;
+import com.fitness.management.repository.FitnessClassRepository;
+import com.fitness.management.repository.RepositoryFactory;
+import com.fitness.management.repository.RepositoryFactory.RepositoryType;
+import com.fitness.management.repository.UserRepository;
+import com.fitness.management.repository.WaitlistRepository;
+import com.fitness.management.service.AdminService;
+import com.fitness.management.service.AuthService;
+import com.fitness.management.service.BookingService;
+import com.fitness.management.service.impl.AdminServiceImpl;
+import com.fitness.management.service.impl.AuthServiceImpl;
+import com.fitness.management.service.impl.BookingServiceImpl;
+import com.fitness.management.service.impl.BookingServiceImpl.SeatReservationMode;
+import com.fitness.management.service.impl.ShardedBookingServiceImpl;
+import com.fitness.management.util.Lazy;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+// One shared set of repositories per backend, wired into the services. Everything is built on first use;
+// decorators registered before then wrap the repository every service receives.
+public class ApplicationContext {
+    
+    private static final Map<RepositoryType, ApplicationContext> contexts = new ConcurrentHashMap<>();
+    
+    private final RepositoryType repositoryType;
+    
+    private volatile UnaryOperator<UserRepository> userRepositoryDecorator = UnaryOperator.identity();
+    private volatile UnaryOperator<FitnessClassRepository> fitnessClassRepositoryDecorator = UnaryOperator.identity();
+    private volatile UnaryOperator<BookingRepository> bookingRepositoryDecorator = UnaryOperator.identity();
+    private volatile UnaryOperator<WaitlistRepository> waitlistRepositoryDecorator = UnaryOperator.identity();
+    private volatile SeatReservationMode seatReservationMode = SeatReservationMode.LOCKED;
+    // 0 selects BookingServiceImpl; a positive count selects ShardedBookingServiceImpl with that many shards
+    private volatile int bookingShardCount = Integer.getInteger("fitness.booking.shards", 0);
+    
+    private final Lazy<UserRepository> userRepository = new Lazy<>(
+            () -> userRepositoryDecorator.apply(metered(RepositoryFactory.createUserRepository(getRepositoryType()))));
+    private final Lazy<FitnessClassRepository> fitnessClassRepository = new Lazy<>(
+            () -> fitnessClassRepositoryDecorator.apply(metered(RepositoryFactory.createFitnessClassRepository(getRepositoryType()))));
+    private final Lazy<BookingRepository> bookingRepository = new Lazy<>(
+            () -> bookingRepositoryDecorator.apply(metered(RepositoryFactory.createBookingRepository(getRepositoryType()))));
+    private final Lazy<WaitlistRepository> waitlistRepository = new Lazy<>(
+            () -> waitlistRepositoryDecorator.apply(metered(RepositoryFactory.createWaitlistRepository(getRepositoryType()))));
+    
+    private final Lazy<BookingEventBus> eventBus = new Lazy<>(BookingEventBus::new);
+    
+    private final Lazy<AuthService> authService = new Lazy<>(
+            () -> new AuthServiceImpl(getUserRepository()));
+    private final Lazy<AdminService> adminService = new Lazy<>(
+            () -> new AdminServiceImpl(getFitnessClassRepository(), getBookingRepository(), getWaitlistRepository(), getEventBus()));
+    private final Lazy<BookingService> bookingService = new Lazy<>(() -> metered(createBookingService()));
+    
+    private ApplicationContext(RepositoryType repositoryType) {
+        this.repositoryType = repositoryType;
+    }
+    
+    public static ApplicationContext getDefault() {
+        return forType(RepositoryFactory.getDefaultType());
+    }
+    
+    public static ApplicationContext forType(RepositoryType repositoryType) {
+        return contexts.computeIfAbsent(repositoryType, ApplicationContext::new);
+    }
+    
+    public RepositoryType getRepositoryType() {
+        return repositoryType;
+    }
+    
+    public UserRepository getUserRepository() {
+        return userRepository.get();
+    }
+    
+    public FitnessClassRepository getFitnessClassRepository() {
+        return fitnessClassRepository.get();
+    }
+    
+    public BookingRepository getBookingRepository() {
+        return bookingRepository.get();
+    }
+    
+    public WaitlistRepository getWaitlistRepository() {
+        return waitlistRepository.get();
+    }
+    
+    public BookingEventBus getEventBus() {
+        return eventBus.get();
+    }
+    
+    public AuthService getAuthService() {
+        return authService.get();
+    }
+    
+    public AdminService getAdminService() {
+        return adminService.get();
+    }
+    
+    public BookingService getBookingService() {
+        return bookingService.get();
+    }
+    
+    public void decorateUserRepository(UnaryOperator<UserRepository> decorator) {
+        requireUninitialized(userRepository, "User repository");
+        UnaryOperator<UserRepository> current = userRepositoryDecorator;
+        userRepositoryDecorator = repository -> decorator.apply(current.apply(repository));
+    }
+    
+    public void decorateFitnessClassRepository(UnaryOperator<FitnessClassRepository> decorator) {
+        requireUninitialized(fitnessClassRepository, "Fitness class repository");
+        UnaryOperator<FitnessClassRepository> current = fitnessClassRepositoryDecorator;
+        fitnessClassRepositoryDecorator = repository -> decorator.apply(current.apply(repository));
+    }
+    
+    public void decorateBookingRepository(UnaryOperator<BookingRepository> decorator) {
+        requireUninitialized(bookingRepository, "Booking repository");
+        UnaryOperator<BookingRepository> current = bookingRepositoryDecorator;
+        bookingRepositoryDecorator = repository -> decorator.apply(current.apply(repository));
+    }
+    
+    public void decorateWaitlistRepository(UnaryOperator<WaitlistRepository> decorator) {
+        requireUninitialized(waitlistRepository, "Waitlist repository");
+        UnaryOperator<WaitlistRepository> current = waitlistRepositoryDecorator;
+        waitlistRepositoryDecorator = repository -> decorator.apply(current.apply(repository));
+    }
+    
+    public void setSeatReservationMode(SeatReservationMode seatReservationMode) {
+        requireUninitialized(bookingService, "Booking service");
+        this.seatReservationMode = seatReservationMode;
+    }
+    
+    public void setBookingShardCount(int bookingShardCount) {
+        if (bookingShardCount < 0) {
+            throw new IllegalArgumentException("Shard count must not be negative: " + bookingShardCount);
+        }
+        requireUninitialized(bookingService, "Booking service");
+        this.bookingShardCount = bookingShardCount;
+    }
+    
+    private BookingService createBookingService() {
+        if (bookingShardCount > 0) {
+            return new ShardedBookingServiceImpl(getBookingRepository(), getWaitlistRepository(), getFitnessClassRepository(),
+                    bookingShardCount, getEventBus());
+        }
+        return new BookingServiceImpl(getBookingRepository(), getWaitlistRepository(), getFitnessClassRepository(),
+                seatReservationMode, getEventBus());
+    }
+    
+    private UserRepository metered(UserRepository repository) {
+        return MetricsRegistry.isEnabled() ? new MeteredUserRepository(repository, MetricsRegistry.getDefault()) : repository;
+    }
+    
+    private FitnessClassRepository metered(FitnessClassRepository repository) {
+        return MetricsRegistry.isEnabled() ? new MeteredFitnessClassRepository(repository, MetricsRegistry.getDefault()) : repository;
+    }
+    
+    private BookingRepository metered(BookingRepository repository) {
+        return MetricsRegistry.isEnabled() ? new MeteredBookingRepository(repository, MetricsRegistry.getDefault()) : repository;
+    }
+    
+    private WaitlistRepository metered(WaitlistRepository repository) {
+        return MetricsRegistry.isEnabled() ? new MeteredWaitlistRepository(repository, MetricsRegistry.getDefault()) : repository;
+    }
+    
+    private BookingService metered(BookingService service) {
+        return MetricsRegistry.isEnabled()
+                ? new MeteredBookingService(service, getWaitlistRepository(), MetricsRegistry.getDefault())
+                : service;
+    }
+    
+    private static void requireUninitialized(Lazy<?> component, String name) {
+        if (component.isInitialized()) {
+            throw new IllegalStateException(name + " is already in use and can no longer be configured");
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.fitness.management.event;
+
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.model.WaitlistEntry;
+
+import java.time.LocalDateTime;
+
+public class BookingEvent {
+    private final BookingEventType type;
+    private final LocalDateTime time;
+    private final User user;
+    private final FitnessClass fitnessClass;
+    private final long referenceId;
+    
+    private BookingEvent(BookingEventType type, User user, FitnessClass fitnessClass, long referenceId) {
+        this.type = type;
+        this.time = LocalDateTime.now();
+        this.user = user;
+        this.fitnessClass = fitnessClass;
+        this.referenceId = referenceId;
+    }
+    
+    public static BookingEvent booked(Booking booking) {
+        return new BookingEvent(BookingEventType.BOOKED, booking.getUser(), booking.getFitnessClass(), booking.getId());
+    }
+    
+    public static BookingEvent waitlisted(WaitlistEntry waitlistEntry) {
+        return new BookingEvent(BookingEventType.WAITLISTED, waitlistEntry.getUser(), waitlistEntry.getFitnessClass(), waitlistEntry.getId());
+    }
+    
+    public static BookingEvent cancelled(Booking booking) {
+        return new BookingEvent(BookingEventType.CANCELLED, booking.getUser(), booking.getFitnessClass(), booking.getId());
+    }
+    
+    public static BookingEvent promoted(Booking booking) {
+        return new BookingEvent(BookingEventType.PROMOTED, booking.getUser(), booking.getFitnessClass(), booking.getId());
+    }
+    
+    public static BookingEvent classCancelled(FitnessClass fitnessClass) {
+        return new BookingEvent(BookingEventType.CLASS_CANCELLED, null, fitnessClass, fitnessClass.getId());
+    }
+    
+    public BookingEventType getType() {
+        return type;
+    }
+    
+    public LocalDateTime getTime() {
+        return time;
+    }
+    
+    // Null for class-level events
+    public User getUser() {
+        return user;
+    }
+    
+    public FitnessClass getFitnessClass() {
+        return fitnessClass;
+    }
+    
+    // Id of the booking, waitlist entry or class the event is about
+    public long getReferenceId() {
+        return referenceId;
+    }
+    
+    @Override
+    public String toString() {
+        return time + " " + type
+                + " class=" + fitnessClass.getName()
+                + (user == null ? "" : " user=" + user.getUsername())
+                + " id=" + referenceId;
+    }
+}
@@ -0,0 +1,164 @@
+package com.fitness.management.event;
+
+import com.fitness.management.util.RingBuffer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+// Services publish into a lock-free ring buffer and return right away; one dispatcher thread hands the events
+// to the subscribed consumers, so consumer I/O never runs while a class lock is held. The dispatcher parks while
+// the buffer is empty and is woken by the next publish.
+public class BookingEventBus {
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    
+    // What publish does when the buffer is full
+    public enum OverflowPolicy {
+        // Wait for the dispatcher to free a slot
+        BLOCK,
+        // Drop the new event and count it
+        DROP
+    }
+    
+    private final RingBuffer<BookingEvent> buffer;
+    private final OverflowPolicy overflowPolicy;
+    private final List<BookingEventConsumer> consumers = new CopyOnWriteArrayList<>();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder consumerFailures = new LongAdder();
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+    // Set by the dispatcher before it parks, so publishers only pay for an unpark when it is needed
+    private volatile boolean idle;
+    
+    public BookingEventBus() {
+        this(DEFAULT_CAPACITY, OverflowPolicy.DROP);
+    }
+    
+    public BookingEventBus(int capacity, OverflowPolicy overflowPolicy) {
+        this.buffer = new RingBuffer<>(capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.dispatcher = new Thread(this::dispatch, "booking-events");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+    
+    public void subscribe(BookingEventConsumer consumer) {
+        consumers.add(consumer);
+    }
+    
+    public void unsubscribe(BookingEventConsumer consumer) {
+        consumers.remove(consumer);
+    }
+    
+    public void publish(BookingEvent event) {
+        // Nobody is listening, so don't pay for the hand-off
+        if (consumers.isEmpty()) {
+            return;
+        }
+        enqueue(event);
+    }
+    
+    // Builds the event only when someone is subscribed; pass a factory such as BookingEvent::booked
+    public <T> void publish(Function<T, BookingEvent> eventFactory, T source) {
+        if (consumers.isEmpty()) {
+            return;
+        }
+        enqueue(eventFactory.apply(source));
+    }
+    
+    public long getPublishedCount() {
+        return published.sum();
+    }
+    
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+    
+    public long getConsumerFailureCount() {
+        return consumerFailures.sum();
+    }
+    
+    public int getBacklog() {
+        return buffer.size();
+    }
+    
+    // Stops accepting waits, delivers what is already buffered and stops the dispatcher
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        running = false;
+        LockSupport.unpark(dispatcher);
+        dispatcher.join(unit.toMillis(timeout));
+    }
+    
+    private void enqueue(BookingEvent event) {
+        while (!buffer.offer(event)) {
+            if (overflowPolicy == OverflowPolicy.DROP || !running) {
+                dropped.increment();
+                return;
+            }
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        published.increment();
+        if (idle) {
+            LockSupport.unpark(dispatcher);
+        }
+    }
+    
+    private void dispatch() {
+        boolean delivered = false;
+        while (true) {
+            BookingEvent event = buffer.poll();
+            if (event != null) {
+                deliver(event);
+                delivered = true;
+                continue;
+            }
+            
+            if (delivered) {
+                flushConsumers();
+                delivered = false;
+            }
+            if (!running) {
+                return;
+            }
+            
+            // Publishers check idle after their event is in the buffer, so either they see it set or the poll
+            // below sees their event
+            idle = true;
+            event = buffer.poll();
+            if (event == null && running) {
+                LockSupport.park(this);
+            }
+            idle = false;
+            if (event != null) {
+                deliver(event);
+                delivered = true;
+            }
+        }
+    }
+    
+    private void deliver(BookingEvent event) {
+        for (BookingEventConsumer consumer : consumers) {
+            try {
+                consumer.accept(event);
+            } catch (RuntimeException e) {
+                // One failing consumer must not stop delivery to the others
+                consumerFailures.increment();
+            }
+        }
+    }
+    
+    private void flushConsumers() {
+        for (BookingEventConsumer consumer : consumers) {
+            try {
+                consumer.flush();
+            } catch (RuntimeException e) {
+                consumerFailures.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.fitness.management.event;
+
+@FunctionalInterface
+public interface BookingEventConsumer {
+    void accept(BookingEvent event);
+    
+    // Called once the dispatcher has caught up with the buffer, so consumers can write out what they batched
+    default void flush() {
+    }
+}
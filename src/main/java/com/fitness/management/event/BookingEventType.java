@@ -0,0 +1,9 @@
+package com.fitness.management.event;
+
+public enum BookingEventType {
+    BOOKED,
+    WAITLISTED,
+    CANCELLED,
+    PROMOTED,
+    CLASS_CANCELLED
+}
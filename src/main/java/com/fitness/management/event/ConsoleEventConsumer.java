@@ -0,0 +1,9 @@
+package com.fitness.management.event;
+
+public class ConsoleEventConsumer implements BookingEventConsumer {
+    
+    @Override
+    public void accept(BookingEvent event) {
+        System.out.println(event);
+    }
+}
@@ -0,0 +1,51 @@
+package com.fitness.management.event;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Appends one line per event; lines are buffered and written out whenever the dispatcher catches up
+public class LogFileEventConsumer implements BookingEventConsumer, AutoCloseable {
+    private final BufferedWriter writer;
+    
+    public LogFileEventConsumer(Path path) {
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open event log " + path, e);
+        }
+    }
+    
+    @Override
+    public void accept(BookingEvent event) {
+        try {
+            writer.write(event.toString());
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    @Override
+    public void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
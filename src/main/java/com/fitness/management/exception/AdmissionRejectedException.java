@@ -0,0 +1,8 @@
+package com.fitness.management.exception;
+
+// Turned away by admission control before the booking was attempted, so nothing was booked or waitlisted
+public class AdmissionRejectedException extends ClassFullException {
+    public AdmissionRejectedException(String message) {
+        super(message);
+    }
+}
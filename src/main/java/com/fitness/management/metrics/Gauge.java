@@ -0,0 +1,22 @@
+package com.fitness.management.metrics;
+
+import java.util.function.LongSupplier;
+
+public class Gauge implements GaugeMBean {
+    private final String name;
+    private final LongSupplier value;
+    
+    Gauge(String name, LongSupplier value) {
+        this.name = name;
+        this.value = value;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public long getValue() {
+        return value.getAsLong();
+    }
+}
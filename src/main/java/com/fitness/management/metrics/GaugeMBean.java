@@ -0,0 +1,5 @@
+package com.fitness.management.metrics;
+
+public interface GaugeMBean {
+    long getValue();
+}
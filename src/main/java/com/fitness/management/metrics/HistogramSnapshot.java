@@ -0,0 +1,48 @@
+package com.fitness.management.metrics;
+
+public class HistogramSnapshot {
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+    
+    HistogramSnapshot(long[] counts, long count, long sum, long max) {
+        this.counts = counts;
+        this.count = count;
+        this.sum = sum;
+        this.max = max;
+    }
+    
+    public long getCount() {
+        return count;
+    }
+    
+    public long getMax() {
+        return max;
+    }
+    
+    public double getMean() {
+        return count == 0 ? 0.0 : (double) sum / count;
+    }
+    
+    // Upper bound of the bucket holding the given percentile, capped at the largest recorded value
+    public long getValueAtPercentile(double percentile) {
+        // Buckets are summed without a global lock, so use what they hold rather than the separate count
+        long total = 0;
+        for (long bucket : counts) {
+            total += bucket;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(LatencyHistogram.bucketUpperBound(i), max);
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,69 @@
+package com.fitness.management.metrics;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Log-linear latency histogram in the style of HdrHistogram: every power of two is split into 16 buckets, so any
+// recorded value is reported within about 6%. Every bucket is a LongAdder, which only grows extra cells for threads
+// that actually contend, so memory stays bounded however many threads record. Buckets are created on first use,
+// since latencies usually fall into a narrow band.
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    static final int BUCKET_COUNT = (62 - SUB_BUCKET_BITS) * SUB_BUCKETS + LINEAR_LIMIT;
+    
+    private final AtomicReferenceArray<LongAdder> buckets = new AtomicReferenceArray<>(BUCKET_COUNT);
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+    
+    public void record(long valueNanos) {
+        long value = Math.max(0, valueNanos);
+        bucket(bucketIndex(value)).increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+    
+    public HistogramSnapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            LongAdder bucket = buckets.get(i);
+            if (bucket != null) {
+                counts[i] = bucket.sum();
+                count += counts[i];
+            }
+        }
+        return new HistogramSnapshot(counts, count, sum.sum(), max.get());
+    }
+    
+    static int bucketIndex(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+    
+    static long bucketUpperBound(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index - (long) shift * SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+    
+    private LongAdder bucket(int index) {
+        LongAdder bucket = buckets.get(index);
+        if (bucket == null) {
+            LongAdder created = new LongAdder();
+            bucket = buckets.compareAndExchange(index, null, created);
+            if (bucket == null) {
+                bucket = created;
+            }
+        }
+        return bucket;
+    }
+}
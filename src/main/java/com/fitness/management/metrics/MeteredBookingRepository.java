@@ -0,0 +1,67 @@
+package com.fitness.management.metrics;
+
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public class MeteredBookingRepository implements BookingRepository {
+    private final BookingRepository delegate;
+    private final OperationMetrics save;
+    private final OperationMetrics saveAll;
+    private final OperationMetrics findByUser;
+    private final OperationMetrics findByFitnessClass;
+    private final OperationMetrics findByUserAndFitnessClass;
+    private final OperationMetrics findConflictingBooking;
+    private final OperationMetrics findByUserBetween;
+    
+    public MeteredBookingRepository(BookingRepository delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.save = registry.operation("bookingRepository.save");
+        this.saveAll = registry.operation("bookingRepository.saveAll");
+        this.findByUser = registry.operation("bookingRepository.findByUser");
+        this.findByFitnessClass = registry.operation("bookingRepository.findByFitnessClass");
+        this.findByUserAndFitnessClass = registry.operation("bookingRepository.findByUserAndFitnessClass");
+        this.findConflictingBooking = registry.operation("bookingRepository.findConflictingBooking");
+        this.findByUserBetween = registry.operation("bookingRepository.findByUserBetween");
+    }
+    
+    @Override
+    public Booking save(Booking booking) {
+        return save.time(() -> delegate.save(booking));
+    }
+    
+    @Override
+    public List<Booking> saveAll(List<Booking> bookings) {
+        return saveAll.time(() -> delegate.saveAll(bookings));
+    }
+    
+    @Override
+    public List<Booking> findByUser(User user) {
+        return findByUser.time(() -> delegate.findByUser(user));
+    }
+    
+    @Override
+    public List<Booking> findByFitnessClass(FitnessClass fitnessClass) {
+        return findByFitnessClass.time(() -> delegate.findByFitnessClass(fitnessClass));
+    }
+    
+    @Override
+    public Optional<Booking> findByUserAndFitnessClass(User user, FitnessClass fitnessClass) {
+        return findByUserAndFitnessClass.time(() -> delegate.findByUserAndFitnessClass(user, fitnessClass));
+    }
+    
+    @Override
+    public Optional<Booking> findConflictingBooking(User user, FitnessClass fitnessClass) {
+        return findConflictingBooking.time(() -> delegate.findConflictingBooking(user, fitnessClass));
+    }
+    
+    @Override
+    public List<Booking> findByUserBetween(User user, LocalDateTime start, LocalDateTime end) {
+        return findByUserBetween.time(() -> delegate.findByUserBetween(user, start, end));
+    }
+}
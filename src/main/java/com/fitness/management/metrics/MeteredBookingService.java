@@ -0,0 +1,134 @@
+package com.fitness.management.metrics;
+
+import com.fitness.management.exception.ClassFullException;
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.BookingResult;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.model.WaitlistEntry;
+import com.fitness.management.repository.WaitlistRepository;
+import com.fitness.management.service.BookingService;
+import com.fitness.management.util.ConcurrentLongMap;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class MeteredBookingService implements BookingService {
+    private final BookingService delegate;
+    private final WaitlistRepository waitlistRepository;
+    private final OperationMetrics bookClass;
+    private final OperationMetrics bookClassIdempotent;
+    private final OperationMetrics bookAll;
+    private final OperationMetrics bookSeries;
+    private final OperationMetrics cancelBooking;
+    private final OperationMetrics getUserBookings;
+    private final OperationMetrics getUserBookingsBetween;
+    private final OperationMetrics addToWaitlist;
+    
+    // Classes that had someone waitlisted, dropped again once their waitlist is empty
+    private final ConcurrentLongMap<FitnessClass> waitlistedClasses = new ConcurrentLongMap<>();
+    
+    public MeteredBookingService(BookingService delegate, WaitlistRepository waitlistRepository, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.waitlistRepository = waitlistRepository;
+        this.bookClass = registry.operation("bookingService.bookClass");
+        this.bookClassIdempotent = registry.operation("bookingService.bookClassIdempotent");
+        this.bookAll = registry.operation("bookingService.bookAll");
+        this.bookSeries = registry.operation("bookingService.bookSeries");
+        this.cancelBooking = registry.operation("bookingService.cancelBooking");
+        this.getUserBookings = registry.operation("bookingService.getUserBookings");
+        this.getUserBookingsBetween = registry.operation("bookingService.getUserBookingsBetween");
+        this.addToWaitlist = registry.operation("bookingService.addToWaitlist");
+        registry.gauge("waitlist.depth.total", this::totalWaitlistDepth);
+        registry.gauge("waitlist.depth.max", this::maxWaitlistDepth);
+        registry.gauge("waitlist.classes", waitlistedClasses::size);
+    }
+    
+    @Override
+    public Booking bookClass(User user, FitnessClass fitnessClass) {
+        try {
+            return bookClass.time(() -> delegate.bookClass(user, fitnessClass));
+        } catch (ClassFullException e) {
+            waitlistedClasses.put(fitnessClass.getId(), fitnessClass);
+            throw e;
+        }
+    }
+    
+    @Override
+    public Booking bookClass(User user, FitnessClass fitnessClass, String idempotencyKey) {
+        try {
+            return bookClassIdempotent.time(() -> delegate.bookClass(user, fitnessClass, idempotencyKey));
+        } catch (ClassFullException e) {
+            waitlistedClasses.put(fitnessClass.getId(), fitnessClass);
+            throw e;
+        }
+    }
+    
+    @Override
+    public List<BookingResult> bookAll(List<User> users, FitnessClass fitnessClass) {
+        List<BookingResult> results = bookAll.time(() -> delegate.bookAll(users, fitnessClass));
+        trackWaitlisted(results);
+        return results;
+    }
+    
+    @Override
+    public List<BookingResult> bookSeries(User user, List<FitnessClass> fitnessClasses) {
+        List<BookingResult> results = bookSeries.time(() -> delegate.bookSeries(user, fitnessClasses));
+        trackWaitlisted(results);
+        return results;
+    }
+    
+    @Override
+    public void cancelBooking(User user, FitnessClass fitnessClass) {
+        cancelBooking.time(() -> delegate.cancelBooking(user, fitnessClass));
+    }
+    
+    @Override
+    public List<Booking> getUserBookings(User user) {
+        return getUserBookings.time(() -> delegate.getUserBookings(user));
+    }
+    
+    @Override
+    public List<Booking> getUserBookingsBetween(User user, LocalDateTime start, LocalDateTime end) {
+        return getUserBookingsBetween.time(() -> delegate.getUserBookingsBetween(user, start, end));
+    }
+    
+    @Override
+    public WaitlistEntry addToWaitlist(User user, FitnessClass fitnessClass) {
+        WaitlistEntry entry = addToWaitlist.time(() -> delegate.addToWaitlist(user, fitnessClass));
+        waitlistedClasses.put(fitnessClass.getId(), fitnessClass);
+        return entry;
+    }
+    
+    private void trackWaitlisted(List<BookingResult> results) {
+        for (BookingResult result : results) {
+            if (result.getFailure() instanceof ClassFullException) {
+                waitlistedClasses.put(result.getFitnessClass().getId(), result.getFitnessClass());
+            }
+        }
+    }
+    
+    private long totalWaitlistDepth() {
+        long total = 0;
+        for (FitnessClass fitnessClass : waitlistedClasses.values()) {
+            total += waitlistDepth(fitnessClass);
+        }
+        return total;
+    }
+    
+    private long maxWaitlistDepth() {
+        long max = 0;
+        for (FitnessClass fitnessClass : waitlistedClasses.values()) {
+            max = Math.max(max, waitlistDepth(fitnessClass));
+        }
+        return max;
+    }
+    
+    private int waitlistDepth(FitnessClass fitnessClass) {
+        int depth = waitlistRepository.countPendingByFitnessClass(fitnessClass);
+        if (depth == 0) {
+            waitlistedClasses.remove(fitnessClass.getId(), fitnessClass);
+        }
+        return depth;
+    }
+}
@@ -0,0 +1,66 @@
+package com.fitness.management.metrics;
+
+import com.fitness.management.model.ClassType;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.repository.FitnessClassRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public class MeteredFitnessClassRepository implements FitnessClassRepository {
+    private final FitnessClassRepository delegate;
+    private final OperationMetrics save;
+    private final OperationMetrics findById;
+    private final OperationMetrics findByStartTimeBetween;
+    private final OperationMetrics findByClassTypeAndStartTimeBetween;
+    private final OperationMetrics findAvailableByStartTimeBetween;
+    private final OperationMetrics reserveSpot;
+    private final OperationMetrics releaseSpot;
+    
+    public MeteredFitnessClassRepository(FitnessClassRepository delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.save = registry.operation("fitnessClassRepository.save");
+        this.findById = registry.operation("fitnessClassRepository.findById");
+        this.findByStartTimeBetween = registry.operation("fitnessClassRepository.findByStartTimeBetween");
+        this.findByClassTypeAndStartTimeBetween = registry.operation("fitnessClassRepository.findByClassTypeAndStartTimeBetween");
+        this.findAvailableByStartTimeBetween = registry.operation("fitnessClassRepository.findAvailableByStartTimeBetween");
+        this.reserveSpot = registry.operation("fitnessClassRepository.reserveSpot");
+        this.releaseSpot = registry.operation("fitnessClassRepository.releaseSpot");
+    }
+    
+    @Override
+    public FitnessClass save(FitnessClass fitnessClass) {
+        return save.time(() -> delegate.save(fitnessClass));
+    }
+    
+    @Override
+    public Optional<FitnessClass> findById(long id) {
+        return findById.time(() -> delegate.findById(id));
+    }
+    
+    @Override
+    public List<FitnessClass> findByStartTimeBetween(LocalDateTime start, LocalDateTime end) {
+        return findByStartTimeBetween.time(() -> delegate.findByStartTimeBetween(start, end));
+    }
+    
+    @Override
+    public List<FitnessClass> findByClassTypeAndStartTimeBetween(ClassType classType, LocalDateTime start, LocalDateTime end) {
+        return findByClassTypeAndStartTimeBetween.time(() -> delegate.findByClassTypeAndStartTimeBetween(classType, start, end));
+    }
+    
+    @Override
+    public List<FitnessClass> findAvailableByStartTimeBetween(LocalDateTime start, LocalDateTime end) {
+        return findAvailableByStartTimeBetween.time(() -> delegate.findAvailableByStartTimeBetween(start, end));
+    }
+    
+    @Override
+    public boolean reserveSpot(FitnessClass fitnessClass) {
+        return reserveSpot.time(() -> delegate.reserveSpot(fitnessClass));
+    }
+    
+    @Override
+    public void releaseSpot(FitnessClass fitnessClass) {
+        releaseSpot.time(() -> delegate.releaseSpot(fitnessClass));
+    }
+}
@@ -0,0 +1,35 @@
+package com.fitness.management.metrics;
+
+import com.fitness.management.model.User;
+import com.fitness.management.repository.UserRepository;
+
+import java.util.Optional;
+
+public class MeteredUserRepository implements UserRepository {
+    private final UserRepository delegate;
+    private final OperationMetrics save;
+    private final OperationMetrics saveIfUsernameAbsent;
+    private final OperationMetrics findByUsername;
+    
+    public MeteredUserRepository(UserRepository delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.save = registry.operation("userRepository.save");
+        this.saveIfUsernameAbsent = registry.operation("userRepository.saveIfUsernameAbsent");
+        this.findByUsername = registry.operation("userRepository.findByUsername");
+    }
+    
+    @Override
+    public User save(User user) {
+        return save.time(() -> delegate.save(user));
+    }
+    
+    @Override
+    public boolean saveIfUsernameAbsent(User user) {
+        return saveIfUsernameAbsent.time(() -> delegate.saveIfUsernameAbsent(user));
+    }
+    
+    @Override
+    public Optional<User> findByUsername(String username) {
+        return findByUsername.time(() -> delegate.findByUsername(username));
+    }
+}
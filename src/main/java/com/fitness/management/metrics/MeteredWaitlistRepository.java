@@ -0,0 +1,53 @@
+package com.fitness.management.metrics;
+
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.model.WaitlistEntry;
+import com.fitness.management.repository.WaitlistRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public class MeteredWaitlistRepository implements WaitlistRepository {
+    private final WaitlistRepository delegate;
+    private final OperationMetrics save;
+    private final OperationMetrics findFirstByFitnessClass;
+    private final OperationMetrics findByUserAndFitnessClass;
+    private final OperationMetrics countPendingByFitnessClass;
+    private final OperationMetrics clearPendingByFitnessClasses;
+    
+    public MeteredWaitlistRepository(WaitlistRepository delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.save = registry.operation("waitlistRepository.save");
+        this.findFirstByFitnessClass = registry.operation("waitlistRepository.findFirstByFitnessClass");
+        this.findByUserAndFitnessClass = registry.operation("waitlistRepository.findByUserAndFitnessClass");
+        this.countPendingByFitnessClass = registry.operation("waitlistRepository.countPendingByFitnessClass");
+        this.clearPendingByFitnessClasses = registry.operation("waitlistRepository.clearPendingByFitnessClasses");
+    }
+    
+    @Override
+    public WaitlistEntry save(WaitlistEntry waitlistEntry) {
+        return save.time(() -> delegate.save(waitlistEntry));
+    }
+    
+    @Override
+    public Optional<WaitlistEntry> findFirstByFitnessClass(FitnessClass fitnessClass) {
+        return findFirstByFitnessClass.time(() -> delegate.findFirstByFitnessClass(fitnessClass));
+    }
+    
+    @Override
+    public Optional<WaitlistEntry> findByUserAndFitnessClass(User user, FitnessClass fitnessClass) {
+        return findByUserAndFitnessClass.time(() -> delegate.findByUserAndFitnessClass(user, fitnessClass));
+    }
+    
+    @Override
+    public int countPendingByFitnessClass(FitnessClass fitnessClass) {
+        return countPendingByFitnessClass.time(() -> delegate.countPendingByFitnessClass(fitnessClass));
+    }
+    
+    @Override
+    public List<WaitlistEntry> clearPendingByFitnessClasses(Collection<FitnessClass> fitnessClasses) {
+        return clearPendingByFitnessClasses.time(() -> delegate.clearPendingByFitnessClasses(fitnessClasses));
+    }
+}
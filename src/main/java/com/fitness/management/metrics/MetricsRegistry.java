@@ -0,0 +1,90 @@
+package com.fitness.management.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+// Operation timings and gauges of the service layer. The default registry is on unless fitness.metrics.enabled
+// is false, and registers every metric as an MBean under com.fitness.management.
+public class MetricsRegistry implements MetricsRegistryMBean {
+    private static final String JMX_DOMAIN = "com.fitness.management";
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("fitness.metrics.enabled", "true"));
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry(true);
+    
+    private final boolean exportToJmx;
+    private final Map<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+    private final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+    
+    public MetricsRegistry() {
+        this(false);
+    }
+    
+    private MetricsRegistry(boolean exportToJmx) {
+        this.exportToJmx = exportToJmx;
+        if (exportToJmx) {
+            registerMBean("type=Registry,name=metrics", this);
+        }
+    }
+    
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+    
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+    
+    public OperationMetrics operation(String name) {
+        return operations.computeIfAbsent(name, key -> {
+            OperationMetrics metrics = new OperationMetrics(key);
+            if (exportToJmx) {
+                registerMBean("type=Operation,name=" + ObjectName.quote(key), metrics);
+            }
+            return metrics;
+        });
+    }
+    
+    public Gauge gauge(String name, LongSupplier value) {
+        return gauges.computeIfAbsent(name, key -> {
+            Gauge gauge = new Gauge(key, value);
+            if (exportToJmx) {
+                registerMBean("type=Gauge,name=" + ObjectName.quote(key), gauge);
+            }
+            return gauge;
+        });
+    }
+    
+    // Plain text, one metric per line, for scraping or logging
+    @Override
+    public String dump() {
+        StringBuilder text = new StringBuilder();
+        for (OperationMetrics metrics : new TreeMap<>(operations).values()) {
+            HistogramSnapshot snapshot = metrics.snapshot();
+            text.append(String.format("operation %s count=%d errors=%d mean_us=%.1f p50_us=%.1f p99_us=%.1f p999_us=%.1f max_us=%.1f%n",
+                    metrics.getName(), snapshot.getCount(), metrics.getErrorCount(), snapshot.getMean() / 1000.0,
+                    snapshot.getValueAtPercentile(50) / 1000.0, snapshot.getValueAtPercentile(99) / 1000.0,
+                    snapshot.getValueAtPercentile(99.9) / 1000.0, snapshot.getMax() / 1000.0));
+        }
+        for (Gauge gauge : new TreeMap<>(gauges).values()) {
+            text.append(String.format("gauge %s value=%d%n", gauge.getName(), gauge.getValue()));
+        }
+        return text.toString();
+    }
+    
+    private static void registerMBean(String properties, Object mbean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(JMX_DOMAIN + ":" + properties);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(mbean, objectName);
+            }
+        } catch (JMException | SecurityException e) {
+            // Metrics stay readable through dump() when JMX is unavailable
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.fitness.management.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+public class OperationMetrics implements OperationMetricsMBean {
+    private final String name;
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    
+    OperationMetrics(String name) {
+        this.name = name;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public <T> T time(Supplier<T> operation) {
+        long began = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            T result = operation.get();
+            succeeded = true;
+            return result;
+        } finally {
+            record(System.nanoTime() - began, succeeded);
+        }
+    }
+    
+    public void time(Runnable operation) {
+        time(() -> {
+            operation.run();
+            return null;
+        });
+    }
+    
+    public void record(long elapsedNanos, boolean succeeded) {
+        latencies.record(elapsedNanos);
+        if (!succeeded) {
+            errors.increment();
+        }
+    }
+    
+    public HistogramSnapshot snapshot() {
+        return latencies.snapshot();
+    }
+    
+    @Override
+    public long getCount() {
+        return snapshot().getCount();
+    }
+    
+    @Override
+    public long getErrorCount() {
+        return errors.sum();
+    }
+    
+    @Override
+    public double getMeanNanos() {
+        return snapshot().getMean();
+    }
+    
+    @Override
+    public long getP50Nanos() {
+        return snapshot().getValueAtPercentile(50);
+    }
+    
+    @Override
+    public long getP99Nanos() {
+        return snapshot().getValueAtPercentile(99);
+    }
+    
+    @Override
+    public long getP999Nanos() {
+        return snapshot().getValueAtPercentile(99.9);
+    }
+    
+    @Override
+    public long getMaxNanos() {
+        return snapshot().getMax();
+    }
+}
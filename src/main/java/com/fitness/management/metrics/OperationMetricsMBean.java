@@ -0,0 +1,11 @@
+package com.fitness.management.metrics;
+
+public interface OperationMetricsMBean {
+    long getCount();
+    long getErrorCount();
+    double getMeanNanos();
+    long getP50Nanos();
+    long getP99Nanos();
+    long getP999Nanos();
+    long getMaxNanos();
+}
@@ -1,24 +1,33 @@
 package com.fitness.management.model;
 
+import com.fitness.management.util.IdUtils;
+
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 public class Booking {
-    private final String id;
+    private final long id;
     private User user;
     private FitnessClass fitnessClass;
     private LocalDateTime bookingTime;
     private boolean cancelled;
     
     public Booking(User user, FitnessClass fitnessClass) {
-        this.id = UUID.randomUUID().toString();
+        this.id = IdUtils.nextId();
         this.user = user;
         this.fitnessClass = fitnessClass;
         this.bookingTime = LocalDateTime.now();
         this.cancelled = false;
     }
     
-    public String getId() {
+    public Booking(long id, User user, FitnessClass fitnessClass, LocalDateTime bookingTime, boolean cancelled) {
+        this.id = id;
+        this.user = user;
+        this.fitnessClass = fitnessClass;
+        this.bookingTime = bookingTime;
+        this.cancelled = cancelled;
+    }
+    
+    public long getId() {
         return id;
     }
     
@@ -0,0 +1,43 @@
+package com.fitness.management.model;
+
+public class BookingResult {
+    private final User user;
+    private final FitnessClass fitnessClass;
+    private final Booking booking;
+    private final RuntimeException failure;
+    
+    private BookingResult(User user, FitnessClass fitnessClass, Booking booking, RuntimeException failure) {
+        this.user = user;
+        this.fitnessClass = fitnessClass;
+        this.booking = booking;
+        this.failure = failure;
+    }
+    
+    public static BookingResult success(Booking booking) {
+        return new BookingResult(booking.getUser(), booking.getFitnessClass(), booking, null);
+    }
+    
+    public static BookingResult failure(User user, FitnessClass fitnessClass, RuntimeException failure) {
+        return new BookingResult(user, fitnessClass, null, failure);
+    }
+    
+    public User getUser() {
+        return user;
+    }
+    
+    public FitnessClass getFitnessClass() {
+        return fitnessClass;
+    }
+    
+    public Booking getBooking() {
+        return booking;
+    }
+    
+    public RuntimeException getFailure() {
+        return failure;
+    }
+    
+    public boolean isSuccess() {
+        return failure == null;
+    }
+}
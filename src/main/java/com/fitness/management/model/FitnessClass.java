@@ -1,14 +1,15 @@
 package com.fitness.management.model;
 
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.time.ZoneOffset;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 
 import com.fitness.management.util.ConcurrencyUtils;
+import com.fitness.management.util.IdUtils;
 
 public class FitnessClass {
-    private final String id;
+    private final long id;
     private String name;
     private ClassType classType;
     private AtomicInteger capacity;
@@ -18,7 +19,7 @@ public class FitnessClass {
     private boolean cancelled;
     
     public FitnessClass(String name, ClassType classType, int capacity, LocalDateTime startTime, int durationMinutes) {
-        this.id = UUID.randomUUID().toString();
+        this.id = IdUtils.nextId();
         this.name = name;
         this.classType = classType;
         this.capacity = new AtomicInteger(capacity);
@@ -28,7 +29,19 @@ public class FitnessClass {
         this.cancelled = false;
     }
     
-    public String getId() {
+    public FitnessClass(long id, String name, ClassType classType, int capacity, int currentAttendance,
+                        LocalDateTime startTime, int durationMinutes, boolean cancelled) {
+        this.id = id;
+        this.name = name;
+        this.classType = classType;
+        this.capacity = new AtomicInteger(capacity);
+        this.currentAttendance = new AtomicInteger(currentAttendance);
+        this.startTime = startTime;
+        this.durationMinutes = durationMinutes;
+        this.cancelled = cancelled;
+    }
+    
+    public long getId() {
         return id;
     }
     
@@ -98,6 +111,22 @@ public class FitnessClass {
         }
     }
     
+    public boolean tryReserveSpot() {
+        while (true) {
+            int current = currentAttendance.get();
+            if (current >= capacity.get()) {
+                return false;
+            }
+            if (currentAttendance.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    public void releaseSpot() {
+        currentAttendance.updateAndGet(val -> Math.max(0, val - 1));
+    }
+    
     public boolean hasAvailableSpots() {
         Lock lock = ConcurrencyUtils.getLockForFitnessClass(this);
         lock.lock();
@@ -120,6 +149,14 @@ public class FitnessClass {
         return startTime.plusMinutes(durationMinutes);
     }
     
+    public long getStartEpochSecond() {
+        return startTime.toEpochSecond(ZoneOffset.UTC);
+    }
+    
+    public long getEndEpochSecond() {
+        return getStartEpochSecond() + durationMinutes * 60L;
+    }
+    
     public int getDurationMinutes() {
         return durationMinutes;
     }
@@ -137,8 +174,8 @@ public class FitnessClass {
     }
     
     public boolean hasTimeConflict(FitnessClass other) {
-        if (this.startTime.isBefore(other.getEndTime()) && 
-            other.startTime.isBefore(this.getEndTime())) {
+        if (this.getStartEpochSecond() < other.getEndEpochSecond() && 
+            other.getStartEpochSecond() < this.getEndEpochSecond()) {
             return true;
         }
         return false;
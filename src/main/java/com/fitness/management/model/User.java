@@ -1,24 +1,33 @@
 package com.fitness.management.model;
 
-import java.util.UUID;
+import com.fitness.management.util.IdUtils;
+
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class User {
-    private final String id;
+    private final long id;
     private String username;
     private String password;
     private UserType userType;
     private AtomicInteger activeBookingsCount;
     
     public User(String username, String password, UserType userType) {
-        this.id = UUID.randomUUID().toString();
+        this.id = IdUtils.nextId();
         this.username = username;
         this.password = password;
         this.userType = userType;
         this.activeBookingsCount = new AtomicInteger(0);
     }
     
-    public String getId() {
+    public User(long id, String username, String password, UserType userType, int activeBookingsCount) {
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.userType = userType;
+        this.activeBookingsCount = new AtomicInteger(activeBookingsCount);
+    }
+    
+    public long getId() {
         return id;
     }
     
@@ -62,9 +71,25 @@ public class User {
         return activeBookingsCount.incrementAndGet();
     }
     
+    public boolean tryIncrementActiveBookings() {
+        while (true) {
+            int current = activeBookingsCount.get();
+            if (current >= getBookingLimit()) {
+                return false;
+            }
+            if (activeBookingsCount.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+    
     public int decrementActiveBookings() {
         return activeBookingsCount.updateAndGet(val -> Math.max(0, val - 1));
     }
+    
+    public int decrementActiveBookings(int count) {
+        return activeBookingsCount.updateAndGet(val -> Math.max(0, val - count));
+    }
 
     public boolean hasReachedBookingLimit() {
         return activeBookingsCount.get() >= getBookingLimit();
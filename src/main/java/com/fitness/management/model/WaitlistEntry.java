@@ -1,24 +1,33 @@
 package com.fitness.management.model;
 
+import com.fitness.management.util.IdUtils;
+
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 public class WaitlistEntry {
-    private final String id;
+    private final long id;
     private User user;
     private FitnessClass fitnessClass;
     private LocalDateTime entryTime;
     private boolean processed;
     
     public WaitlistEntry(User user, FitnessClass fitnessClass) {
-        this.id = UUID.randomUUID().toString();
+        this.id = IdUtils.nextId();
         this.user = user;
         this.fitnessClass = fitnessClass;
         this.entryTime = LocalDateTime.now();
         this.processed = false;
     }
     
-    public String getId() {
+    public WaitlistEntry(long id, User user, FitnessClass fitnessClass, LocalDateTime entryTime, boolean processed) {
+        this.id = id;
+        this.user = user;
+        this.fitnessClass = fitnessClass;
+        this.entryTime = entryTime;
+        this.processed = processed;
+    }
+    
+    public long getId() {
         return id;
     }
     
@@ -4,12 +4,16 @@ import com.fitness.management.model.Booking;
 import com.fitness.management.model.FitnessClass;
 import com.fitness.management.model.User;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 public interface BookingRepository {
     Booking save(Booking booking);
+    List<Booking> saveAll(List<Booking> bookings);
     List<Booking> findByUser(User user);
     List<Booking> findByFitnessClass(FitnessClass fitnessClass);
     Optional<Booking> findByUserAndFitnessClass(User user, FitnessClass fitnessClass);
+    Optional<Booking> findConflictingBooking(User user, FitnessClass fitnessClass);
+    List<Booking> findByUserBetween(User user, LocalDateTime start, LocalDateTime end);
 }
\ No newline at end of file
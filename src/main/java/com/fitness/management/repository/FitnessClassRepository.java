@@ -1,10 +1,25 @@
 package com.fitness.management.repository;
 
+import com.fitness.management.model.ClassType;
 import com.fitness.management.model.FitnessClass;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface FitnessClassRepository {
     FitnessClass save(FitnessClass fitnessClass);
-    Optional<FitnessClass> findById(String id);
-}
\ No newline at end of file
+    Optional<FitnessClass> findById(long id);
+    // Range queries return classes starting in [start, end), ordered by start time
+    List<FitnessClass> findByStartTimeBetween(LocalDateTime start, LocalDateTime end);
+    List<FitnessClass> findByClassTypeAndStartTimeBetween(ClassType classType, LocalDateTime start, LocalDateTime end);
+    // Classes that are not cancelled and still have open spots
+    List<FitnessClass> findAvailableByStartTimeBetween(LocalDateTime start, LocalDateTime end);
+    boolean reserveSpot(FitnessClass fitnessClass);
+    void releaseSpot(FitnessClass fitnessClass);
+    
+    default List<FitnessClass> findByDate(LocalDate date) {
+        return findByStartTimeBetween(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
+}
@@ -1,5 +1,10 @@
 package com.fitness.management.repository;
 
+import com.fitness.management.repository.impl.cache.CachingBookingRepository;
+import com.fitness.management.repository.impl.cache.CachingFitnessClassRepository;
+import com.fitness.management.repository.impl.cache.CachingUserRepository;
+import com.fitness.management.repository.impl.columnar.ColumnarBookingRepository;
+import com.fitness.management.repository.impl.journal.JournaledRepositoryStore;
 import com.fitness.management.repository.impl.memory.InMemoryBookingRepository;
 import com.fitness.management.repository.impl.memory.InMemoryFitnessClassRepository;
 import com.fitness.management.repository.impl.memory.InMemoryUserRepository;
@@ -8,31 +13,75 @@ import com.fitness.management.repository.impl.mysql.MySQLBookingRepository;
 import com.fitness.management.repository.impl.mysql.MySQLFitnessClassRepository;
 import com.fitness.management.repository.impl.mysql.MySQLUserRepository;
 import com.fitness.management.repository.impl.mysql.MySQLWaitlistRepository;
+import com.fitness.management.repository.impl.tiered.TieredRepositoryStore;
+
+import java.time.Duration;
 
 public class RepositoryFactory {
     
     // Enum for selecting repository implementation type
     public enum RepositoryType {
         IN_MEMORY,
-        MYSQL
+        MYSQL,
+        JOURNALED,
+        // In-memory, with bookings held in a compact columnar store for large booking histories
+        COLUMNAR,
+        // In-memory, with past classes and their history moved to an archive tier in the background
+        TIERED
     }
 
     private static RepositoryType defaultType = RepositoryType.IN_MEMORY;
+    
+    // Read-through caching for user, class and booking lookups; a size of 0 leaves it disabled
+    private static volatile int cacheMaximumSize;
+    private static volatile Duration cacheTtl;
 
     public static void setDefaultType(RepositoryType type) {
         defaultType = type;
     }
     
+    public static RepositoryType getDefaultType() {
+        return defaultType;
+    }
+    
+    public static void enableCaching(int maximumSize, Duration ttl) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maximumSize);
+        }
+        cacheTtl = ttl;
+        cacheMaximumSize = maximumSize;
+    }
+    
+    public static void disableCaching() {
+        cacheMaximumSize = 0;
+    }
+    
+    public static boolean isCachingEnabled() {
+        return cacheMaximumSize > 0;
+    }
+    
     public static UserRepository createUserRepository() {
         return createUserRepository(defaultType);
     }
     
     public static UserRepository createUserRepository(RepositoryType type) {
+        UserRepository repository = createUncachedUserRepository(type);
+        if (isCachingEnabled()) {
+            return new CachingUserRepository(repository, cacheMaximumSize, cacheTtl);
+        }
+        return repository;
+    }
+    
+    private static UserRepository createUncachedUserRepository(RepositoryType type) {
         switch (type) {
             case IN_MEMORY:
+            case COLUMNAR:
+            case TIERED:
                 return new InMemoryUserRepository();
             case MYSQL:
                 return new MySQLUserRepository();
+            case JOURNALED:
+                return JournaledRepositoryStore.getDefault().getUserRepository();
             default:
                 throw new UnsupportedOperationException("Unknown repository type: " + type);
         }
@@ -43,11 +92,24 @@ public class RepositoryFactory {
     }
     
     public static FitnessClassRepository createFitnessClassRepository(RepositoryType type) {
+        FitnessClassRepository repository = createUncachedFitnessClassRepository(type);
+        if (isCachingEnabled()) {
+            return new CachingFitnessClassRepository(repository, cacheMaximumSize, cacheTtl);
+        }
+        return repository;
+    }
+    
+    private static FitnessClassRepository createUncachedFitnessClassRepository(RepositoryType type) {
         switch (type) {
             case IN_MEMORY:
+            case COLUMNAR:
                 return new InMemoryFitnessClassRepository();
             case MYSQL:
                 return new MySQLFitnessClassRepository();
+            case JOURNALED:
+                return JournaledRepositoryStore.getDefault().getFitnessClassRepository();
+            case TIERED:
+                return TieredRepositoryStore.getDefault().getFitnessClassRepository();
             default:
                 throw new IllegalArgumentException("Unknown repository type: " + type);
         }
@@ -58,11 +120,25 @@ public class RepositoryFactory {
     }
     
     public static BookingRepository createBookingRepository(RepositoryType type) {
+        BookingRepository repository = createUncachedBookingRepository(type);
+        if (isCachingEnabled()) {
+            return new CachingBookingRepository(repository, cacheMaximumSize, cacheTtl);
+        }
+        return repository;
+    }
+    
+    private static BookingRepository createUncachedBookingRepository(RepositoryType type) {
         switch (type) {
             case IN_MEMORY:
                 return new InMemoryBookingRepository();
             case MYSQL:
                 return new MySQLBookingRepository();
+            case JOURNALED:
+                return JournaledRepositoryStore.getDefault().getBookingRepository();
+            case COLUMNAR:
+                return new ColumnarBookingRepository();
+            case TIERED:
+                return TieredRepositoryStore.getDefault().getBookingRepository();
             default:
                 throw new IllegalArgumentException("Unknown repository type: " + type);
         }
@@ -75,9 +151,14 @@ public class RepositoryFactory {
     public static WaitlistRepository createWaitlistRepository(RepositoryType type) {
         switch (type) {
             case IN_MEMORY:
+            case COLUMNAR:
                 return new InMemoryWaitlistRepository();
             case MYSQL:
                 return new MySQLWaitlistRepository();
+            case JOURNALED:
+                return JournaledRepositoryStore.getDefault().getWaitlistRepository();
+            case TIERED:
+                return TieredRepositoryStore.getDefault().getWaitlistRepository();
             default:
                 throw new UnsupportedOperationException("Unknown repository type: " + type);
         }
@@ -6,5 +6,6 @@ import java.util.Optional;
 
 public interface UserRepository {
     User save(User user);
+    boolean saveIfUsernameAbsent(User user);
     Optional<User> findByUsername(String username);
 }
\ No newline at end of file
@@ -4,10 +4,15 @@ import com.fitness.management.model.FitnessClass;
 import com.fitness.management.model.User;
 import com.fitness.management.model.WaitlistEntry;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface WaitlistRepository {
     WaitlistEntry save(WaitlistEntry waitlistEntry);
     Optional<WaitlistEntry> findFirstByFitnessClass(FitnessClass fitnessClass);
     Optional<WaitlistEntry> findByUserAndFitnessClass(User user, FitnessClass fitnessClass);
+    int countPendingByFitnessClass(FitnessClass fitnessClass);
+    // Marks every pending entry of the classes processed and returns those entries
+    List<WaitlistEntry> clearPendingByFitnessClasses(Collection<FitnessClass> fitnessClasses);
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.fitness.management.repository;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Lets a service release its locks before waiting for its writes to become durable. Inside a scope, a repository
+// that commits in the background (the journal's group commit) registers the position each write has to reach instead
+// of waiting in save; the scope waits once for all of them when the operation is done.
+public final class WriteScope {
+    private static final ThreadLocal<WriteScope> CURRENT = new ThreadLocal<>();
+    
+    private final Map<Durability, Long> pending = new IdentityHashMap<>(2);
+    
+    private WriteScope() {
+    }
+    
+    // Runs the operation and returns once everything it wrote is durable. A nested call joins the enclosing scope.
+    public static <T> T run(Supplier<T> operation) {
+        if (CURRENT.get() != null) {
+            return operation.get();
+        }
+        WriteScope scope = new WriteScope();
+        try {
+            return scope.join(operation);
+        } finally {
+            scope.await();
+        }
+    }
+    
+    public static void run(Runnable operation) {
+        run(() -> {
+            operation.run();
+            return null;
+        });
+    }
+    
+    // The calling thread's scope, or null outside one
+    public static WriteScope current() {
+        return CURRENT.get();
+    }
+    
+    // Records the position a write has to reach, or returns false outside a scope so the caller waits itself
+    public static boolean defer(Durability durability, long position) {
+        WriteScope scope = CURRENT.get();
+        if (scope == null) {
+            return false;
+        }
+        scope.pending.merge(durability, position, Math::max);
+        return true;
+    }
+    
+    // Runs part of this scope's operation on the calling thread, which may be a worker rather than the thread that
+    // opened the scope; the opener must not read the scope again until the worker is done
+    public <T> T join(Supplier<T> operation) {
+        WriteScope previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return operation.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+    
+    private void await() {
+        for (Map.Entry<Durability, Long> entry : pending.entrySet()) {
+            entry.getKey().awaitDurable(entry.getValue());
+        }
+        pending.clear();
+    }
+    
+    @FunctionalInterface
+    public interface Durability {
+        void awaitDurable(long position);
+    }
+}
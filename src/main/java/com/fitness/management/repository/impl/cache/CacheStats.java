@@ -0,0 +1,47 @@
+package com.fitness.management.repository.impl.cache;
+
+public class CacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long size;
+    
+    public CacheStats(long hitCount, long missCount, long evictionCount, long size) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.size = size;
+    }
+    
+    public long getHitCount() {
+        return hitCount;
+    }
+    
+    public long getMissCount() {
+        return missCount;
+    }
+    
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+    
+    public long getSize() {
+        return size;
+    }
+    
+    public double getHitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 0.0 : (double) hitCount / requests;
+    }
+    
+    public CacheStats plus(CacheStats other) {
+        return new CacheStats(hitCount + other.hitCount, missCount + other.missCount,
+                evictionCount + other.evictionCount, size + other.size);
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("hits=%d, misses=%d, evictions=%d, size=%d, hitRate=%.2f",
+                hitCount, missCount, evictionCount, size, getHitRate());
+    }
+}
@@ -0,0 +1,82 @@
+package com.fitness.management.repository.impl.cache;
+
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.repository.BookingRepository;
+import com.fitness.management.util.IdPair;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+public class CachingBookingRepository implements BookingRepository {
+    private final BookingRepository delegate;
+    private final RepositoryCache<Long, List<Booking>> bookingsByUser;
+    private final RepositoryCache<IdPair, Optional<Booking>> bookingsByUserAndFitnessClass;
+    
+    public CachingBookingRepository(BookingRepository delegate, int maximumSize, Duration ttl) {
+        this.delegate = delegate;
+        this.bookingsByUser = new RepositoryCache<>(maximumSize, ttl);
+        this.bookingsByUserAndFitnessClass = new RepositoryCache<>(maximumSize, ttl);
+    }
+    
+    @Override
+    public Booking save(Booking booking) {
+        Booking saved = delegate.save(booking);
+        invalidate(booking);
+        return saved;
+    }
+    
+    @Override
+    public List<Booking> saveAll(List<Booking> bookings) {
+        List<Booking> saved = delegate.saveAll(bookings);
+        for (Booking booking : bookings) {
+            invalidate(booking);
+        }
+        return saved;
+    }
+    
+    @Override
+    public List<Booking> findByUser(User user) {
+        List<Booking> cached = bookingsByUser.get(user.getId(), userId -> List.copyOf(delegate.findByUser(user)));
+        // Bookings may be flagged cancelled before they are saved again
+        return cached.stream()
+                .filter(booking -> !booking.isCancelled())
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+    
+    @Override
+    public List<Booking> findByFitnessClass(FitnessClass fitnessClass) {
+        return delegate.findByFitnessClass(fitnessClass);
+    }
+    
+    @Override
+    public Optional<Booking> findByUserAndFitnessClass(User user, FitnessClass fitnessClass) {
+        return bookingsByUserAndFitnessClass.get(new IdPair(user.getId(), fitnessClass.getId()),
+                key -> delegate.findByUserAndFitnessClass(user, fitnessClass));
+    }
+    
+    @Override
+    public Optional<Booking> findConflictingBooking(User user, FitnessClass fitnessClass) {
+        return delegate.findConflictingBooking(user, fitnessClass);
+    }
+    
+    @Override
+    public List<Booking> findByUserBetween(User user, LocalDateTime start, LocalDateTime end) {
+        return delegate.findByUserBetween(user, start, end);
+    }
+    
+    public CacheStats getCacheStats() {
+        return bookingsByUser.getStats().plus(bookingsByUserAndFitnessClass.getStats());
+    }
+    
+    private void invalidate(Booking booking) {
+        long userId = booking.getUser().getId();
+        bookingsByUser.invalidate(userId);
+        bookingsByUserAndFitnessClass.invalidate(new IdPair(userId, booking.getFitnessClass().getId()));
+    }
+}
@@ -0,0 +1,72 @@
+package com.fitness.management.repository.impl.cache;
+
+import com.fitness.management.model.ClassType;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.repository.FitnessClassRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public class CachingFitnessClassRepository implements FitnessClassRepository {
+    private final FitnessClassRepository delegate;
+    private final RepositoryCache<Long, Optional<FitnessClass>> fitnessClassesById;
+    
+    public CachingFitnessClassRepository(FitnessClassRepository delegate, int maximumSize, Duration ttl) {
+        this.delegate = delegate;
+        this.fitnessClassesById = new RepositoryCache<>(maximumSize, ttl);
+    }
+    
+    @Override
+    public FitnessClass save(FitnessClass fitnessClass) {
+        FitnessClass saved = delegate.save(fitnessClass);
+        fitnessClassesById.invalidate(fitnessClass.getId());
+        return saved;
+    }
+    
+    @Override
+    public Optional<FitnessClass> findById(long id) {
+        return fitnessClassesById.get(id, delegate::findById);
+    }
+    
+    @Override
+    public List<FitnessClass> findByStartTimeBetween(LocalDateTime start, LocalDateTime end) {
+        return delegate.findByStartTimeBetween(start, end);
+    }
+    
+    @Override
+    public List<FitnessClass> findByClassTypeAndStartTimeBetween(ClassType classType, LocalDateTime start, LocalDateTime end) {
+        return delegate.findByClassTypeAndStartTimeBetween(classType, start, end);
+    }
+    
+    @Override
+    public List<FitnessClass> findAvailableByStartTimeBetween(LocalDateTime start, LocalDateTime end) {
+        return delegate.findAvailableByStartTimeBetween(start, end);
+    }
+    
+    @Override
+    public boolean reserveSpot(FitnessClass fitnessClass) {
+        boolean reserved = delegate.reserveSpot(fitnessClass);
+        invalidateIfDetached(fitnessClass);
+        return reserved;
+    }
+    
+    @Override
+    public void releaseSpot(FitnessClass fitnessClass) {
+        delegate.releaseSpot(fitnessClass);
+        invalidateIfDetached(fitnessClass);
+    }
+    
+    public CacheStats getCacheStats() {
+        return fitnessClassesById.getStats();
+    }
+    
+    // The backend updates the attendance of the instance it was given; a different cached instance is now stale
+    private void invalidateIfDetached(FitnessClass fitnessClass) {
+        Optional<FitnessClass> cached = fitnessClassesById.peek(fitnessClass.getId());
+        if (cached != null && (cached.isEmpty() || cached.get() != fitnessClass)) {
+            fitnessClassesById.invalidate(fitnessClass.getId());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.fitness.management.repository.impl.cache;
+
+import com.fitness.management.model.User;
+import com.fitness.management.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.Optional;
+
+public class CachingUserRepository implements UserRepository {
+    private final UserRepository delegate;
+    private final RepositoryCache<String, Optional<User>> usersByUsername;
+    
+    public CachingUserRepository(UserRepository delegate, int maximumSize, Duration ttl) {
+        this.delegate = delegate;
+        this.usersByUsername = new RepositoryCache<>(maximumSize, ttl);
+    }
+    
+    @Override
+    public User save(User user) {
+        User saved = delegate.save(user);
+        usersByUsername.invalidate(user.getUsername());
+        return saved;
+    }
+    
+    @Override
+    public boolean saveIfUsernameAbsent(User user) {
+        boolean saved = delegate.saveIfUsernameAbsent(user);
+        usersByUsername.invalidate(user.getUsername());
+        return saved;
+    }
+    
+    @Override
+    public Optional<User> findByUsername(String username) {
+        Optional<User> user = usersByUsername.get(username, delegate::findByUsername);
+        // A renamed user is still cached under its old username until that entry is dropped
+        if (user.isPresent() && !user.get().getUsername().equals(username)) {
+            usersByUsername.invalidate(username);
+            return delegate.findByUsername(username);
+        }
+        return user;
+    }
+    
+    public CacheStats getCacheStats() {
+        return usersByUsername.getStats();
+    }
+}
@@ -0,0 +1,147 @@
+package com.fitness.management.repository.impl.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Size-bounded LRU cache with a time to live, split into independently locked segments.
+// Each segment keeps its entries in access order and evicts the least recently used one when full.
+public class RepositoryCache<K, V> {
+    private static final int SEGMENT_COUNT = 16;
+    
+    private final Segment<K, V>[] segments;
+    private final long ttlNanos;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    
+    public RepositoryCache(int maximumSize, Duration ttl) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maximumSize);
+        }
+        if (ttl.isZero() || ttl.isNegative()) {
+            throw new IllegalArgumentException("Cache TTL must be positive: " + ttl);
+        }
+        this.ttlNanos = ttl.toNanos();
+        int segmentSize = Math.max(1, (maximumSize + SEGMENT_COUNT - 1) / SEGMENT_COUNT);
+        this.segments = newSegments(SEGMENT_COUNT);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment<>(segmentSize, evictions);
+        }
+    }
+    
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        Segment<K, V> segment = segmentFor(key);
+        long generation;
+        synchronized (segment) {
+            CacheEntry<V> entry = segment.get(key);
+            if (entry != null) {
+                if (entry.expiresAtNanos - System.nanoTime() > 0) {
+                    hits.increment();
+                    return entry.value;
+                }
+                segment.remove(key);
+                evictions.increment();
+            }
+            generation = segment.generation;
+        }
+        
+        misses.increment();
+        V value = loader.apply(key);
+        
+        synchronized (segment) {
+            // An invalidation while loading means the value may already be stale, so don't cache it
+            if (segment.generation == generation) {
+                segment.put(key, new CacheEntry<>(value, System.nanoTime() + ttlNanos));
+            }
+        }
+        return value;
+    }
+    
+    // Looks at the cached value without loading it or counting a hit or miss
+    public V peek(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            CacheEntry<V> entry = segment.get(key);
+            if (entry == null || entry.expiresAtNanos - System.nanoTime() <= 0) {
+                return null;
+            }
+            return entry.value;
+        }
+    }
+    
+    public void invalidate(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+            segment.generation++;
+        }
+    }
+    
+    public void invalidateAll() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+                segment.generation++;
+            }
+        }
+    }
+    
+    public long size() {
+        long size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+    
+    public CacheStats getStats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size());
+    }
+    
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[hash & (SEGMENT_COUNT - 1)];
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <K, V> Segment<K, V>[] newSegments(int count) {
+        return (Segment<K, V>[]) new Segment<?, ?>[count];
+    }
+    
+    private static final class CacheEntry<V> {
+        final V value;
+        final long expiresAtNanos;
+        
+        CacheEntry(V value, long expiresAtNanos) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+    
+    private static final class Segment<K, V> extends LinkedHashMap<K, CacheEntry<V>> {
+        private final int maximumSize;
+        private final LongAdder evictions;
+        long generation;
+        
+        Segment(int maximumSize, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.maximumSize = maximumSize;
+            this.evictions = evictions;
+        }
+        
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+            if (size() > maximumSize) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.fitness.management.repository.impl.columnar;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Struct-of-arrays booking table: one row per booking, stored in fixed-size chunks of parallel primitive columns.
+// Growing only adds a chunk, so existing rows never move. Appends are serialized by the caller; a row must be
+// published to readers (through a RowList) only after append returns.
+final class BookingColumns {
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    
+    private volatile Chunk[] chunks = new Chunk[0];
+    private int size;
+    
+    int append(long bookingId, int userIndex, int classIndex, long bookedAtSecond, boolean cancelled) {
+        int row = size;
+        int chunkIndex = row >>> CHUNK_BITS;
+        Chunk[] current = chunks;
+        if (chunkIndex == current.length) {
+            current = Arrays.copyOf(current, current.length + 1);
+            current[chunkIndex] = new Chunk();
+            chunks = current;
+        }
+        
+        Chunk chunk = current[chunkIndex];
+        int offset = row & CHUNK_MASK;
+        chunk.bookingIds[offset] = bookingId;
+        chunk.userIndexes[offset] = userIndex;
+        chunk.classIndexes[offset] = classIndex;
+        chunk.bookedAtSeconds[offset] = bookedAtSecond;
+        if (cancelled) {
+            setCancelled(row, true);
+        }
+        size = row + 1;
+        return row;
+    }
+    
+    long bookingId(int row) {
+        return chunk(row).bookingIds[row & CHUNK_MASK];
+    }
+    
+    int userIndex(int row) {
+        return chunk(row).userIndexes[row & CHUNK_MASK];
+    }
+    
+    int classIndex(int row) {
+        return chunk(row).classIndexes[row & CHUNK_MASK];
+    }
+    
+    long bookedAtSecond(int row) {
+        return chunk(row).bookedAtSeconds[row & CHUNK_MASK];
+    }
+    
+    boolean isCancelled(int row) {
+        int offset = row & CHUNK_MASK;
+        return (chunk(row).cancelledBits.get(offset >>> 6) & (1L << offset)) != 0;
+    }
+    
+    void setCancelled(int row, boolean cancelled) {
+        int offset = row & CHUNK_MASK;
+        long bit = 1L << offset;
+        AtomicLongArray bits = chunk(row).cancelledBits;
+        int word = offset >>> 6;
+        while (true) {
+            long current = bits.get(word);
+            long updated = cancelled ? current | bit : current & ~bit;
+            if (current == updated || bits.compareAndSet(word, current, updated)) {
+                return;
+            }
+        }
+    }
+    
+    // Read by the appending thread, or under the caller's append lock
+    int size() {
+        return size;
+    }
+    
+    private Chunk chunk(int row) {
+        return chunks[row >>> CHUNK_BITS];
+    }
+    
+    private static final class Chunk {
+        private final long[] bookingIds = new long[CHUNK_SIZE];
+        private final int[] userIndexes = new int[CHUNK_SIZE];
+        private final int[] classIndexes = new int[CHUNK_SIZE];
+        private final long[] bookedAtSeconds = new long[CHUNK_SIZE];
+        // One status bit per row (set = cancelled), updated with CAS so rows sharing a word don't clobber each other
+        private final AtomicLongArray cancelledBits = new AtomicLongArray(CHUNK_SIZE / 64);
+    }
+}
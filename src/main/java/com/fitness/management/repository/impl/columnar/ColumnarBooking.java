@@ -0,0 +1,50 @@
+package com.fitness.management.repository.impl.columnar;
+
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// Flyweight view of one booking row. Reads go to the columns, and setCancelled writes through to the status bit.
+// Views are created per read and hold no booking state of their own.
+final class ColumnarBooking extends Booking {
+    private final ColumnarBookingRepository repository;
+    private final int row;
+    
+    ColumnarBooking(ColumnarBookingRepository repository, int row, long bookingId) {
+        super(bookingId, null, null, null, false);
+        this.repository = repository;
+        this.row = row;
+    }
+    
+    @Override
+    public User getUser() {
+        return repository.userAt(row);
+    }
+    
+    @Override
+    public FitnessClass getFitnessClass() {
+        return repository.fitnessClassAt(row);
+    }
+    
+    @Override
+    public LocalDateTime getBookingTime() {
+        return LocalDateTime.ofEpochSecond(repository.columns().bookedAtSecond(row), 0, ZoneOffset.UTC);
+    }
+    
+    @Override
+    public boolean isCancelled() {
+        return repository.columns().isCancelled(row);
+    }
+    
+    @Override
+    public void setCancelled(boolean cancelled) {
+        repository.columns().setCancelled(row, cancelled);
+    }
+    
+    boolean belongsTo(ColumnarBookingRepository owner) {
+        return repository == owner;
+    }
+}
@@ -0,0 +1,195 @@
+package com.fitness.management.repository.impl.columnar;
+
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// Booking history as parallel primitive columns (see BookingColumns) instead of one object graph per booking.
+// Users and classes are stored once and referenced by int index; reads return ColumnarBooking views.
+// There is no booking id index: a booking's row is found through its user's rows, which saves more heap than
+// the occasional scan on cancellation costs. Booking times are kept to the second.
+public class ColumnarBookingRepository implements BookingRepository {
+    private final BookingColumns columns = new BookingColumns();
+    private final EntityDictionary<User> users = new EntityDictionary<>(User::getId);
+    private final EntityDictionary<FitnessClass> fitnessClasses = new EntityDictionary<>(FitnessClass::getId);
+    private final Object appendLock = new Object();
+    
+    @Override
+    public Booking save(Booking booking) {
+        if (booking instanceof ColumnarBooking && ((ColumnarBooking) booking).belongsTo(this)) {
+            // Views write their status straight to the columns
+            return booking;
+        }
+        
+        int row = findRow(booking);
+        if (row < 0) {
+            synchronized (appendLock) {
+                row = findRow(booking);
+                if (row < 0) {
+                    append(booking);
+                    return booking;
+                }
+            }
+        }
+        columns.setCancelled(row, booking.isCancelled());
+        return booking;
+    }
+    
+    @Override
+    public List<Booking> saveAll(List<Booking> bookings) {
+        for (Booking booking : bookings) {
+            save(booking);
+        }
+        return bookings;
+    }
+    
+    @Override
+    public List<Booking> findByUser(User user) {
+        return activeBookings(users.find(user));
+    }
+    
+    @Override
+    public List<Booking> findByFitnessClass(FitnessClass fitnessClass) {
+        return activeBookings(fitnessClasses.find(fitnessClass));
+    }
+    
+    // Earliest active booking for the pair, otherwise the latest cancelled one. The booking services rely on the
+    // earliest active booking winning when two requests for the same pair race.
+    @Override
+    public Optional<Booking> findByUserAndFitnessClass(User user, FitnessClass fitnessClass) {
+        EntityDictionary.Entry<User> userEntry = users.find(user);
+        EntityDictionary.Entry<FitnessClass> classEntry = fitnessClasses.find(fitnessClass);
+        if (userEntry == null || classEntry == null) {
+            return Optional.empty();
+        }
+        
+        // Walk whichever of the two row lists is shorter, in insertion order
+        boolean byUser = userEntry.getRows().size() <= classEntry.getRows().size();
+        RowList rows = byUser ? userEntry.getRows() : classEntry.getRows();
+        int latestCancelled = -1;
+        int size = rows.size();
+        for (int i = 0; i < size; i++) {
+            int row = rows.get(i);
+            boolean matches = byUser
+                    ? columns.classIndex(row) == classEntry.getIndex()
+                    : columns.userIndex(row) == userEntry.getIndex();
+            if (!matches) {
+                continue;
+            }
+            if (!columns.isCancelled(row)) {
+                return Optional.of(view(row));
+            }
+            latestCancelled = row;
+        }
+        return latestCancelled < 0 ? Optional.empty() : Optional.of(view(latestCancelled));
+    }
+    
+    @Override
+    public Optional<Booking> findConflictingBooking(User user, FitnessClass fitnessClass) {
+        EntityDictionary.Entry<User> userEntry = users.find(user);
+        if (userEntry == null) {
+            return Optional.empty();
+        }
+        long startSecond = fitnessClass.getStartEpochSecond();
+        long endSecond = fitnessClass.getEndEpochSecond();
+        for (int row : userEntry.getRows().snapshot()) {
+            if (isActiveAndOverlapping(row, startSecond, endSecond)) {
+                return Optional.of(view(row));
+            }
+        }
+        return Optional.empty();
+    }
+    
+    @Override
+    public List<Booking> findByUserBetween(User user, LocalDateTime start, LocalDateTime end) {
+        List<Booking> bookings = new ArrayList<>();
+        EntityDictionary.Entry<User> userEntry = users.find(user);
+        if (userEntry == null) {
+            return bookings;
+        }
+        long startSecond = start.toEpochSecond(ZoneOffset.UTC);
+        long endSecond = end.toEpochSecond(ZoneOffset.UTC);
+        for (int row : userEntry.getRows().snapshot()) {
+            if (isActiveAndOverlapping(row, startSecond, endSecond)) {
+                bookings.add(view(row));
+            }
+        }
+        return bookings;
+    }
+    
+    public int getBookingCount() {
+        synchronized (appendLock) {
+            return columns.size();
+        }
+    }
+    
+    User userAt(int row) {
+        return users.get(columns.userIndex(row));
+    }
+    
+    FitnessClass fitnessClassAt(int row) {
+        return fitnessClasses.get(columns.classIndex(row));
+    }
+    
+    BookingColumns columns() {
+        return columns;
+    }
+    
+    // Called with appendLock held. Columns are written before the row is added to any list readers walk.
+    private void append(Booking booking) {
+        EntityDictionary.Entry<User> userEntry = users.intern(booking.getUser());
+        EntityDictionary.Entry<FitnessClass> classEntry = fitnessClasses.intern(booking.getFitnessClass());
+        int row = columns.append(booking.getId(), userEntry.getIndex(), classEntry.getIndex(),
+                booking.getBookingTime().toEpochSecond(ZoneOffset.UTC), booking.isCancelled());
+        userEntry.getRows().add(row);
+        classEntry.getRows().add(row);
+    }
+    
+    // Newest rows first, since updates mostly touch recent bookings
+    private int findRow(Booking booking) {
+        EntityDictionary.Entry<User> userEntry = users.find(booking.getUser());
+        if (userEntry == null) {
+            return -1;
+        }
+        RowList rows = userEntry.getRows();
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            int row = rows.get(i);
+            if (columns.bookingId(row) == booking.getId()) {
+                return row;
+            }
+        }
+        return -1;
+    }
+    
+    private List<Booking> activeBookings(EntityDictionary.Entry<?> entry) {
+        List<Booking> bookings = new ArrayList<>();
+        if (entry == null) {
+            return bookings;
+        }
+        for (int row : entry.getRows().snapshot()) {
+            if (!columns.isCancelled(row)) {
+                bookings.add(view(row));
+            }
+        }
+        return bookings;
+    }
+    
+    private boolean isActiveAndOverlapping(int row, long startSecond, long endSecond) {
+        if (columns.isCancelled(row)) {
+            return false;
+        }
+        FitnessClass fitnessClass = fitnessClassAt(row);
+        return fitnessClass.getStartEpochSecond() < endSecond && fitnessClass.getEndEpochSecond() > startSecond;
+    }
+    
+    private Booking view(int row) {
+        return new ColumnarBooking(this, row, columns.bookingId(row));
+    }
+}
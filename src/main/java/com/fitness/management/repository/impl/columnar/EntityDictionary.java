@@ -0,0 +1,74 @@
+package com.fitness.management.repository.impl.columnar;
+
+import com.fitness.management.util.ConcurrentLongMap;
+
+import java.util.Arrays;
+import java.util.function.ToLongFunction;
+
+// Interns users or classes to dense int indexes so booking rows can reference them with one int column.
+// Each entry also carries the rows that reference it. Interning is serialized by the caller; lookups never lock.
+final class EntityDictionary<T> {
+    private final ToLongFunction<T> idFunction;
+    private final ConcurrentLongMap<Entry<T>> entriesById = new ConcurrentLongMap<>();
+    private volatile Entry<T>[] entriesByIndex = newEntries(16);
+    private int size;
+    
+    EntityDictionary(ToLongFunction<T> idFunction) {
+        this.idFunction = idFunction;
+    }
+    
+    Entry<T> intern(T entity) {
+        long id = idFunction.applyAsLong(entity);
+        Entry<T> entry = entriesById.get(id);
+        if (entry != null) {
+            return entry;
+        }
+        
+        entry = new Entry<>(size, entity);
+        Entry<T>[] current = entriesByIndex;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, size * 2);
+        }
+        current[size] = entry;
+        entriesByIndex = current;
+        size++;
+        entriesById.put(id, entry);
+        return entry;
+    }
+    
+    Entry<T> find(T entity) {
+        return entriesById.get(idFunction.applyAsLong(entity));
+    }
+    
+    T get(int index) {
+        return entriesByIndex[index].entity;
+    }
+    
+    int size() {
+        return entriesById.size();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T> Entry<T>[] newEntries(int capacity) {
+        return (Entry<T>[]) new Entry<?>[capacity];
+    }
+    
+    static final class Entry<T> {
+        private final int index;
+        private final T entity;
+        private final RowList rows = new RowList();
+        
+        Entry(int index, T entity) {
+            this.index = index;
+            this.entity = entity;
+        }
+        
+        int getIndex() {
+            return index;
+        }
+        
+        RowList getRows() {
+            return rows;
+        }
+    }
+}
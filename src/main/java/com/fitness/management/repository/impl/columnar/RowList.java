@@ -0,0 +1,36 @@
+package com.fitness.management.repository.impl.columnar;
+
+import java.util.Arrays;
+
+// Growable list of row numbers. Adds are serialized by the caller; readers never lock. The array is replaced
+// before the size is raised, so a reader that reads the size first always gets an array holding that many rows.
+final class RowList {
+    private volatile int[] rows = new int[4];
+    private volatile int size;
+    
+    void add(int row) {
+        int[] current = rows;
+        int count = size;
+        if (count == current.length) {
+            current = Arrays.copyOf(current, count * 2);
+            rows = current;
+        }
+        current[count] = row;
+        size = count + 1;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    // Valid for any index below a size read earlier
+    int get(int index) {
+        return rows[index];
+    }
+    
+    // Rows in insertion order, i.e. oldest booking first
+    int[] snapshot() {
+        int count = size;
+        return Arrays.copyOf(rows, count);
+    }
+}
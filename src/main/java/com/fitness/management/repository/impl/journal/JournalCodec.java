@@ -0,0 +1,73 @@
+package com.fitness.management.repository.impl.journal;
+
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.model.WaitlistEntry;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// Binary layout of the entity records shared by journal files and snapshots
+final class JournalCodec {
+    
+    static final byte USER = 1;
+    static final byte FITNESS_CLASS = 2;
+    static final byte BOOKING = 3;
+    static final byte WAITLIST_ENTRY = 4;
+    
+    static void writeUser(DataOutput out, User user) throws IOException {
+        out.writeByte(USER);
+        out.writeLong(user.getId());
+        out.writeUTF(user.getUsername());
+        out.writeUTF(user.getPassword());
+        out.writeByte(user.getUserType().ordinal());
+    }
+    
+    static void writeFitnessClass(DataOutput out, FitnessClass fitnessClass) throws IOException {
+        out.writeByte(FITNESS_CLASS);
+        out.writeLong(fitnessClass.getId());
+        out.writeUTF(fitnessClass.getName());
+        out.writeByte(fitnessClass.getClassType().ordinal());
+        out.writeInt(fitnessClass.getCapacity());
+        out.writeInt(fitnessClass.getCurrentAttendance());
+        writeDateTime(out, fitnessClass.getStartTime());
+        out.writeInt(fitnessClass.getDurationMinutes());
+        out.writeBoolean(fitnessClass.isCancelled());
+    }
+    
+    static void writeBooking(DataOutput out, Booking booking) throws IOException {
+        out.writeByte(BOOKING);
+        out.writeLong(booking.getId());
+        out.writeLong(booking.getUser().getId());
+        out.writeLong(booking.getFitnessClass().getId());
+        writeDateTime(out, booking.getBookingTime());
+        out.writeBoolean(booking.isCancelled());
+    }
+    
+    static void writeWaitlistEntry(DataOutput out, WaitlistEntry waitlistEntry) throws IOException {
+        out.writeByte(WAITLIST_ENTRY);
+        out.writeLong(waitlistEntry.getId());
+        out.writeLong(waitlistEntry.getUser().getId());
+        out.writeLong(waitlistEntry.getFitnessClass().getId());
+        writeDateTime(out, waitlistEntry.getEntryTime());
+        out.writeBoolean(waitlistEntry.isProcessed());
+    }
+    
+    static LocalDateTime readDateTime(DataInput in) throws IOException {
+        long epochSecond = in.readLong();
+        int nano = in.readInt();
+        return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+    }
+    
+    private static void writeDateTime(DataOutput out, LocalDateTime dateTime) throws IOException {
+        out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(dateTime.getNano());
+    }
+    
+    private JournalCodec() {
+    }
+}
@@ -0,0 +1,168 @@
+package com.fitness.management.repository.impl.journal;
+
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.ClassType;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.model.UserType;
+import com.fitness.management.model.WaitlistEntry;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Folds snapshot and journal records into one object per id, updating earlier objects in place
+class JournalRecovery {
+    private static final UserType[] USER_TYPES = UserType.values();
+    private static final ClassType[] CLASS_TYPES = ClassType.values();
+    
+    private final Map<Long, User> users = new LinkedHashMap<>();
+    private final Map<Long, FitnessClass> fitnessClasses = new LinkedHashMap<>();
+    private final Map<Long, Booking> bookings = new LinkedHashMap<>();
+    private final Map<Long, WaitlistEntry> waitlistEntries = new LinkedHashMap<>();
+    private long records;
+    
+    void apply(DataInput in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case JournalCodec.USER:
+                applyUser(in);
+                break;
+            case JournalCodec.FITNESS_CLASS:
+                applyFitnessClass(in);
+                break;
+            case JournalCodec.BOOKING:
+                applyBooking(in);
+                break;
+            case JournalCodec.WAITLIST_ENTRY:
+                applyWaitlistEntry(in);
+                break;
+            default:
+                throw new IOException("Unknown journal record type: " + type);
+        }
+        records++;
+    }
+    
+    // Booking counters are not journaled on every change, so they are rebuilt from the active bookings
+    void recomputeCounters() {
+        Map<Long, Integer> attendance = new HashMap<>();
+        for (Booking booking : bookings.values()) {
+            if (!booking.isCancelled()) {
+                booking.getUser().incrementActiveBookings();
+                attendance.merge(booking.getFitnessClass().getId(), 1, Integer::sum);
+            }
+        }
+        for (FitnessClass fitnessClass : fitnessClasses.values()) {
+            fitnessClass.setCurrentAttendance(attendance.getOrDefault(fitnessClass.getId(), 0));
+        }
+    }
+    
+    Map<Long, User> getUsers() {
+        return users;
+    }
+    
+    Map<Long, FitnessClass> getFitnessClasses() {
+        return fitnessClasses;
+    }
+    
+    Map<Long, Booking> getBookings() {
+        return bookings;
+    }
+    
+    Map<Long, WaitlistEntry> getWaitlistEntries() {
+        return waitlistEntries;
+    }
+    
+    long getRecords() {
+        return records;
+    }
+    
+    private void applyUser(DataInput in) throws IOException {
+        long id = in.readLong();
+        String username = in.readUTF();
+        String password = in.readUTF();
+        UserType userType = USER_TYPES[in.readByte()];
+        
+        User user = users.get(id);
+        if (user == null) {
+            users.put(id, new User(id, username, password, userType, 0));
+        } else {
+            user.setUsername(username);
+            user.setPassword(password);
+            user.setUserType(userType);
+        }
+    }
+    
+    private void applyFitnessClass(DataInput in) throws IOException {
+        long id = in.readLong();
+        String name = in.readUTF();
+        ClassType classType = CLASS_TYPES[in.readByte()];
+        int capacity = in.readInt();
+        int currentAttendance = in.readInt();
+        LocalDateTime startTime = JournalCodec.readDateTime(in);
+        int durationMinutes = in.readInt();
+        boolean cancelled = in.readBoolean();
+        
+        FitnessClass fitnessClass = fitnessClasses.get(id);
+        if (fitnessClass == null) {
+            fitnessClasses.put(id, new FitnessClass(id, name, classType, capacity, currentAttendance,
+                    startTime, durationMinutes, cancelled));
+        } else {
+            fitnessClass.setName(name);
+            fitnessClass.setClassType(classType);
+            fitnessClass.setCapacity(capacity);
+            fitnessClass.setStartTime(startTime);
+            fitnessClass.setDurationMinutes(durationMinutes);
+            fitnessClass.setCancelled(cancelled);
+        }
+    }
+    
+    private void applyBooking(DataInput in) throws IOException {
+        long id = in.readLong();
+        long userId = in.readLong();
+        long fitnessClassId = in.readLong();
+        LocalDateTime bookingTime = JournalCodec.readDateTime(in);
+        boolean cancelled = in.readBoolean();
+        
+        Booking booking = bookings.get(id);
+        if (booking == null) {
+            bookings.put(id, new Booking(id, requireUser(userId), requireFitnessClass(fitnessClassId), bookingTime, cancelled));
+        } else {
+            booking.setCancelled(cancelled);
+        }
+    }
+    
+    private void applyWaitlistEntry(DataInput in) throws IOException {
+        long id = in.readLong();
+        long userId = in.readLong();
+        long fitnessClassId = in.readLong();
+        LocalDateTime entryTime = JournalCodec.readDateTime(in);
+        boolean processed = in.readBoolean();
+        
+        WaitlistEntry waitlistEntry = waitlistEntries.get(id);
+        if (waitlistEntry == null) {
+            waitlistEntries.put(id, new WaitlistEntry(id, requireUser(userId), requireFitnessClass(fitnessClassId), entryTime, processed));
+        } else {
+            waitlistEntry.setProcessed(processed);
+        }
+    }
+    
+    private User requireUser(long id) throws IOException {
+        User user = users.get(id);
+        if (user == null) {
+            throw new IOException("Journal references unknown user: " + id);
+        }
+        return user;
+    }
+    
+    private FitnessClass requireFitnessClass(long id) throws IOException {
+        FitnessClass fitnessClass = fitnessClasses.get(id);
+        if (fitnessClass == null) {
+            throw new IOException("Journal references unknown fitness class: " + id);
+        }
+        return fitnessClass;
+    }
+}
@@ -0,0 +1,65 @@
+package com.fitness.management.repository.impl.journal;
+
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.repository.BookingRepository;
+import com.fitness.management.repository.WriteScope;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public class JournaledBookingRepository implements BookingRepository {
+    private final BookingRepository delegate;
+    private final JournaledRepositoryStore store;
+    
+    JournaledBookingRepository(BookingRepository delegate, JournaledRepositoryStore store) {
+        this.delegate = delegate;
+        this.store = store;
+    }
+    
+    @Override
+    public Booking save(Booking booking) {
+        Booking saved = delegate.save(booking);
+        store.journalBooking(saved);
+        return saved;
+    }
+    
+    // The batch waits for group commit once
+    @Override
+    public List<Booking> saveAll(List<Booking> bookings) {
+        return WriteScope.run(() -> {
+            List<Booking> saved = delegate.saveAll(bookings);
+            for (Booking booking : saved) {
+                store.journalBooking(booking);
+            }
+            return saved;
+        });
+    }
+    
+    @Override
+    public List<Booking> findByUser(User user) {
+        return delegate.findByUser(user);
+    }
+    
+    @Override
+    public List<Booking> findByFitnessClass(FitnessClass fitnessClass) {
+        return delegate.findByFitnessClass(fitnessClass);
+    }
+    
+    @Override
+    public Optional<Booking> findByUserAndFitnessClass(User user, FitnessClass fitnessClass) {
+        return delegate.findByUserAndFitnessClass(user, fitnessClass);
+    }
+    
+    @Override
+    public Optional<Booking> findConflictingBooking(User user, FitnessClass fitnessClass) {
+        return delegate.findConflictingBooking(user, fitnessClass);
+    }
+    
+    @Override
+    public List<Booking> findByUserBetween(User user, LocalDateTime start, LocalDateTime end) {
+        return delegate.findByUserBetween(user, start, end);
+    }
+}
@@ -0,0 +1,57 @@
+package com.fitness.management.repository.impl.journal;
+
+import com.fitness.management.model.ClassType;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.repository.FitnessClassRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public class JournaledFitnessClassRepository implements FitnessClassRepository {
+    private final FitnessClassRepository delegate;
+    private final JournaledRepositoryStore store;
+    
+    JournaledFitnessClassRepository(FitnessClassRepository delegate, JournaledRepositoryStore store) {
+        this.delegate = delegate;
+        this.store = store;
+    }
+    
+    @Override
+    public FitnessClass save(FitnessClass fitnessClass) {
+        FitnessClass saved = delegate.save(fitnessClass);
+        store.journalFitnessClass(saved);
+        return saved;
+    }
+    
+    @Override
+    public Optional<FitnessClass> findById(long id) {
+        return delegate.findById(id);
+    }
+    
+    @Override
+    public List<FitnessClass> findByStartTimeBetween(LocalDateTime start, LocalDateTime end) {
+        return delegate.findByStartTimeBetween(start, end);
+    }
+    
+    @Override
+    public List<FitnessClass> findByClassTypeAndStartTimeBetween(ClassType classType, LocalDateTime start, LocalDateTime end) {
+        return delegate.findByClassTypeAndStartTimeBetween(classType, start, end);
+    }
+    
+    @Override
+    public List<FitnessClass> findAvailableByStartTimeBetween(LocalDateTime start, LocalDateTime end) {
+        return delegate.findAvailableByStartTimeBetween(start, end);
+    }
+    
+    // Attendance is rebuilt from bookings on recovery, so seat claims are not journaled themselves
+    @Override
+    public boolean reserveSpot(FitnessClass fitnessClass) {
+        return delegate.reserveSpot(fitnessClass);
+    }
+    
+    @Override
+    public void releaseSpot(FitnessClass fitnessClass) {
+        delegate.releaseSpot(fitnessClass);
+    }
+}
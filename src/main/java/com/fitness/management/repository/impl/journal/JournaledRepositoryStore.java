@@ -0,0 +1,242 @@
+package com.fitness.management.repository.impl.journal;
+
+import com.fitness.management.metrics.MetricsRegistry;
+import com.fitness.management.metrics.OperationMetrics;
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.model.WaitlistEntry;
+import com.fitness.management.repository.BookingRepository;
+import com.fitness.management.repository.FitnessClassRepository;
+import com.fitness.management.repository.UserRepository;
+import com.fitness.management.repository.WaitlistRepository;
+import com.fitness.management.repository.impl.memory.InMemoryBookingRepository;
+import com.fitness.management.repository.impl.memory.InMemoryFitnessClassRepository;
+import com.fitness.management.repository.impl.memory.InMemoryUserRepository;
+import com.fitness.management.repository.impl.memory.InMemoryWaitlistRepository;
+import com.fitness.management.util.ConcurrentLongMap;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// In-memory repositories whose saves are also written to a RepositoryJournal, restored on startup
+public class JournaledRepositoryStore implements Closeable {
+    // Scheduled snapshots; null when metrics are switched off
+    private static final OperationMetrics SCHEDULED_SNAPSHOT = MetricsRegistry.isEnabled()
+            ? MetricsRegistry.getDefault().operation("journal.scheduledSnapshot") : null;
+    
+    private static volatile JournaledRepositoryStore defaultStore;
+    
+    private final InMemoryUserRepository users = new InMemoryUserRepository();
+    private final InMemoryFitnessClassRepository fitnessClasses = new InMemoryFitnessClassRepository();
+    private final InMemoryBookingRepository bookings = new InMemoryBookingRepository();
+    private final InMemoryWaitlistRepository waitlistEntries = new InMemoryWaitlistRepository();
+    
+    // Ids already present in the journal, so bookings only write the user and class they reference once
+    private final ConcurrentLongMap<Boolean> journaledUserIds = new ConcurrentLongMap<>();
+    private final ConcurrentLongMap<Boolean> journaledFitnessClassIds = new ConcurrentLongMap<>();
+    
+    private final RepositoryJournal journal;
+    private final ScheduledExecutorService snapshotScheduler;
+    private final Object snapshotMonitor = new Object();
+    private final LongAdder snapshotFailures = new LongAdder();
+    
+    private final UserRepository userRepository = new JournaledUserRepository(users, this);
+    private final FitnessClassRepository fitnessClassRepository = new JournaledFitnessClassRepository(fitnessClasses, this);
+    private final BookingRepository bookingRepository = new JournaledBookingRepository(bookings, this);
+    private final WaitlistRepository waitlistRepository = new JournaledWaitlistRepository(waitlistEntries, this);
+    
+    public JournaledRepositoryStore(Path directory, int chunkBytes, boolean groupCommit,
+                                    long flushIntervalMillis, long snapshotIntervalSeconds) {
+        this.journal = new RepositoryJournal(directory, chunkBytes, groupCommit, flushIntervalMillis);
+        load(journal.recover());
+        
+        if (snapshotIntervalSeconds > 0) {
+            snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "repository-journal-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshotScheduler.scheduleWithFixedDelay(this::snapshotQuietly,
+                    snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+        } else {
+            snapshotScheduler = null;
+        }
+    }
+    
+    // Shared store configured through the fitness.journal.* system properties, recovered on first use
+    public static JournaledRepositoryStore getDefault() {
+        JournaledRepositoryStore store = defaultStore;
+        if (store == null) {
+            synchronized (JournaledRepositoryStore.class) {
+                store = defaultStore;
+                if (store == null) {
+                    store = new JournaledRepositoryStore(
+                            Paths.get(System.getProperty("fitness.journal.dir", "journal")),
+                            Integer.getInteger("fitness.journal.chunkBytes", 64 * 1024 * 1024),
+                            Boolean.parseBoolean(System.getProperty("fitness.journal.groupCommit", "true")),
+                            Long.getLong("fitness.journal.flushIntervalMillis", 5),
+                            Long.getLong("fitness.journal.snapshotIntervalSeconds", 300));
+                    defaultStore = store;
+                }
+            }
+        }
+        return store;
+    }
+    
+    public UserRepository getUserRepository() {
+        return userRepository;
+    }
+    
+    public FitnessClassRepository getFitnessClassRepository() {
+        return fitnessClassRepository;
+    }
+    
+    public BookingRepository getBookingRepository() {
+        return bookingRepository;
+    }
+    
+    public WaitlistRepository getWaitlistRepository() {
+        return waitlistRepository;
+    }
+    
+    public RepositoryJournal getJournal() {
+        return journal;
+    }
+    
+    // Scheduled snapshots that failed; the journal keeps growing until one succeeds
+    public long getSnapshotFailureCount() {
+        return snapshotFailures.sum();
+    }
+    
+    // Rotates the journal and writes the state as of that point, after which older generations are removed
+    public void snapshot() {
+        synchronized (snapshotMonitor) {
+            AtomicReference<List<User>> userList = new AtomicReference<>();
+            AtomicReference<List<FitnessClass>> fitnessClassList = new AtomicReference<>();
+            AtomicReference<List<Booking>> bookingList = new AtomicReference<>();
+            AtomicReference<List<WaitlistEntry>> waitlistList = new AtomicReference<>();
+            
+            long generation = journal.rotate(() -> {
+                userList.set(users.findAll());
+                fitnessClassList.set(fitnessClasses.findAll());
+                bookingList.set(bookings.findAll());
+                waitlistList.set(waitlistEntries.findAll());
+            });
+            
+            // Bookings may reference users and classes that were never saved through their own repositories
+            Map<Long, User> snapshotUsers = new LinkedHashMap<>();
+            Map<Long, FitnessClass> snapshotFitnessClasses = new LinkedHashMap<>();
+            userList.get().forEach(user -> snapshotUsers.put(user.getId(), user));
+            fitnessClassList.get().forEach(fitnessClass -> snapshotFitnessClasses.put(fitnessClass.getId(), fitnessClass));
+            for (Booking booking : bookingList.get()) {
+                snapshotUsers.putIfAbsent(booking.getUser().getId(), booking.getUser());
+                snapshotFitnessClasses.putIfAbsent(booking.getFitnessClass().getId(), booking.getFitnessClass());
+            }
+            for (WaitlistEntry entry : waitlistList.get()) {
+                snapshotUsers.putIfAbsent(entry.getUser().getId(), entry.getUser());
+                snapshotFitnessClasses.putIfAbsent(entry.getFitnessClass().getId(), entry.getFitnessClass());
+            }
+            
+            journal.writeSnapshot(generation, sink -> {
+                for (User user : snapshotUsers.values()) {
+                    sink.write(out -> JournalCodec.writeUser(out, user));
+                }
+                for (FitnessClass fitnessClass : snapshotFitnessClasses.values()) {
+                    sink.write(out -> JournalCodec.writeFitnessClass(out, fitnessClass));
+                }
+                for (Booking booking : bookingList.get()) {
+                    sink.write(out -> JournalCodec.writeBooking(out, booking));
+                }
+                for (WaitlistEntry entry : waitlistList.get()) {
+                    sink.write(out -> JournalCodec.writeWaitlistEntry(out, entry));
+                }
+            });
+        }
+    }
+    
+    @Override
+    public void close() {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+        }
+        journal.close();
+    }
+    
+    void journalUser(User user) {
+        journal.commit(appendUser(user));
+    }
+    
+    void journalFitnessClass(FitnessClass fitnessClass) {
+        journal.commit(appendFitnessClass(fitnessClass));
+    }
+    
+    void journalBooking(Booking booking) {
+        appendReferences(booking.getUser(), booking.getFitnessClass());
+        journal.commit(journal.append(out -> JournalCodec.writeBooking(out, booking)));
+    }
+    
+    void journalWaitlistEntry(WaitlistEntry waitlistEntry) {
+        appendReferences(waitlistEntry.getUser(), waitlistEntry.getFitnessClass());
+        journal.commit(journal.append(out -> JournalCodec.writeWaitlistEntry(out, waitlistEntry)));
+    }
+    
+    private long appendUser(User user) {
+        journaledUserIds.put(user.getId(), Boolean.TRUE);
+        return journal.append(out -> JournalCodec.writeUser(out, user));
+    }
+    
+    private long appendFitnessClass(FitnessClass fitnessClass) {
+        journaledFitnessClassIds.put(fitnessClass.getId(), Boolean.TRUE);
+        return journal.append(out -> JournalCodec.writeFitnessClass(out, fitnessClass));
+    }
+    
+    // References are appended ahead of the record and committed with it
+    private void appendReferences(User user, FitnessClass fitnessClass) {
+        if (!journaledUserIds.containsKey(user.getId())) {
+            appendUser(user);
+        }
+        if (!journaledFitnessClassIds.containsKey(fitnessClass.getId())) {
+            appendFitnessClass(fitnessClass);
+        }
+    }
+    
+    private void load(JournalRecovery recovery) {
+        for (User user : recovery.getUsers().values()) {
+            users.save(user);
+            journaledUserIds.put(user.getId(), Boolean.TRUE);
+        }
+        for (FitnessClass fitnessClass : recovery.getFitnessClasses().values()) {
+            fitnessClasses.save(fitnessClass);
+            journaledFitnessClassIds.put(fitnessClass.getId(), Boolean.TRUE);
+        }
+        for (Booking booking : recovery.getBookings().values()) {
+            bookings.save(booking);
+        }
+        for (WaitlistEntry entry : recovery.getWaitlistEntries().values()) {
+            waitlistEntries.save(entry);
+        }
+    }
+    
+    private void snapshotQuietly() {
+        try {
+            if (SCHEDULED_SNAPSHOT != null) {
+                SCHEDULED_SNAPSHOT.time(this::snapshot);
+            } else {
+                snapshot();
+            }
+        } catch (RuntimeException e) {
+            // Counted rather than rethrown, which would cancel every later run
+            snapshotFailures.increment();
+        }
+    }
+}
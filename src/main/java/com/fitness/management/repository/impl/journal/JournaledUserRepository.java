@@ -0,0 +1,37 @@
+package com.fitness.management.repository.impl.journal;
+
+import com.fitness.management.model.User;
+import com.fitness.management.repository.UserRepository;
+
+import java.util.Optional;
+
+public class JournaledUserRepository implements UserRepository {
+    private final UserRepository delegate;
+    private final JournaledRepositoryStore store;
+    
+    JournaledUserRepository(UserRepository delegate, JournaledRepositoryStore store) {
+        this.delegate = delegate;
+        this.store = store;
+    }
+    
+    @Override
+    public User save(User user) {
+        User saved = delegate.save(user);
+        store.journalUser(saved);
+        return saved;
+    }
+    
+    @Override
+    public boolean saveIfUsernameAbsent(User user) {
+        boolean saved = delegate.saveIfUsernameAbsent(user);
+        if (saved) {
+            store.journalUser(user);
+        }
+        return saved;
+    }
+    
+    @Override
+    public Optional<User> findByUsername(String username) {
+        return delegate.findByUsername(username);
+    }
+}
@@ -0,0 +1,51 @@
+package com.fitness.management.repository.impl.journal;
+
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.model.WaitlistEntry;
+import com.fitness.management.repository.WaitlistRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public class JournaledWaitlistRepository implements WaitlistRepository {
+    private final WaitlistRepository delegate;
+    private final JournaledRepositoryStore store;
+    
+    JournaledWaitlistRepository(WaitlistRepository delegate, JournaledRepositoryStore store) {
+        this.delegate = delegate;
+        this.store = store;
+    }
+    
+    @Override
+    public WaitlistEntry save(WaitlistEntry waitlistEntry) {
+        WaitlistEntry saved = delegate.save(waitlistEntry);
+        store.journalWaitlistEntry(saved);
+        return saved;
+    }
+    
+    @Override
+    public Optional<WaitlistEntry> findFirstByFitnessClass(FitnessClass fitnessClass) {
+        return delegate.findFirstByFitnessClass(fitnessClass);
+    }
+    
+    @Override
+    public Optional<WaitlistEntry> findByUserAndFitnessClass(User user, FitnessClass fitnessClass) {
+        return delegate.findByUserAndFitnessClass(user, fitnessClass);
+    }
+    
+    @Override
+    public int countPendingByFitnessClass(FitnessClass fitnessClass) {
+        return delegate.countPendingByFitnessClass(fitnessClass);
+    }
+    
+    @Override
+    public List<WaitlistEntry> clearPendingByFitnessClasses(Collection<FitnessClass> fitnessClasses) {
+        List<WaitlistEntry> cleared = delegate.clearPendingByFitnessClasses(fitnessClasses);
+        for (WaitlistEntry entry : cleared) {
+            store.journalWaitlistEntry(entry);
+        }
+        return cleared;
+    }
+}
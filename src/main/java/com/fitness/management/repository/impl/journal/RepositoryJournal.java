@@ -0,0 +1,449 @@
+package com.fitness.management.repository.impl.journal;
+
+import com.fitness.management.repository.WriteScope;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Append-only, memory-mapped log of repository writes. Each generation is one journal file; a snapshot
+// of generation N holds the state as of the moment journal N was opened, so recovery loads the newest
+// snapshot and replays journal N onwards. Records are framed as [length][crc32][payload].
+public class RepositoryJournal implements Closeable, WriteScope.Durability {
+    // "FJN2"/"FSN2": version 2 records carry long ids, so files written with string ids are rejected up front
+    private static final int JOURNAL_MAGIC = 0x464A4E32;
+    private static final int SNAPSHOT_MAGIC = 0x46534E32;
+    private static final int JOURNAL_HEADER_BYTES = 8;
+    private static final int CHUNK_END_MARKER = -1;
+    private static final Pattern GENERATION_FILE = Pattern.compile("(journal|snapshot)-(\\d+)\\.(log|bin)");
+    
+    private final Path directory;
+    private final int chunkBytes;
+    private final boolean groupCommit;
+    private final long flushIntervalMillis;
+    
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final FrameEncoder appendEncoder = new FrameEncoder();
+    private final Object durabilityMonitor = new Object();
+    private final Thread flusher;
+    
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private long mappedOffset;
+    private long generation;
+    private volatile long appendedBytes;
+    private volatile long durableBytes;
+    private volatile boolean closed;
+    
+    public RepositoryJournal(Path directory, int chunkBytes, boolean groupCommit, long flushIntervalMillis) {
+        if (chunkBytes < 4096) {
+            throw new IllegalArgumentException("Journal chunk size must be at least 4096 bytes");
+        }
+        this.directory = directory;
+        this.chunkBytes = chunkBytes;
+        this.groupCommit = groupCommit;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.flusher = new Thread(this::runFlusher, "repository-journal-flusher");
+        this.flusher.setDaemon(true);
+    }
+    
+    // Replays the newest snapshot and every later journal, then starts a fresh journal generation
+    JournalRecovery recover() {
+        JournalRecovery recovery = new JournalRecovery();
+        try {
+            Files.createDirectories(directory);
+            long snapshotGeneration = latestGeneration("snapshot");
+            if (snapshotGeneration > 0) {
+                readSnapshot(snapshotPath(snapshotGeneration), recovery);
+            }
+            long lastGeneration = snapshotGeneration;
+            for (long journalGeneration : generations("journal")) {
+                if (journalGeneration >= snapshotGeneration) {
+                    readJournal(journalPath(journalGeneration), recovery);
+                }
+                lastGeneration = Math.max(lastGeneration, journalGeneration);
+            }
+            recovery.recomputeCounters();
+            
+            appendLock.lock();
+            try {
+                openGeneration(lastGeneration + 1);
+            } finally {
+                appendLock.unlock();
+            }
+        } catch (IOException e) {
+            throw new JournalException("Could not recover journal from " + directory + ": " + e.getMessage(), e);
+        }
+        flusher.start();
+        return recovery;
+    }
+    
+    // Returns the position the record ends at; see commit for waiting until it is durable
+    long append(RecordWriter writer) {
+        appendLock.lock();
+        try {
+            if (closed) {
+                throw new JournalException("Journal is closed");
+            }
+            byte[] frame = appendEncoder.encode(writer);
+            ensureRoom(frame.length);
+            mapped.put(frame);
+            appendedBytes += frame.length;
+            return appendedBytes;
+        } catch (IOException e) {
+            throw new JournalException("Could not append to journal: " + e.getMessage(), e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+    
+    // With group commit, waits until everything up to the position is durable. Inside a WriteScope the wait is left
+    // to the scope, so a service holding a class lock does not wait for the flusher with the lock held.
+    void commit(long position) {
+        if (groupCommit && !WriteScope.defer(this, position)) {
+            awaitDurable(position);
+        }
+    }
+    
+    // Switches appends to a new journal file; whileLocked runs before any write reaches the new file
+    long rotate(Runnable whileLocked) {
+        appendLock.lock();
+        try {
+            closeCurrentGeneration();
+            openGeneration(generation + 1);
+            whileLocked.run();
+            return generation;
+        } catch (IOException e) {
+            throw new JournalException("Could not rotate journal: " + e.getMessage(), e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+    
+    void writeSnapshot(long snapshotGeneration, SnapshotSource source) {
+        Path target = snapshotPath(snapshotGeneration);
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        FrameEncoder encoder = new FrameEncoder();
+        try {
+            try (FileChannel snapshotChannel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(snapshotChannel), 1 << 16))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeLong(snapshotGeneration);
+                source.writeTo(writer -> out.write(encoder.encode(writer)));
+                out.writeInt(0);
+                out.flush();
+                snapshotChannel.force(true);
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            deleteGenerationsBefore(snapshotGeneration);
+        } catch (IOException e) {
+            throw new JournalException("Could not write snapshot " + target + ": " + e.getMessage(), e);
+        }
+    }
+    
+    public long getGeneration() {
+        return generation;
+    }
+    
+    public long getAppendedBytes() {
+        return appendedBytes;
+    }
+    
+    public long getDurableBytes() {
+        return durableBytes;
+    }
+    
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flusher.interrupt();
+        appendLock.lock();
+        try {
+            closeCurrentGeneration();
+        } catch (IOException e) {
+            throw new JournalException("Could not close journal: " + e.getMessage(), e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+    
+    private void openGeneration(long newGeneration) throws IOException {
+        channel = FileChannel.open(journalPath(newGeneration), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        mappedOffset = 0;
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, chunkBytes);
+        mapped.putInt(JOURNAL_MAGIC);
+        mapped.putInt(chunkBytes);
+        generation = newGeneration;
+    }
+    
+    private void closeCurrentGeneration() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        mapped.force();
+        channel.close();
+        channel = null;
+        markDurable(appendedBytes);
+    }
+    
+    // A chunk always keeps four spare bytes so the reader can be told to continue at the next chunk
+    private void ensureRoom(int frameBytes) throws IOException {
+        if (frameBytes + 4 > chunkBytes - JOURNAL_HEADER_BYTES) {
+            throw new JournalException("Journal record of " + frameBytes + " bytes exceeds the chunk size");
+        }
+        if (mapped.remaining() < frameBytes + 4) {
+            mapped.putInt(CHUNK_END_MARKER);
+            mapped.force();
+            mappedOffset += chunkBytes;
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, mappedOffset, chunkBytes);
+            markDurable(appendedBytes);
+        }
+    }
+    
+    // Group commit: every interval one force() makes all records appended since the last one durable
+    private void runFlusher() {
+        while (!closed) {
+            try {
+                Thread.sleep(flushIntervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            
+            MappedByteBuffer target;
+            long targetBytes;
+            appendLock.lock();
+            try {
+                if (channel == null) {
+                    continue;
+                }
+                target = mapped;
+                targetBytes = appendedBytes;
+            } finally {
+                appendLock.unlock();
+            }
+            
+            if (targetBytes > durableBytes) {
+                target.force();
+                markDurable(targetBytes);
+            }
+        }
+    }
+    
+    private void markDurable(long bytes) {
+        synchronized (durabilityMonitor) {
+            if (bytes > durableBytes) {
+                durableBytes = bytes;
+            }
+            durabilityMonitor.notifyAll();
+        }
+    }
+    
+    @Override
+    public void awaitDurable(long bytes) {
+        synchronized (durabilityMonitor) {
+            while (durableBytes < bytes) {
+                if (closed && channel == null) {
+                    throw new JournalException("Journal closed before the write became durable");
+                }
+                try {
+                    durabilityMonitor.wait(flushIntervalMillis * 4);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new JournalException("Interrupted while waiting for journal commit", e);
+                }
+            }
+        }
+    }
+    
+    private void readJournal(Path path, JournalRecovery recovery) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != JOURNAL_MAGIC) {
+                throw new IOException("Not a journal file: " + path);
+            }
+            int fileChunkBytes = in.readInt();
+            long position = JOURNAL_HEADER_BYTES;
+            
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                position += 4;
+                
+                if (length == 0) {
+                    return;
+                }
+                if (length == CHUNK_END_MARKER) {
+                    long nextChunk = ((position - 4) / fileChunkBytes + 1) * fileChunkBytes;
+                    skipFully(in, nextChunk - position);
+                    position = nextChunk;
+                    continue;
+                }
+                if (length < 0 || length > fileChunkBytes) {
+                    return;
+                }
+                
+                // A torn or corrupt tail ends the journal; everything before it is kept
+                byte[] payload = new byte[length];
+                int checksum;
+                try {
+                    checksum = in.readInt();
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    return;
+                }
+                position += 4 + length;
+                if (checksum != crc(payload)) {
+                    return;
+                }
+                recovery.apply(new DataInputStream(new ByteArrayInputStream(payload)));
+            }
+        }
+    }
+    
+    private void readSnapshot(Path path, JournalRecovery recovery) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a snapshot file: " + path);
+            }
+            in.readLong();
+            
+            int length;
+            while ((length = in.readInt()) != 0) {
+                int checksum = in.readInt();
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                if (checksum != crc(payload)) {
+                    throw new IOException("Corrupt record in snapshot " + path);
+                }
+                recovery.apply(new DataInputStream(new ByteArrayInputStream(payload)));
+            }
+        }
+    }
+    
+    private void deleteGenerationsBefore(long keepFrom) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Matcher matcher = GENERATION_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches() && Long.parseLong(matcher.group(2)) < keepFrom) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+    
+    private List<Long> generations(String kind) throws IOException {
+        List<Long> found = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = GENERATION_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches() && matcher.group(1).equals(kind)) {
+                    found.add(Long.parseLong(matcher.group(2)));
+                }
+            });
+        }
+        found.sort(null);
+        return found;
+    }
+    
+    private long latestGeneration(String kind) throws IOException {
+        List<Long> found = generations(kind);
+        return found.isEmpty() ? 0 : found.get(found.size() - 1);
+    }
+    
+    private Path journalPath(long journalGeneration) {
+        return directory.resolve(String.format("journal-%016d.log", journalGeneration));
+    }
+    
+    private Path snapshotPath(long snapshotGeneration) {
+        return directory.resolve(String.format("snapshot-%016d.bin", snapshotGeneration));
+    }
+    
+    private static void skipFully(DataInputStream in, long bytes) throws IOException {
+        long remaining = bytes;
+        while (remaining > 0) {
+            long skipped = in.skip(remaining);
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+            remaining -= skipped;
+        }
+    }
+    
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+    
+    @FunctionalInterface
+    interface RecordWriter {
+        void write(DataOutput out) throws IOException;
+    }
+    
+    @FunctionalInterface
+    interface RecordSink {
+        void write(RecordWriter writer) throws IOException;
+    }
+    
+    @FunctionalInterface
+    interface SnapshotSource {
+        void writeTo(RecordSink sink) throws IOException;
+    }
+    
+    private static final class FrameEncoder {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        
+        byte[] encode(RecordWriter writer) throws IOException {
+            bytes.reset();
+            out.writeInt(0);
+            out.writeInt(0);
+            writer.write(out);
+            out.flush();
+            
+            byte[] frame = bytes.toByteArray();
+            int length = frame.length - 8;
+            CRC32 crc = new CRC32();
+            crc.update(frame, 8, length);
+            putInt(frame, 0, length);
+            putInt(frame, 4, (int) crc.getValue());
+            return frame;
+        }
+        
+        private static void putInt(byte[] target, int offset, int value) {
+            target[offset] = (byte) (value >>> 24);
+            target[offset + 1] = (byte) (value >>> 16);
+            target[offset + 2] = (byte) (value >>> 8);
+            target[offset + 3] = (byte) value;
+        }
+    }
+}
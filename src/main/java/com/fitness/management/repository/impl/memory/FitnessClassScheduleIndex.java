@@ -0,0 +1,72 @@
+package com.fitness.management.repository.impl.memory;
+
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.util.ConcurrentLongMap;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Classes bucketed by the epoch minute they start in. A range lookup seeks to the first bucket and walks only the
+// buckets inside the range, and a day is just the range of its 1440 minutes.
+class FitnessClassScheduleIndex {
+    private final ConcurrentSkipListMap<Long, ConcurrentLongMap<FitnessClass>> classesByStartMinute = new ConcurrentSkipListMap<>();
+    
+    // Callers serialize add and remove so an emptied bucket is never dropped while another class is being added to it
+    void add(long startMinute, FitnessClass fitnessClass) {
+        classesByStartMinute.computeIfAbsent(startMinute, minute -> new ConcurrentLongMap<>(1))
+                .put(fitnessClass.getId(), fitnessClass);
+    }
+    
+    void remove(long startMinute, long fitnessClassId) {
+        ConcurrentLongMap<FitnessClass> bucket = classesByStartMinute.get(startMinute);
+        if (bucket != null) {
+            bucket.remove(fitnessClassId);
+            if (bucket.isEmpty()) {
+                classesByStartMinute.remove(startMinute, bucket);
+            }
+        }
+    }
+    
+    // Classes starting in [start, end), in start time order
+    List<FitnessClass> findBetween(LocalDateTime start, LocalDateTime end, boolean availableOnly) {
+        List<FitnessClass> fitnessClasses = new ArrayList<>();
+        if (!start.isBefore(end)) {
+            return fitnessClasses;
+        }
+        
+        long startSecond = start.toEpochSecond(ZoneOffset.UTC);
+        long endSecond = end.toEpochSecond(ZoneOffset.UTC);
+        NavigableMap<Long, ConcurrentLongMap<FitnessClass>> buckets = classesByStartMinute.subMap(
+                startMinute(startSecond), true, startMinute(endSecond - 1), true);
+        
+        for (ConcurrentLongMap<FitnessClass> bucket : buckets.values()) {
+            for (FitnessClass fitnessClass : bucket.values()) {
+                // Only the first and last buckets can hold classes outside the range
+                long startEpochSecond = fitnessClass.getStartEpochSecond();
+                if (startEpochSecond < startSecond || startEpochSecond >= endSecond) {
+                    continue;
+                }
+                if (availableOnly && !isAvailable(fitnessClass)) {
+                    continue;
+                }
+                fitnessClasses.add(fitnessClass);
+            }
+        }
+        // Within one minute bucket the order is arbitrary
+        fitnessClasses.sort((a, b) -> Long.compare(a.getStartEpochSecond(), b.getStartEpochSecond()));
+        return fitnessClasses;
+    }
+    
+    static long startMinute(long epochSecond) {
+        return Math.floorDiv(epochSecond, 60);
+    }
+    
+    // Read without the class lock; the answer is a snapshot either way
+    private static boolean isAvailable(FitnessClass fitnessClass) {
+        return !fitnessClass.isCancelled() && fitnessClass.getCurrentAttendance() < fitnessClass.getCapacity();
+    }
+}
@@ -4,44 +4,219 @@ import com.fitness.management.model.Booking;
 import com.fitness.management.model.FitnessClass;
 import com.fitness.management.model.User;
 import com.fitness.management.repository.BookingRepository;
+import com.fitness.management.util.ConcurrentLongMap;
+import com.fitness.management.util.IdPair;
 
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.stream.Collectors;
 
 public class InMemoryBookingRepository implements BookingRepository {
-    private final Map<String, Booking> bookings = new ConcurrentHashMap<>();
+    private final ConcurrentLongMap<Booking> bookings = new ConcurrentLongMap<>();
+    
+    // Secondary indexes, maintained on save. The user and class indexes only hold active bookings,
+    // the (user, class) index keeps the latest booking for the pair, preferring an active one.
+    private final ConcurrentLongMap<Set<Booking>> activeBookingsByUser = new ConcurrentLongMap<>();
+    private final ConcurrentLongMap<Set<Booking>> activeBookingsByFitnessClass = new ConcurrentLongMap<>();
+    private final Map<IdPair, Booking> bookingsByUserAndFitnessClass = new ConcurrentHashMap<>();
+    private final ConcurrentLongMap<UserSchedule> schedulesByUser = new ConcurrentLongMap<>();
     
     @Override
     public Booking save(Booking booking) {
         bookings.put(booking.getId(), booking);
+        
+        long userId = booking.getUser().getId();
+        long fitnessClassId = booking.getFitnessClass().getId();
+        
+        if (booking.isCancelled()) {
+            removeFromIndex(activeBookingsByUser, userId, booking);
+            removeFromIndex(activeBookingsByFitnessClass, fitnessClassId, booking);
+            UserSchedule schedule = schedulesByUser.get(userId);
+            if (schedule != null) {
+                schedule.remove(booking);
+            }
+        } else {
+            addToIndex(activeBookingsByUser, userId, booking);
+            addToIndex(activeBookingsByFitnessClass, fitnessClassId, booking);
+            schedulesByUser.computeIfAbsent(userId, k -> new UserSchedule()).add(booking);
+        }
+        
+        bookingsByUserAndFitnessClass.compute(new IdPair(userId, fitnessClassId), (key, existing) -> {
+            if (existing == null || existing.getId() == booking.getId() || existing.isCancelled()) {
+                return booking;
+            }
+            return existing;
+        });
+        
         return booking;
     }
     
+    @Override
+    public List<Booking> saveAll(List<Booking> bookings) {
+        for (Booking booking : bookings) {
+            save(booking);
+        }
+        return bookings;
+    }
+    
     @Override
     public List<Booking> findByUser(User user) {
-        return new ArrayList<>(bookings.values()).stream()
-                .filter(booking -> booking.getUser().getId().equals(user.getId()))
-                .filter(booking -> !booking.isCancelled())
-                .collect(Collectors.toList());
+        return activeBookings(activeBookingsByUser, user.getId());
     }
     
     @Override
     public List<Booking> findByFitnessClass(FitnessClass fitnessClass) {
-        return new ArrayList<>(bookings.values()).stream()
-                .filter(booking -> booking.getFitnessClass().getId().equals(fitnessClass.getId()))
-                .filter(booking -> !booking.isCancelled())
-                .collect(Collectors.toList());
+        return activeBookings(activeBookingsByFitnessClass, fitnessClass.getId());
     }
     
     @Override
     public Optional<Booking> findByUserAndFitnessClass(User user, FitnessClass fitnessClass) {
-        return new ArrayList<>(bookings.values()).stream()
-                .filter(booking -> booking.getUser().getId().equals(user.getId()))
-                .filter(booking -> booking.getFitnessClass().getId().equals(fitnessClass.getId()))
-                .findFirst();
+        return Optional.ofNullable(bookingsByUserAndFitnessClass.get(new IdPair(user.getId(), fitnessClass.getId())));
+    }
+    
+    @Override
+    public Optional<Booking> findConflictingBooking(User user, FitnessClass fitnessClass) {
+        UserSchedule schedule = schedulesByUser.get(user.getId());
+        if (schedule == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(schedule.findFirstOverlapping(
+                fitnessClass.getStartEpochSecond(), fitnessClass.getEndEpochSecond()));
+    }
+    
+    @Override
+    public List<Booking> findByUserBetween(User user, LocalDateTime start, LocalDateTime end) {
+        UserSchedule schedule = schedulesByUser.get(user.getId());
+        if (schedule == null) {
+            return new ArrayList<>();
+        }
+        return schedule.findOverlapping(start.toEpochSecond(ZoneOffset.UTC), end.toEpochSecond(ZoneOffset.UTC));
+    }
+    
+    public List<Booking> findAll() {
+        return new ArrayList<>(bookings.values());
+    }
+    
+    // Drops the booking from the store and every index, e.g. once it has moved to another store
+    public void remove(Booking booking) {
+        if (!bookings.remove(booking.getId(), booking)) {
+            return;
+        }
+        
+        long userId = booking.getUser().getId();
+        long fitnessClassId = booking.getFitnessClass().getId();
+        removeFromIndex(activeBookingsByUser, userId, booking);
+        removeFromIndex(activeBookingsByFitnessClass, fitnessClassId, booking);
+        UserSchedule schedule = schedulesByUser.get(userId);
+        if (schedule != null) {
+            schedule.remove(booking);
+        }
+        bookingsByUserAndFitnessClass.remove(new IdPair(userId, fitnessClassId), booking);
+    }
+    
+    // Drops the class's (by now empty) index entry once none of its bookings are kept here any more
+    public void removeFitnessClass(FitnessClass fitnessClass) {
+        activeBookingsByFitnessClass.remove(fitnessClass.getId());
+    }
+    
+    private static void addToIndex(ConcurrentLongMap<Set<Booking>> index, long key, Booking booking) {
+        index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(booking);
+    }
+    
+    private static void removeFromIndex(ConcurrentLongMap<Set<Booking>> index, long key, Booking booking) {
+        Set<Booking> indexed = index.get(key);
+        if (indexed != null) {
+            indexed.remove(booking);
+        }
+    }
+    
+    private static List<Booking> activeBookings(ConcurrentLongMap<Set<Booking>> index, long key) {
+        Set<Booking> indexed = index.get(key);
+        if (indexed == null) {
+            return new ArrayList<>();
+        }
+        // Bookings may be flagged cancelled before they are saved again, so filter on read as well
+        return indexed.stream()
+                .filter(booking -> !booking.isCancelled())
+                .collect(Collectors.toList());
+    }
+    
+    // Active bookings of one user ordered by class start time. Writes for a user are serialized,
+    // reads walk only the start times that can overlap the queried interval.
+    private static final class UserSchedule {
+        private final NavigableMap<Long, Set<Booking>> bookingsByStartSecond = new ConcurrentSkipListMap<>();
+        private final ConcurrentLongMap<Long> indexedStartSeconds = new ConcurrentLongMap<>(1);
+        private volatile long maxDurationSeconds;
+        
+        synchronized void add(Booking booking) {
+            FitnessClass fitnessClass = booking.getFitnessClass();
+            long startSecond = fitnessClass.getStartEpochSecond();
+            Long previousStartSecond = indexedStartSeconds.put(booking.getId(), startSecond);
+            if (previousStartSecond != null && previousStartSecond != startSecond) {
+                removeAt(previousStartSecond, booking);
+            }
+            bookingsByStartSecond.computeIfAbsent(startSecond, k -> ConcurrentHashMap.newKeySet()).add(booking);
+            maxDurationSeconds = Math.max(maxDurationSeconds, fitnessClass.getEndEpochSecond() - startSecond);
+        }
+        
+        synchronized void remove(Booking booking) {
+            Long startSecond = indexedStartSeconds.remove(booking.getId());
+            if (startSecond != null) {
+                removeAt(startSecond, booking);
+            }
+        }
+        
+        Booking findFirstOverlapping(long startSecond, long endSecond) {
+            for (Set<Booking> candidates : candidates(startSecond, endSecond).values()) {
+                for (Booking booking : candidates) {
+                    if (overlaps(booking, startSecond, endSecond)) {
+                        return booking;
+                    }
+                }
+            }
+            return null;
+        }
+        
+        List<Booking> findOverlapping(long startSecond, long endSecond) {
+            List<Booking> overlapping = new ArrayList<>();
+            for (Set<Booking> candidates : candidates(startSecond, endSecond).values()) {
+                for (Booking booking : candidates) {
+                    if (overlaps(booking, startSecond, endSecond)) {
+                        overlapping.add(booking);
+                    }
+                }
+            }
+            return overlapping;
+        }
+        
+        private NavigableMap<Long, Set<Booking>> candidates(long startSecond, long endSecond) {
+            // Nothing starting before startSecond - maxDurationSeconds can still be running at startSecond
+            return bookingsByStartSecond.subMap(startSecond - maxDurationSeconds, false, endSecond, false);
+        }
+        
+        private void removeAt(long startSecond, Booking booking) {
+            Set<Booking> bookings = bookingsByStartSecond.get(startSecond);
+            if (bookings != null) {
+                bookings.remove(booking);
+                if (bookings.isEmpty()) {
+                    bookingsByStartSecond.remove(startSecond);
+                }
+            }
+        }
+        
+        private static boolean overlaps(Booking booking, long startSecond, long endSecond) {
+            FitnessClass fitnessClass = booking.getFitnessClass();
+            return !booking.isCancelled()
+                    && fitnessClass.getStartEpochSecond() < endSecond
+                    && fitnessClass.getEndEpochSecond() > startSecond;
+        }
     }
-}
\ No newline at end of file
+}
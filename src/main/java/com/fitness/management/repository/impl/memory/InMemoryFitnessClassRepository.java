@@ -1,23 +1,117 @@
 package com.fitness.management.repository.impl.memory;
 
+import com.fitness.management.model.ClassType;
 import com.fitness.management.model.FitnessClass;
 import com.fitness.management.repository.FitnessClassRepository;
+import com.fitness.management.util.ConcurrentLongMap;
 
-import java.util.HashMap;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 public class InMemoryFitnessClassRepository implements FitnessClassRepository {
-    private final Map<String, FitnessClass> fitnessClasses = new HashMap<>();
+    private final ConcurrentLongMap<FitnessClass> fitnessClasses = new ConcurrentLongMap<>();
+    private final FitnessClassScheduleIndex schedule = new FitnessClassScheduleIndex();
+    private final Map<ClassType, FitnessClassScheduleIndex> scheduleByClassType = new EnumMap<>(ClassType.class);
+    // Where each class currently sits in the indexes, so a save only re-indexes when its schedule changed
+    private final ConcurrentLongMap<IndexedSlot> indexedSlots = new ConcurrentLongMap<>();
+    
+    public InMemoryFitnessClassRepository() {
+        for (ClassType classType : ClassType.values()) {
+            scheduleByClassType.put(classType, new FitnessClassScheduleIndex());
+        }
+    }
     
     @Override
     public FitnessClass save(FitnessClass fitnessClass) {
         fitnessClasses.put(fitnessClass.getId(), fitnessClass);
+        IndexedSlot slot = indexedSlots.get(fitnessClass.getId());
+        if (slot == null || !slot.matches(fitnessClass)) {
+            reindex(fitnessClass);
+        }
         return fitnessClass;
     }
     
     @Override
-    public Optional<FitnessClass> findById(String id) {
+    public Optional<FitnessClass> findById(long id) {
         return Optional.ofNullable(fitnessClasses.get(id));
     }
-}
\ No newline at end of file
+    
+    @Override
+    public List<FitnessClass> findByStartTimeBetween(LocalDateTime start, LocalDateTime end) {
+        return schedule.findBetween(start, end, false);
+    }
+    
+    @Override
+    public List<FitnessClass> findByClassTypeAndStartTimeBetween(ClassType classType, LocalDateTime start, LocalDateTime end) {
+        return scheduleByClassType.get(classType).findBetween(start, end, false);
+    }
+    
+    @Override
+    public List<FitnessClass> findAvailableByStartTimeBetween(LocalDateTime start, LocalDateTime end) {
+        return schedule.findBetween(start, end, true);
+    }
+    
+    public List<FitnessClass> findAll() {
+        return new ArrayList<>(fitnessClasses.values());
+    }
+    
+    public void remove(FitnessClass fitnessClass) {
+        if (fitnessClasses.remove(fitnessClass.getId(), fitnessClass)) {
+            unindex(fitnessClass.getId());
+        }
+    }
+    
+    @Override
+    public boolean reserveSpot(FitnessClass fitnessClass) {
+        return fitnessClass.tryReserveSpot();
+    }
+    
+    @Override
+    public void releaseSpot(FitnessClass fitnessClass) {
+        fitnessClass.releaseSpot();
+    }
+    
+    // Rescheduling is rare, so index moves are serialized; lookups never take this lock
+    private synchronized void reindex(FitnessClass fitnessClass) {
+        unindex(fitnessClass.getId());
+        
+        IndexedSlot slot = new IndexedSlot(fitnessClass);
+        schedule.add(slot.startMinute, fitnessClass);
+        if (slot.classType != null) {
+            scheduleByClassType.get(slot.classType).add(slot.startMinute, fitnessClass);
+        }
+        indexedSlots.put(fitnessClass.getId(), slot);
+    }
+    
+    private synchronized void unindex(long fitnessClassId) {
+        IndexedSlot previous = indexedSlots.remove(fitnessClassId);
+        if (previous != null) {
+            schedule.remove(previous.startMinute, fitnessClassId);
+            if (previous.classType != null) {
+                scheduleByClassType.get(previous.classType).remove(previous.startMinute, fitnessClassId);
+            }
+        }
+    }
+    
+    private static final class IndexedSlot {
+        private final FitnessClass fitnessClass;
+        private final long startMinute;
+        private final ClassType classType;
+        
+        IndexedSlot(FitnessClass fitnessClass) {
+            this.fitnessClass = fitnessClass;
+            this.startMinute = FitnessClassScheduleIndex.startMinute(fitnessClass.getStartEpochSecond());
+            this.classType = fitnessClass.getClassType();
+        }
+        
+        boolean matches(FitnessClass candidate) {
+            return fitnessClass == candidate
+                    && startMinute == FitnessClassScheduleIndex.startMinute(candidate.getStartEpochSecond())
+                    && classType == candidate.getClassType();
+        }
+    }
+}
@@ -2,24 +2,47 @@ package com.fitness.management.repository.impl.memory;
 
 import com.fitness.management.model.User;
 import com.fitness.management.repository.UserRepository;
+import com.fitness.management.util.ConcurrentLongMap;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class InMemoryUserRepository implements UserRepository {
-    private final Map<String, User> users = new HashMap<>();
+    private final ConcurrentLongMap<User> users = new ConcurrentLongMap<>();
+    private final Map<String, User> usersByUsername = new ConcurrentHashMap<>();
+    // Username each user is indexed under, so a renamed user can be removed from its old key
+    private final ConcurrentLongMap<String> indexedUsernames = new ConcurrentLongMap<>();
     
     @Override
     public User save(User user) {
         users.put(user.getId(), user);
+        String previousUsername = indexedUsernames.put(user.getId(), user.getUsername());
+        if (previousUsername != null && !previousUsername.equals(user.getUsername())) {
+            usersByUsername.remove(previousUsername, user);
+        }
+        usersByUsername.put(user.getUsername(), user);
         return user;
     }
     
+    @Override
+    public boolean saveIfUsernameAbsent(User user) {
+        if (usersByUsername.putIfAbsent(user.getUsername(), user) != null) {
+            return false;
+        }
+        users.put(user.getId(), user);
+        indexedUsernames.put(user.getId(), user.getUsername());
+        return true;
+    }
+    
     @Override
     public Optional<User> findByUsername(String username) {
-        return users.values().stream()
-                .filter(user -> user.getUsername().equals(username))
-                .findFirst();
+        return Optional.ofNullable(usersByUsername.get(username));
+    }
+    
+    public List<User> findAll() {
+        return new ArrayList<>(users.values());
     }
-}
\ No newline at end of file
+}
@@ -4,37 +4,151 @@ import com.fitness.management.model.FitnessClass;
 import com.fitness.management.model.User;
 import com.fitness.management.model.WaitlistEntry;
 import com.fitness.management.repository.WaitlistRepository;
+import com.fitness.management.util.ConcurrentLongMap;
+import com.fitness.management.util.IdPair;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class InMemoryWaitlistRepository implements WaitlistRepository {
-    private final Map<String, WaitlistEntry> waitlistEntries = new ConcurrentHashMap<>();
+    private static final Comparator<WaitlistEntry> ENTRY_ORDER = Comparator
+            .comparing(WaitlistEntry::getEntryTime)
+            .thenComparingLong(WaitlistEntry::getId);
+    
+    private final ConcurrentLongMap<WaitlistEntry> waitlistEntries = new ConcurrentLongMap<>();
+    
+    // Per-class queue of unprocessed entries ordered by entry time; processed entries are dropped on save
+    private final ConcurrentLongMap<PendingQueue> pendingByFitnessClass = new ConcurrentLongMap<>();
+    private final Map<IdPair, WaitlistEntry> entriesByUserAndFitnessClass = new ConcurrentHashMap<>();
     
     @Override
     public WaitlistEntry save(WaitlistEntry waitlistEntry) {
         waitlistEntries.put(waitlistEntry.getId(), waitlistEntry);
+        
+        long userId = waitlistEntry.getUser().getId();
+        long fitnessClassId = waitlistEntry.getFitnessClass().getId();
+        
+        if (waitlistEntry.isProcessed()) {
+            PendingQueue pending = pendingByFitnessClass.get(fitnessClassId);
+            if (pending != null) {
+                pending.remove(waitlistEntry);
+            }
+        } else {
+            pendingByFitnessClass.computeIfAbsent(fitnessClassId, k -> new PendingQueue()).add(waitlistEntry);
+        }
+        
+        entriesByUserAndFitnessClass.compute(new IdPair(userId, fitnessClassId), (key, existing) -> {
+            if (existing == null || existing.getId() == waitlistEntry.getId() || existing.isProcessed()) {
+                return waitlistEntry;
+            }
+            return existing;
+        });
+        
         return waitlistEntry;
     }
     
     @Override
     public Optional<WaitlistEntry> findFirstByFitnessClass(FitnessClass fitnessClass) {
-        return new ArrayList<>(waitlistEntries.values()).stream()
-                .filter(entry -> entry.getFitnessClass().getId().equals(fitnessClass.getId()))
-                .filter(entry -> !entry.isProcessed())
-                .min(Comparator.comparing(WaitlistEntry::getEntryTime));
+        PendingQueue pending = pendingByFitnessClass.get(fitnessClass.getId());
+        if (pending == null) {
+            return Optional.empty();
+        }
+        
+        // Entries flagged processed without being saved again are discarded lazily from the head
+        WaitlistEntry head;
+        while ((head = pending.firstOrNull()) != null) {
+            if (!head.isProcessed()) {
+                return Optional.of(head);
+            }
+            pending.remove(head);
+        }
+        return Optional.empty();
     }
     
     @Override
     public Optional<WaitlistEntry> findByUserAndFitnessClass(User user, FitnessClass fitnessClass) {
-        return new ArrayList<>(waitlistEntries.values()).stream()
-                .filter(entry -> entry.getUser().getId().equals(user.getId()))
-                .filter(entry -> entry.getFitnessClass().getId().equals(fitnessClass.getId()))
-                .findFirst();
+        return Optional.ofNullable(entriesByUserAndFitnessClass.get(new IdPair(user.getId(), fitnessClass.getId())));
+    }
+    
+    @Override
+    public int countPendingByFitnessClass(FitnessClass fitnessClass) {
+        PendingQueue pending = pendingByFitnessClass.get(fitnessClass.getId());
+        return pending == null ? 0 : pending.size();
+    }
+    
+    @Override
+    public List<WaitlistEntry> clearPendingByFitnessClasses(Collection<FitnessClass> fitnessClasses) {
+        List<WaitlistEntry> cleared = new ArrayList<>();
+        for (FitnessClass fitnessClass : fitnessClasses) {
+            PendingQueue pending = pendingByFitnessClass.remove(fitnessClass.getId());
+            if (pending == null) {
+                continue;
+            }
+            for (WaitlistEntry entry : pending.entries) {
+                if (!entry.isProcessed()) {
+                    entry.setProcessed(true);
+                    cleared.add(entry);
+                }
+            }
+        }
+        return cleared;
+    }
+    
+    public List<WaitlistEntry> findAll() {
+        return new ArrayList<>(waitlistEntries.values());
+    }
+    
+    // Drops the entry from the store and its indexes, e.g. once it has moved to another store
+    public void remove(WaitlistEntry waitlistEntry) {
+        if (!waitlistEntries.remove(waitlistEntry.getId(), waitlistEntry)) {
+            return;
+        }
+        
+        long userId = waitlistEntry.getUser().getId();
+        long fitnessClassId = waitlistEntry.getFitnessClass().getId();
+        PendingQueue pending = pendingByFitnessClass.get(fitnessClassId);
+        if (pending != null) {
+            pending.remove(waitlistEntry);
+        }
+        entriesByUserAndFitnessClass.remove(new IdPair(userId, fitnessClassId), waitlistEntry);
+    }
+    
+    // The size is kept next to the set so counting a waitlist doesn't walk it
+    private static final class PendingQueue {
+        private final NavigableSet<WaitlistEntry> entries = new ConcurrentSkipListSet<>(ENTRY_ORDER);
+        private final AtomicInteger size = new AtomicInteger();
+        
+        void add(WaitlistEntry entry) {
+            if (entries.add(entry)) {
+                size.incrementAndGet();
+            }
+        }
+        
+        void remove(WaitlistEntry entry) {
+            if (entries.remove(entry)) {
+                size.decrementAndGet();
+            }
+        }
+        
+        int size() {
+            return size.get();
+        }
+        
+        WaitlistEntry firstOrNull() {
+            try {
+                return entries.first();
+            } catch (NoSuchElementException e) {
+                return null;
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -5,28 +5,165 @@ import com.fitness.management.model.FitnessClass;
 import com.fitness.management.model.User;
 import com.fitness.management.repository.BookingRepository;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import static com.fitness.management.repository.impl.mysql.MySQLRowMapper.BOOKING_COLUMNS;
+import static com.fitness.management.repository.impl.mysql.MySQLRowMapper.FITNESS_CLASS_COLUMNS;
+import static com.fitness.management.repository.impl.mysql.MySQLRowMapper.USER_COLUMNS;
+
 public class MySQLBookingRepository implements BookingRepository {
     
+    private static final String UPSERT_BOOKING = "INSERT INTO bookings (id, user_id, fitness_class_id, booking_time, cancelled) "
+            + "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE cancelled = VALUES(cancelled)";
+    
+    private static final String SELECT_BY_USER = "SELECT " + BOOKING_COLUMNS + ", " + FITNESS_CLASS_COLUMNS
+            + " FROM bookings b JOIN fitness_classes c ON c.id = b.fitness_class_id"
+            + " WHERE b.user_id = ? AND b.cancelled = FALSE";
+    
+    private static final String SELECT_BY_FITNESS_CLASS = "SELECT " + BOOKING_COLUMNS + ", " + USER_COLUMNS
+            + " FROM bookings b JOIN users u ON u.id = b.user_id"
+            + " WHERE b.fitness_class_id = ? AND b.cancelled = FALSE";
+    
+    // Prefer the earliest active booking for the pair, then the most recent cancelled one. Ids increase with creation
+    // time, so racing lock-free bookings all read back the same winner, as the in-memory repository's first active wins.
+    private static final String SELECT_BY_USER_AND_FITNESS_CLASS = "SELECT " + BOOKING_COLUMNS
+            + " FROM bookings b WHERE b.user_id = ? AND b.fitness_class_id = ?"
+            + " ORDER BY b.cancelled, CASE WHEN b.cancelled THEN -b.id ELSE b.id END LIMIT 1";
+    
+    private static final String SELECT_BY_USER_BETWEEN = SELECT_BY_USER
+            + " AND c.start_epoch_second < ? AND c.end_epoch_second > ? ORDER BY c.start_epoch_second";
+    
+    private static final String SELECT_CONFLICTING = SELECT_BY_USER_BETWEEN + " LIMIT 1";
+    
+    private final MySQLConnectionPool connectionPool;
+    
+    public MySQLBookingRepository() {
+        this(MySQLConnectionPool.getDefault());
+    }
+    
+    public MySQLBookingRepository(MySQLConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+    
     @Override
     public Booking save(Booking booking) {
-        throw new MySQLNotImplementedException("Saving booking to MySQL is not implemented yet");
+        return connectionPool.execute(connection -> {
+            PreparedStatement statement = connection.prepare(UPSERT_BOOKING);
+            bindBooking(statement, booking);
+            statement.executeUpdate();
+            return booking;
+        });
+    }
+    
+    @Override
+    public List<Booking> saveAll(List<Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return bookings;
+        }
+        return connectionPool.execute(connection -> {
+            Connection jdbcConnection = connection.getConnection();
+            jdbcConnection.setAutoCommit(false);
+            try {
+                PreparedStatement statement = connection.prepare(UPSERT_BOOKING);
+                for (Booking booking : bookings) {
+                    bindBooking(statement, booking);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                jdbcConnection.commit();
+                return bookings;
+            } catch (SQLException e) {
+                jdbcConnection.rollback();
+                throw e;
+            } finally {
+                jdbcConnection.setAutoCommit(true);
+            }
+        });
     }
     
     @Override
     public List<Booking> findByUser(User user) {
-        throw new MySQLNotImplementedException("Finding bookings by user in MySQL is not implemented yet");
+        return connectionPool.execute(connection -> {
+            PreparedStatement statement = connection.prepare(SELECT_BY_USER);
+            statement.setLong(1, user.getId());
+            return mapUserBookings(statement, user);
+        });
     }
     
     @Override
     public List<Booking> findByFitnessClass(FitnessClass fitnessClass) {
-        throw new MySQLNotImplementedException("Finding bookings by fitness class in MySQL is not implemented yet");
+        return connectionPool.execute(connection -> {
+            PreparedStatement statement = connection.prepare(SELECT_BY_FITNESS_CLASS);
+            statement.setLong(1, fitnessClass.getId());
+            List<Booking> bookings = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    bookings.add(MySQLRowMapper.mapBooking(resultSet, MySQLRowMapper.mapUser(resultSet), fitnessClass));
+                }
+            }
+            return bookings;
+        });
     }
     
     @Override
     public Optional<Booking> findByUserAndFitnessClass(User user, FitnessClass fitnessClass) {
-        throw new MySQLNotImplementedException("Finding booking by user and fitness class in MySQL is not implemented yet");
+        return connectionPool.execute(connection -> {
+            PreparedStatement statement = connection.prepare(SELECT_BY_USER_AND_FITNESS_CLASS);
+            statement.setLong(1, user.getId());
+            statement.setLong(2, fitnessClass.getId());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next()
+                        ? Optional.of(MySQLRowMapper.mapBooking(resultSet, user, fitnessClass))
+                        : Optional.<Booking>empty();
+            }
+        });
+    }
+    
+    @Override
+    public Optional<Booking> findConflictingBooking(User user, FitnessClass fitnessClass) {
+        return connectionPool.execute(connection -> {
+            PreparedStatement statement = connection.prepare(SELECT_CONFLICTING);
+            statement.setLong(1, user.getId());
+            statement.setLong(2, fitnessClass.getEndEpochSecond());
+            statement.setLong(3, fitnessClass.getStartEpochSecond());
+            return mapUserBookings(statement, user).stream().findFirst();
+        });
+    }
+    
+    @Override
+    public List<Booking> findByUserBetween(User user, LocalDateTime start, LocalDateTime end) {
+        return connectionPool.execute(connection -> {
+            PreparedStatement statement = connection.prepare(SELECT_BY_USER_BETWEEN);
+            statement.setLong(1, user.getId());
+            statement.setLong(2, end.toEpochSecond(ZoneOffset.UTC));
+            statement.setLong(3, start.toEpochSecond(ZoneOffset.UTC));
+            return mapUserBookings(statement, user);
+        });
+    }
+    
+    private static void bindBooking(PreparedStatement statement, Booking booking) throws SQLException {
+        statement.setLong(1, booking.getId());
+        statement.setLong(2, booking.getUser().getId());
+        statement.setLong(3, booking.getFitnessClass().getId());
+        statement.setTimestamp(4, MySQLRowMapper.toTimestamp(booking.getBookingTime()));
+        statement.setBoolean(5, booking.isCancelled());
+    }
+    
+    private static List<Booking> mapUserBookings(PreparedStatement statement, User user) throws SQLException {
+        List<Booking> bookings = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                bookings.add(MySQLRowMapper.mapBooking(resultSet, user, MySQLRowMapper.mapFitnessClass(resultSet)));
+            }
+        }
+        return bookings;
     }
 }
@@ -0,0 +1,162 @@
+package com.fitness.management.repository.impl.mysql;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+public class MySQLConnectionPool {
+    
+    private static final String DEFAULT_URL = "jdbc:mysql://localhost:3306/fitness";
+    private static final long BORROW_TIMEOUT_MILLIS = 5_000;
+    
+    private static volatile MySQLConnectionPool defaultPool;
+    
+    private final String url;
+    private final String username;
+    private final String password;
+    private final Semaphore permits;
+    private final BlockingQueue<PooledConnection> idleConnections = new LinkedBlockingQueue<>();
+    
+    public MySQLConnectionPool(String url, String username, String password, int maxConnections) {
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("Pool size must be greater than 0");
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.permits = new Semaphore(maxConnections, true);
+    }
+    
+    // Shared pool configured through the fitness.db.* system properties, created with its schema on first use
+    public static MySQLConnectionPool getDefault() {
+        MySQLConnectionPool pool = defaultPool;
+        if (pool == null) {
+            synchronized (MySQLConnectionPool.class) {
+                pool = defaultPool;
+                if (pool == null) {
+                    pool = new MySQLConnectionPool(
+                            System.getProperty("fitness.db.url", DEFAULT_URL),
+                            System.getProperty("fitness.db.user", "fitness"),
+                            System.getProperty("fitness.db.password", ""),
+                            Integer.getInteger("fitness.db.poolSize", 10));
+                    MySQLSchema.createTables(pool);
+                    defaultPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+    
+    public <T> T execute(SqlWork<T> work) {
+        PooledConnection connection = borrow();
+        boolean reusable = true;
+        try {
+            return work.execute(connection);
+        } catch (SQLException e) {
+            reusable = connection.isValid();
+            throw new MySQLRepositoryException("Database operation failed: " + e.getMessage(), e);
+        } finally {
+            release(connection, reusable);
+        }
+    }
+    
+    public void close() {
+        PooledConnection connection;
+        while ((connection = idleConnections.poll()) != null) {
+            connection.closeQuietly();
+        }
+    }
+    
+    private PooledConnection borrow() {
+        try {
+            if (!permits.tryAcquire(BORROW_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                throw new MySQLRepositoryException("Timed out waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MySQLRepositoryException("Interrupted while waiting for a database connection", e);
+        }
+        
+        PooledConnection connection = idleConnections.poll();
+        if (connection != null) {
+            return connection;
+        }
+        
+        try {
+            return new PooledConnection(DriverManager.getConnection(url, username, password));
+        } catch (SQLException e) {
+            permits.release();
+            throw new MySQLRepositoryException("Could not connect to " + url + ": " + e.getMessage(), e);
+        }
+    }
+    
+    private void release(PooledConnection connection, boolean reusable) {
+        if (reusable) {
+            idleConnections.offer(connection);
+        } else {
+            connection.closeQuietly();
+        }
+        permits.release();
+    }
+    
+    @FunctionalInterface
+    public interface SqlWork<T> {
+        T execute(PooledConnection connection) throws SQLException;
+    }
+    
+    // A pooled connection keeps its prepared statements open and hands them out again for the same SQL
+    public static class PooledConnection {
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+        
+        PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+        
+        public PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = statements.get(sql);
+            if (statement == null || statement.isClosed()) {
+                statement = connection.prepareStatement(sql);
+                statements.put(sql, statement);
+            } else {
+                statement.clearParameters();
+            }
+            return statement;
+        }
+        
+        public Connection getConnection() {
+            return connection;
+        }
+        
+        boolean isValid() {
+            try {
+                return connection.isValid(1);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+        
+        void closeQuietly() {
+            for (PreparedStatement statement : statements.values()) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    // Closing anyway
+                }
+            }
+            statements.clear();
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                // Closing anyway
+            }
+        }
+    }
+}
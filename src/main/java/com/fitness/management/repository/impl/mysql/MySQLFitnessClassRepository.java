@@ -1,19 +1,157 @@
 package com.fitness.management.repository.impl.mysql;
 
+import com.fitness.management.model.ClassType;
 import com.fitness.management.model.FitnessClass;
 import com.fitness.management.repository.FitnessClassRepository;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
+import static com.fitness.management.repository.impl.mysql.MySQLRowMapper.FITNESS_CLASS_COLUMNS;
+
 public class MySQLFitnessClassRepository implements FitnessClassRepository {
     
+    // Attendance is only written on insert; afterwards it changes through the conditional updates below
+    private static final String UPSERT_FITNESS_CLASS = "INSERT INTO fitness_classes "
+            + "(id, name, class_type, capacity, current_attendance, start_time, start_epoch_second, end_epoch_second, duration_minutes, cancelled) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE name = VALUES(name), class_type = VALUES(class_type), capacity = VALUES(capacity), "
+            + "start_time = VALUES(start_time), start_epoch_second = VALUES(start_epoch_second), "
+            + "end_epoch_second = VALUES(end_epoch_second), duration_minutes = VALUES(duration_minutes), cancelled = VALUES(cancelled)";
+    
+    private static final String SELECT_BY_ID = "SELECT " + FITNESS_CLASS_COLUMNS + " FROM fitness_classes c WHERE c.id = ?";
+    
+    private static final String SELECT_BY_START_BETWEEN = "SELECT " + FITNESS_CLASS_COLUMNS + " FROM fitness_classes c"
+            + " WHERE c.start_epoch_second >= ? AND c.start_epoch_second < ? ORDER BY c.start_epoch_second, c.id";
+    
+    private static final String SELECT_BY_TYPE_AND_START_BETWEEN = "SELECT " + FITNESS_CLASS_COLUMNS + " FROM fitness_classes c"
+            + " WHERE c.class_type = ? AND c.start_epoch_second >= ? AND c.start_epoch_second < ?"
+            + " ORDER BY c.start_epoch_second, c.id";
+    
+    private static final String SELECT_AVAILABLE_BY_START_BETWEEN = "SELECT " + FITNESS_CLASS_COLUMNS + " FROM fitness_classes c"
+            + " WHERE c.start_epoch_second >= ? AND c.start_epoch_second < ?"
+            + " AND c.cancelled = FALSE AND c.current_attendance < c.capacity ORDER BY c.start_epoch_second, c.id";
+    
+    private static final String RESERVE_SPOT = "UPDATE fitness_classes SET current_attendance = current_attendance + 1 "
+            + "WHERE id = ? AND current_attendance < capacity AND cancelled = FALSE";
+    
+    private static final String RELEASE_SPOT = "UPDATE fitness_classes SET current_attendance = current_attendance - 1 "
+            + "WHERE id = ? AND current_attendance > 0";
+    
+    private static final String SELECT_ATTENDANCE = "SELECT current_attendance FROM fitness_classes WHERE id = ?";
+    
+    private final MySQLConnectionPool connectionPool;
+    
+    public MySQLFitnessClassRepository() {
+        this(MySQLConnectionPool.getDefault());
+    }
+    
+    public MySQLFitnessClassRepository(MySQLConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+    
     @Override
     public FitnessClass save(FitnessClass fitnessClass) {
-        throw new MySQLNotImplementedException("Saving fitness class to MySQL is not implemented yet");
+        return connectionPool.execute(connection -> {
+            PreparedStatement statement = connection.prepare(UPSERT_FITNESS_CLASS);
+            statement.setLong(1, fitnessClass.getId());
+            statement.setString(2, fitnessClass.getName());
+            statement.setString(3, fitnessClass.getClassType().name());
+            statement.setInt(4, fitnessClass.getCapacity());
+            statement.setInt(5, fitnessClass.getCurrentAttendance());
+            statement.setTimestamp(6, MySQLRowMapper.toTimestamp(fitnessClass.getStartTime()));
+            statement.setLong(7, fitnessClass.getStartEpochSecond());
+            statement.setLong(8, fitnessClass.getEndEpochSecond());
+            statement.setInt(9, fitnessClass.getDurationMinutes());
+            statement.setBoolean(10, fitnessClass.isCancelled());
+            statement.executeUpdate();
+            return fitnessClass;
+        });
+    }
+    
+    @Override
+    public Optional<FitnessClass> findById(long id) {
+        return connectionPool.execute(connection -> {
+            PreparedStatement statement = connection.prepare(SELECT_BY_ID);
+            statement.setLong(1, id);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? Optional.of(MySQLRowMapper.mapFitnessClass(resultSet)) : Optional.<FitnessClass>empty();
+            }
+        });
     }
     
     @Override
-    public Optional<FitnessClass> findById(String id) {
-        throw new MySQLNotImplementedException("Finding fitness class by ID in MySQL is not implemented yet");
+    public List<FitnessClass> findByStartTimeBetween(LocalDateTime start, LocalDateTime end) {
+        return connectionPool.execute(connection -> {
+            PreparedStatement statement = connection.prepare(SELECT_BY_START_BETWEEN);
+            statement.setLong(1, start.toEpochSecond(ZoneOffset.UTC));
+            statement.setLong(2, end.toEpochSecond(ZoneOffset.UTC));
+            return mapFitnessClasses(statement);
+        });
+    }
+    
+    @Override
+    public List<FitnessClass> findByClassTypeAndStartTimeBetween(ClassType classType, LocalDateTime start, LocalDateTime end) {
+        return connectionPool.execute(connection -> {
+            PreparedStatement statement = connection.prepare(SELECT_BY_TYPE_AND_START_BETWEEN);
+            statement.setString(1, classType.name());
+            statement.setLong(2, start.toEpochSecond(ZoneOffset.UTC));
+            statement.setLong(3, end.toEpochSecond(ZoneOffset.UTC));
+            return mapFitnessClasses(statement);
+        });
+    }
+    
+    @Override
+    public List<FitnessClass> findAvailableByStartTimeBetween(LocalDateTime start, LocalDateTime end) {
+        return connectionPool.execute(connection -> {
+            PreparedStatement statement = connection.prepare(SELECT_AVAILABLE_BY_START_BETWEEN);
+            statement.setLong(1, start.toEpochSecond(ZoneOffset.UTC));
+            statement.setLong(2, end.toEpochSecond(ZoneOffset.UTC));
+            return mapFitnessClasses(statement);
+        });
+    }
+    
+    @Override
+    public boolean reserveSpot(FitnessClass fitnessClass) {
+        return updateAttendance(RESERVE_SPOT, fitnessClass);
+    }
+    
+    @Override
+    public void releaseSpot(FitnessClass fitnessClass) {
+        updateAttendance(RELEASE_SPOT, fitnessClass);
+    }
+    
+    private static List<FitnessClass> mapFitnessClasses(PreparedStatement statement) throws SQLException {
+        List<FitnessClass> fitnessClasses = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                fitnessClasses.add(MySQLRowMapper.mapFitnessClass(resultSet));
+            }
+        }
+        return fitnessClasses;
+    }
+    
+    private boolean updateAttendance(String sql, FitnessClass fitnessClass) {
+        return connectionPool.execute(connection -> {
+            PreparedStatement update = connection.prepare(sql);
+            update.setLong(1, fitnessClass.getId());
+            boolean updated = update.executeUpdate() == 1;
+            
+            // Keep the caller's instance in step with the stored counter
+            PreparedStatement select = connection.prepare(SELECT_ATTENDANCE);
+            select.setLong(1, fitnessClass.getId());
+            try (ResultSet resultSet = select.executeQuery()) {
+                if (resultSet.next()) {
+                    fitnessClass.setCurrentAttendance(resultSet.getInt(1));
+                }
+            }
+            return updated;
+        });
     }
-}
\ No newline at end of file
+}
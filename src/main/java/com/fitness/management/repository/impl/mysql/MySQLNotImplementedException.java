@@ -1,11 +0,0 @@
-package com.fitness.management.repository.impl.mysql;
-
-public class MySQLNotImplementedException extends RuntimeException {
-    public MySQLNotImplementedException(String message) {
-        super(message);
-    }
-    
-    public MySQLNotImplementedException() {
-        super("MySQL implementation is not available yet");
-    }
-}
\ No newline at end of file
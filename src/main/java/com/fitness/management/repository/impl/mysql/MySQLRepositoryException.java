@@ -0,0 +1,11 @@
+package com.fitness.management.repository.impl.mysql;
+
+public class MySQLRepositoryException extends RuntimeException {
+    public MySQLRepositoryException(String message) {
+        super(message);
+    }
+    
+    public MySQLRepositoryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,78 @@
+package com.fitness.management.repository.impl.mysql;
+
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.ClassType;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.model.UserType;
+import com.fitness.management.model.WaitlistEntry;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+final class MySQLRowMapper {
+    
+    // Active booking counts are derived from the bookings table rather than stored on the user row
+    static final String USER_COLUMNS = "u.id AS user_id, u.username, u.password, u.user_type, "
+            + "(SELECT COUNT(*) FROM bookings ab WHERE ab.user_id = u.id AND ab.cancelled = FALSE) AS active_bookings";
+    
+    static final String FITNESS_CLASS_COLUMNS = "c.id AS class_id, c.name AS class_name, c.class_type, c.capacity, "
+            + "c.current_attendance, c.start_epoch_second, c.duration_minutes, c.cancelled AS class_cancelled";
+    
+    static final String BOOKING_COLUMNS = "b.id AS booking_id, b.booking_time, b.cancelled AS booking_cancelled";
+    
+    static final String WAITLIST_COLUMNS = "w.id AS entry_id, w.entry_time, w.processed";
+    
+    static User mapUser(ResultSet resultSet) throws SQLException {
+        return new User(
+                resultSet.getLong("user_id"),
+                resultSet.getString("username"),
+                resultSet.getString("password"),
+                UserType.valueOf(resultSet.getString("user_type")),
+                resultSet.getInt("active_bookings"));
+    }
+    
+    static FitnessClass mapFitnessClass(ResultSet resultSet) throws SQLException {
+        return new FitnessClass(
+                resultSet.getLong("class_id"),
+                resultSet.getString("class_name"),
+                ClassType.valueOf(resultSet.getString("class_type")),
+                resultSet.getInt("capacity"),
+                resultSet.getInt("current_attendance"),
+                LocalDateTime.ofEpochSecond(resultSet.getLong("start_epoch_second"), 0, ZoneOffset.UTC),
+                resultSet.getInt("duration_minutes"),
+                resultSet.getBoolean("class_cancelled"));
+    }
+    
+    static Booking mapBooking(ResultSet resultSet, User user, FitnessClass fitnessClass) throws SQLException {
+        return new Booking(
+                resultSet.getLong("booking_id"),
+                user,
+                fitnessClass,
+                toLocalDateTime(resultSet.getTimestamp("booking_time")),
+                resultSet.getBoolean("booking_cancelled"));
+    }
+    
+    static WaitlistEntry mapWaitlistEntry(ResultSet resultSet, User user, FitnessClass fitnessClass) throws SQLException {
+        return new WaitlistEntry(
+                resultSet.getLong("entry_id"),
+                user,
+                fitnessClass,
+                toLocalDateTime(resultSet.getTimestamp("entry_time")),
+                resultSet.getBoolean("processed"));
+    }
+    
+    static Timestamp toTimestamp(LocalDateTime dateTime) {
+        return Timestamp.valueOf(dateTime);
+    }
+    
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+    
+    private MySQLRowMapper() {
+    }
+}
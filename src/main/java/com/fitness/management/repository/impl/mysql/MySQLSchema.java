@@ -0,0 +1,59 @@
+package com.fitness.management.repository.impl.mysql;
+
+import java.sql.Statement;
+
+public class MySQLSchema {
+    
+    // Class times are also stored as epoch seconds so overlap checks stay portable across databases
+    private static final String[] CREATE_TABLES = {
+        "CREATE TABLE IF NOT EXISTS users ("
+            + "id BIGINT PRIMARY KEY, "
+            + "username VARCHAR(255) NOT NULL UNIQUE, "
+            + "password VARCHAR(255) NOT NULL, "
+            + "user_type VARCHAR(16) NOT NULL)",
+        "CREATE TABLE IF NOT EXISTS fitness_classes ("
+            + "id BIGINT PRIMARY KEY, "
+            + "name VARCHAR(255) NOT NULL, "
+            + "class_type VARCHAR(16) NOT NULL, "
+            + "capacity INT NOT NULL, "
+            + "current_attendance INT NOT NULL, "
+            + "start_time TIMESTAMP NOT NULL, "
+            + "start_epoch_second BIGINT NOT NULL, "
+            + "end_epoch_second BIGINT NOT NULL, "
+            + "duration_minutes INT NOT NULL, "
+            + "cancelled BOOLEAN NOT NULL, "
+            + "INDEX idx_fitness_classes_start (start_epoch_second), "
+            + "INDEX idx_fitness_classes_type_start (class_type, start_epoch_second))",
+        "CREATE TABLE IF NOT EXISTS bookings ("
+            + "id BIGINT PRIMARY KEY, "
+            + "user_id BIGINT NOT NULL, "
+            + "fitness_class_id BIGINT NOT NULL, "
+            + "booking_time TIMESTAMP NOT NULL, "
+            + "cancelled BOOLEAN NOT NULL, "
+            + "INDEX idx_bookings_user (user_id, cancelled), "
+            + "INDEX idx_bookings_class (fitness_class_id, cancelled), "
+            + "INDEX idx_bookings_user_class (user_id, fitness_class_id))",
+        "CREATE TABLE IF NOT EXISTS waitlist_entries ("
+            + "id BIGINT PRIMARY KEY, "
+            + "user_id BIGINT NOT NULL, "
+            + "fitness_class_id BIGINT NOT NULL, "
+            + "entry_time TIMESTAMP NOT NULL, "
+            + "processed BOOLEAN NOT NULL, "
+            + "INDEX idx_waitlist_class (fitness_class_id, processed, entry_time), "
+            + "INDEX idx_waitlist_user_class (user_id, fitness_class_id))"
+    };
+    
+    public static void createTables(MySQLConnectionPool pool) {
+        pool.execute(connection -> {
+            try (Statement statement = connection.getConnection().createStatement()) {
+                for (String sql : CREATE_TABLES) {
+                    statement.execute(sql);
+                }
+            }
+            return null;
+        });
+    }
+    
+    private MySQLSchema() {
+    }
+}
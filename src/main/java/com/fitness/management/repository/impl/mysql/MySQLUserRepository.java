@@ -3,17 +3,73 @@ package com.fitness.management.repository.impl.mysql;
 import com.fitness.management.model.User;
 import com.fitness.management.repository.UserRepository;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.util.Optional;
 
+import static com.fitness.management.repository.impl.mysql.MySQLRowMapper.USER_COLUMNS;
+
 public class MySQLUserRepository implements UserRepository {
     
+    private static final String UPSERT_USER = "INSERT INTO users (id, username, password, user_type) VALUES (?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE username = VALUES(username), password = VALUES(password), user_type = VALUES(user_type)";
+    
+    private static final String INSERT_USER = "INSERT INTO users (id, username, password, user_type) VALUES (?, ?, ?, ?)";
+    
+    private static final String SELECT_BY_USERNAME = "SELECT " + USER_COLUMNS + " FROM users u WHERE u.username = ?";
+    
+    private final MySQLConnectionPool connectionPool;
+    
+    public MySQLUserRepository() {
+        this(MySQLConnectionPool.getDefault());
+    }
+    
+    public MySQLUserRepository(MySQLConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+    
     @Override
     public User save(User user) {
-        throw new MySQLNotImplementedException("Saving user to MySQL is not implemented yet");
+        return connectionPool.execute(connection -> {
+            PreparedStatement statement = connection.prepare(UPSERT_USER);
+            bindUser(statement, user);
+            statement.executeUpdate();
+            return user;
+        });
+    }
+    
+    // The unique key on username makes the insert itself the availability check
+    @Override
+    public boolean saveIfUsernameAbsent(User user) {
+        return connectionPool.execute(connection -> {
+            PreparedStatement statement = connection.prepare(INSERT_USER);
+            bindUser(statement, user);
+            try {
+                statement.executeUpdate();
+                return true;
+            } catch (SQLIntegrityConstraintViolationException e) {
+                return false;
+            }
+        });
     }
     
     @Override
     public Optional<User> findByUsername(String username) {
-        throw new MySQLNotImplementedException("Finding user by username in MySQL is not implemented yet");
+        return connectionPool.execute(connection -> {
+            PreparedStatement statement = connection.prepare(SELECT_BY_USERNAME);
+            statement.setString(1, username);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? Optional.of(MySQLRowMapper.mapUser(resultSet)) : Optional.<User>empty();
+            }
+        });
+    }
+    
+    private static void bindUser(PreparedStatement statement, User user) throws SQLException {
+        statement.setLong(1, user.getId());
+        statement.setString(2, user.getUsername());
+        statement.setString(3, user.getPassword());
+        statement.setString(4, user.getUserType().name());
     }
-}
\ No newline at end of file
+}
@@ -5,23 +5,139 @@ import com.fitness.management.model.User;
 import com.fitness.management.model.WaitlistEntry;
 import com.fitness.management.repository.WaitlistRepository;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import static com.fitness.management.repository.impl.mysql.MySQLRowMapper.USER_COLUMNS;
+import static com.fitness.management.repository.impl.mysql.MySQLRowMapper.WAITLIST_COLUMNS;
+
 public class MySQLWaitlistRepository implements WaitlistRepository {
     
+    private static final String UPSERT_ENTRY = "INSERT INTO waitlist_entries (id, user_id, fitness_class_id, entry_time, processed) "
+            + "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE processed = VALUES(processed)";
+    
+    private static final String SELECT_FIRST_BY_FITNESS_CLASS = "SELECT " + WAITLIST_COLUMNS + ", " + USER_COLUMNS
+            + " FROM waitlist_entries w JOIN users u ON u.id = w.user_id"
+            + " WHERE w.fitness_class_id = ? AND w.processed = FALSE"
+            + " ORDER BY w.entry_time, w.id LIMIT 1";
+    
+    // Prefer the unprocessed entry for the pair, then the most recent one
+    private static final String SELECT_BY_USER_AND_FITNESS_CLASS = "SELECT " + WAITLIST_COLUMNS
+            + " FROM waitlist_entries w WHERE w.user_id = ? AND w.fitness_class_id = ?"
+            + " ORDER BY w.processed, w.entry_time DESC LIMIT 1";
+    
+    private static final String COUNT_PENDING_BY_FITNESS_CLASS = "SELECT COUNT(*) FROM waitlist_entries"
+            + " WHERE fitness_class_id = ? AND processed = FALSE";
+    
+    private static final String SELECT_PENDING_BY_FITNESS_CLASS = "SELECT " + WAITLIST_COLUMNS + ", " + USER_COLUMNS
+            + " FROM waitlist_entries w JOIN users u ON u.id = w.user_id"
+            + " WHERE w.fitness_class_id = ? AND w.processed = FALSE FOR UPDATE";
+    
+    private static final String MARK_PROCESSED_BY_FITNESS_CLASS = "UPDATE waitlist_entries SET processed = TRUE"
+            + " WHERE fitness_class_id = ? AND processed = FALSE";
+    
+    private final MySQLConnectionPool connectionPool;
+    
+    public MySQLWaitlistRepository() {
+        this(MySQLConnectionPool.getDefault());
+    }
+    
+    public MySQLWaitlistRepository(MySQLConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+    
     @Override
     public WaitlistEntry save(WaitlistEntry waitlistEntry) {
-        throw new MySQLNotImplementedException("Saving waitlist entry to MySQL is not implemented yet");
+        return connectionPool.execute(connection -> {
+            PreparedStatement statement = connection.prepare(UPSERT_ENTRY);
+            statement.setLong(1, waitlistEntry.getId());
+            statement.setLong(2, waitlistEntry.getUser().getId());
+            statement.setLong(3, waitlistEntry.getFitnessClass().getId());
+            statement.setTimestamp(4, MySQLRowMapper.toTimestamp(waitlistEntry.getEntryTime()));
+            statement.setBoolean(5, waitlistEntry.isProcessed());
+            statement.executeUpdate();
+            return waitlistEntry;
+        });
     }
     
     @Override
     public Optional<WaitlistEntry> findFirstByFitnessClass(FitnessClass fitnessClass) {
-        throw new MySQLNotImplementedException("Finding first waitlist entry by fitness class in MySQL is not implemented yet");
+        return connectionPool.execute(connection -> {
+            PreparedStatement statement = connection.prepare(SELECT_FIRST_BY_FITNESS_CLASS);
+            statement.setLong(1, fitnessClass.getId());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next()
+                        ? Optional.of(MySQLRowMapper.mapWaitlistEntry(resultSet, MySQLRowMapper.mapUser(resultSet), fitnessClass))
+                        : Optional.<WaitlistEntry>empty();
+            }
+        });
     }
     
     @Override
     public Optional<WaitlistEntry> findByUserAndFitnessClass(User user, FitnessClass fitnessClass) {
-        throw new MySQLNotImplementedException("Finding waitlist entry by user and fitness class in MySQL is not implemented yet");
+        return connectionPool.execute(connection -> {
+            PreparedStatement statement = connection.prepare(SELECT_BY_USER_AND_FITNESS_CLASS);
+            statement.setLong(1, user.getId());
+            statement.setLong(2, fitnessClass.getId());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next()
+                        ? Optional.of(MySQLRowMapper.mapWaitlistEntry(resultSet, user, fitnessClass))
+                        : Optional.<WaitlistEntry>empty();
+            }
+        });
+    }
+    
+    @Override
+    public List<WaitlistEntry> clearPendingByFitnessClasses(Collection<FitnessClass> fitnessClasses) {
+        if (fitnessClasses.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return connectionPool.execute(connection -> {
+            Connection jdbcConnection = connection.getConnection();
+            jdbcConnection.setAutoCommit(false);
+            try {
+                List<WaitlistEntry> cleared = new ArrayList<>();
+                PreparedStatement select = connection.prepare(SELECT_PENDING_BY_FITNESS_CLASS);
+                PreparedStatement update = connection.prepare(MARK_PROCESSED_BY_FITNESS_CLASS);
+                for (FitnessClass fitnessClass : fitnessClasses) {
+                    select.setLong(1, fitnessClass.getId());
+                    try (ResultSet resultSet = select.executeQuery()) {
+                        while (resultSet.next()) {
+                            WaitlistEntry entry = MySQLRowMapper.mapWaitlistEntry(resultSet, MySQLRowMapper.mapUser(resultSet), fitnessClass);
+                            entry.setProcessed(true);
+                            cleared.add(entry);
+                        }
+                    }
+                    update.setLong(1, fitnessClass.getId());
+                    update.addBatch();
+                }
+                update.executeBatch();
+                jdbcConnection.commit();
+                return cleared;
+            } catch (SQLException e) {
+                jdbcConnection.rollback();
+                throw e;
+            } finally {
+                jdbcConnection.setAutoCommit(true);
+            }
+        });
+    }
+    
+    @Override
+    public int countPendingByFitnessClass(FitnessClass fitnessClass) {
+        return connectionPool.execute(connection -> {
+            PreparedStatement statement = connection.prepare(COUNT_PENDING_BY_FITNESS_CLASS);
+            statement.setLong(1, fitnessClass.getId());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getInt(1);
+            }
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,104 @@
+package com.fitness.management.repository.impl.tiered;
+
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+// Bookings of archived classes live in the archive; cancelled bookings of upcoming classes may be in either tier
+public class TieredBookingRepository implements BookingRepository {
+    private final TieredRepositoryStore store;
+    
+    TieredBookingRepository(TieredRepositoryStore store) {
+        this.store = store;
+    }
+    
+    @Override
+    public Booking save(Booking booking) {
+        if (store.isArchived(booking.getFitnessClass())) {
+            return store.archivedBookings().save(booking);
+        }
+        return store.hotBookings().save(booking);
+    }
+    
+    @Override
+    public List<Booking> saveAll(List<Booking> bookings) {
+        for (Booking booking : bookings) {
+            save(booking);
+        }
+        return bookings;
+    }
+    
+    @Override
+    public List<Booking> findByUser(User user) {
+        return merge(store.hotBookings().findByUser(user), store.archivedBookings().findByUser(user));
+    }
+    
+    @Override
+    public List<Booking> findByFitnessClass(FitnessClass fitnessClass) {
+        if (store.isArchived(fitnessClass)) {
+            return store.archivedBookings().findByFitnessClass(fitnessClass);
+        }
+        return store.hotBookings().findByFitnessClass(fitnessClass);
+    }
+    
+    // The archive can only hold cancelled bookings of a class that starts after the archive horizon and is not
+    // archived itself, so the usual booking-time check stays on the hot tier
+    @Override
+    public Optional<Booking> findByUserAndFitnessClass(User user, FitnessClass fitnessClass) {
+        Optional<Booking> hot = store.hotBookings().findByUserAndFitnessClass(user, fitnessClass);
+        if (hot.isPresent() && !hot.get().isCancelled()) {
+            return hot;
+        }
+        if (!store.mayReachArchive(fitnessClass.getStartEpochSecond()) && !store.isArchived(fitnessClass)) {
+            return hot;
+        }
+        Optional<Booking> archived = store.archivedBookings().findByUserAndFitnessClass(user, fitnessClass);
+        return archived.isPresent() ? archived : hot;
+    }
+    
+    // Active bookings in the archive all belong to classes that have ended, so a class starting after the archive
+    // horizon (the usual case when booking) is only checked against the hot tier
+    @Override
+    public Optional<Booking> findConflictingBooking(User user, FitnessClass fitnessClass) {
+        Optional<Booking> conflict = store.hotBookings().findConflictingBooking(user, fitnessClass);
+        if (conflict.isPresent() || !store.mayReachArchive(fitnessClass.getStartEpochSecond())) {
+            return conflict;
+        }
+        return store.archivedBookings().findConflictingBooking(user, fitnessClass);
+    }
+    
+    @Override
+    public List<Booking> findByUserBetween(User user, LocalDateTime start, LocalDateTime end) {
+        List<Booking> hot = store.hotBookings().findByUserBetween(user, start, end);
+        if (!store.mayReachArchive(start)) {
+            return hot;
+        }
+        return merge(hot, store.archivedBookings().findByUserBetween(user, start, end));
+    }
+    
+    // A booking being archived can briefly be in both tiers
+    private static List<Booking> merge(List<Booking> hot, List<Booking> archived) {
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        List<Booking> bookings = new ArrayList<>(hot);
+        Set<Long> hotIds = new HashSet<>();
+        for (Booking booking : hot) {
+            hotIds.add(booking.getId());
+        }
+        for (Booking booking : archived) {
+            if (!hotIds.contains(booking.getId())) {
+                bookings.add(booking);
+            }
+        }
+        return bookings;
+    }
+}
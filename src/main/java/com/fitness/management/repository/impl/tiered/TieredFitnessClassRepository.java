@@ -0,0 +1,85 @@
+package com.fitness.management.repository.impl.tiered;
+
+import com.fitness.management.model.ClassType;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.repository.FitnessClassRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+public class TieredFitnessClassRepository implements FitnessClassRepository {
+    private final TieredRepositoryStore store;
+    
+    TieredFitnessClassRepository(TieredRepositoryStore store) {
+        this.store = store;
+    }
+    
+    @Override
+    public FitnessClass save(FitnessClass fitnessClass) {
+        if (store.isArchived(fitnessClass)) {
+            return store.saveArchived(fitnessClass);
+        }
+        return store.hotFitnessClasses().save(fitnessClass);
+    }
+    
+    @Override
+    public Optional<FitnessClass> findById(long id) {
+        Optional<FitnessClass> fitnessClass = store.hotFitnessClasses().findById(id);
+        return fitnessClass.isPresent() ? fitnessClass : store.archivedFitnessClasses().findById(id);
+    }
+    
+    @Override
+    public List<FitnessClass> findByStartTimeBetween(LocalDateTime start, LocalDateTime end) {
+        return findBetween(start, repository -> repository.findByStartTimeBetween(start, end));
+    }
+    
+    @Override
+    public List<FitnessClass> findByClassTypeAndStartTimeBetween(ClassType classType, LocalDateTime start, LocalDateTime end) {
+        return findBetween(start, repository -> repository.findByClassTypeAndStartTimeBetween(classType, start, end));
+    }
+    
+    @Override
+    public List<FitnessClass> findAvailableByStartTimeBetween(LocalDateTime start, LocalDateTime end) {
+        return findBetween(start, repository -> repository.findAvailableByStartTimeBetween(start, end));
+    }
+    
+    @Override
+    public boolean reserveSpot(FitnessClass fitnessClass) {
+        return store.hotFitnessClasses().reserveSpot(fitnessClass);
+    }
+    
+    @Override
+    public void releaseSpot(FitnessClass fitnessClass) {
+        store.hotFitnessClasses().releaseSpot(fitnessClass);
+    }
+    
+    // Upcoming-schedule queries never reach the archive. A class being archived can briefly be in both tiers.
+    private List<FitnessClass> findBetween(LocalDateTime start, Function<FitnessClassRepository, List<FitnessClass>> query) {
+        List<FitnessClass> hot = query.apply(store.hotFitnessClasses());
+        if (!store.mayReachArchive(start)) {
+            return hot;
+        }
+        List<FitnessClass> archived = query.apply(store.archivedFitnessClasses());
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        
+        List<FitnessClass> fitnessClasses = new ArrayList<>(archived);
+        Set<Long> archivedIds = new HashSet<>();
+        for (FitnessClass fitnessClass : archived) {
+            archivedIds.add(fitnessClass.getId());
+        }
+        for (FitnessClass fitnessClass : hot) {
+            if (!archivedIds.contains(fitnessClass.getId())) {
+                fitnessClasses.add(fitnessClass);
+            }
+        }
+        fitnessClasses.sort((a, b) -> Long.compare(a.getStartEpochSecond(), b.getStartEpochSecond()));
+        return fitnessClasses;
+    }
+}
@@ -0,0 +1,239 @@
+package com.fitness.management.repository.impl.tiered;
+
+import com.fitness.management.metrics.MetricsRegistry;
+import com.fitness.management.metrics.OperationMetrics;
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.WaitlistEntry;
+import com.fitness.management.repository.BookingRepository;
+import com.fitness.management.repository.FitnessClassRepository;
+import com.fitness.management.repository.WaitlistRepository;
+import com.fitness.management.repository.impl.columnar.ColumnarBookingRepository;
+import com.fitness.management.repository.impl.memory.InMemoryBookingRepository;
+import com.fitness.management.repository.impl.memory.InMemoryFitnessClassRepository;
+import com.fitness.management.repository.impl.memory.InMemoryWaitlistRepository;
+import com.fitness.management.util.ConcurrencyUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+
+// In-memory class, booking and waitlist storage split into two tiers. The hot tier holds the upcoming schedule with
+// its active bookings and pending waitlist entries; everything else is moved to the archive by archive(), which runs
+// in the background. The archive keeps bookings in a ColumnarBookingRepository. Reads go through the tiered
+// repositories, which route by class and only consult the archive for queries that can reach into it.
+public class TieredRepositoryStore implements AutoCloseable {
+    private static final int ARCHIVE_BATCH_SIZE = 256;
+    // Scheduled archive passes; null when metrics are switched off
+    private static final OperationMetrics SCHEDULED_ARCHIVE = MetricsRegistry.isEnabled()
+            ? MetricsRegistry.getDefault().operation("tiered.scheduledArchive") : null;
+    
+    private static volatile TieredRepositoryStore defaultStore;
+    
+    private final InMemoryFitnessClassRepository hotFitnessClasses = new InMemoryFitnessClassRepository();
+    private final InMemoryBookingRepository hotBookings = new InMemoryBookingRepository();
+    private final InMemoryWaitlistRepository hotWaitlistEntries = new InMemoryWaitlistRepository();
+    
+    private final InMemoryFitnessClassRepository archivedFitnessClasses = new InMemoryFitnessClassRepository();
+    private final ColumnarBookingRepository archivedBookings = new ColumnarBookingRepository();
+    private final InMemoryWaitlistRepository archivedWaitlistEntries = new InMemoryWaitlistRepository();
+    // Latest end of any archived class: a time range starting at or after it cannot touch an archived class
+    private final AtomicLong archivedUntilEpochSecond = new AtomicLong(Long.MIN_VALUE);
+    
+    private final FitnessClassRepository fitnessClassRepository = new TieredFitnessClassRepository(this);
+    private final BookingRepository bookingRepository = new TieredBookingRepository(this);
+    private final WaitlistRepository waitlistRepository = new TieredWaitlistRepository(this);
+    private final ScheduledExecutorService archiveScheduler;
+    private final LongAdder archiveFailures = new LongAdder();
+    
+    public TieredRepositoryStore(long archiveIntervalSeconds) {
+        if (archiveIntervalSeconds > 0) {
+            archiveScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "repository-archiver");
+                thread.setDaemon(true);
+                return thread;
+            });
+            archiveScheduler.scheduleWithFixedDelay(this::archiveQuietly,
+                    archiveIntervalSeconds, archiveIntervalSeconds, TimeUnit.SECONDS);
+        } else {
+            archiveScheduler = null;
+        }
+    }
+    
+    // Shared store configured through the fitness.archive.intervalSeconds system property
+    public static TieredRepositoryStore getDefault() {
+        TieredRepositoryStore store = defaultStore;
+        if (store == null) {
+            synchronized (TieredRepositoryStore.class) {
+                store = defaultStore;
+                if (store == null) {
+                    store = new TieredRepositoryStore(Long.getLong("fitness.archive.intervalSeconds", 300));
+                    defaultStore = store;
+                }
+            }
+        }
+        return store;
+    }
+    
+    public FitnessClassRepository getFitnessClassRepository() {
+        return fitnessClassRepository;
+    }
+    
+    public BookingRepository getBookingRepository() {
+        return bookingRepository;
+    }
+    
+    public WaitlistRepository getWaitlistRepository() {
+        return waitlistRepository;
+    }
+    
+    public int getArchivedBookingCount() {
+        return archivedBookings.getBookingCount();
+    }
+    
+    // Scheduled archive passes that failed; the hot tier keeps growing until one succeeds
+    public long getArchiveFailureCount() {
+        return archiveFailures.sum();
+    }
+    
+    // Moves classes that have ended to the archive together with their bookings and waitlist entries, then the
+    // cancelled bookings and processed waitlist entries of the classes still upcoming. Returns the number of classes
+    // archived.
+    public synchronized int archive() {
+        LocalDateTime now = LocalDateTime.now();
+        List<FitnessClass> ended = new ArrayList<>();
+        for (FitnessClass fitnessClass : hotFitnessClasses.findByStartTimeBetween(LocalDateTime.MIN, now)) {
+            if (!fitnessClass.getEndTime().isAfter(now)) {
+                ended.add(fitnessClass);
+            }
+        }
+        for (int from = 0; from < ended.size(); from += ARCHIVE_BATCH_SIZE) {
+            archiveClasses(ended.subList(from, Math.min(from + ARCHIVE_BATCH_SIZE, ended.size())));
+        }
+        
+        // Neither can become active again, so they move without the class locks. Readers see them in both tiers
+        // for a moment rather than in neither.
+        for (Booking booking : hotBookings.findAll()) {
+            if (booking.isCancelled()) {
+                archivedBookings.save(booking);
+                hotBookings.remove(booking);
+            }
+        }
+        for (WaitlistEntry entry : hotWaitlistEntries.findAll()) {
+            if (entry.isProcessed()) {
+                archivedWaitlistEntries.save(entry);
+                hotWaitlistEntries.remove(entry);
+            }
+        }
+        return ended.size();
+    }
+    
+    @Override
+    public void close() {
+        if (archiveScheduler != null) {
+            archiveScheduler.shutdownNow();
+        }
+    }
+    
+    // The class locks keep bookings, cancellations and waitlist changes for these classes out until they are in the
+    // archive. A waitlist has nothing left to promote into once its class has ended, so pending entries are closed.
+    private void archiveClasses(List<FitnessClass> fitnessClasses) {
+        List<Lock> locks = ConcurrencyUtils.getLocksForFitnessClasses(fitnessClasses);
+        for (Lock lock : locks) {
+            lock.lock();
+        }
+        try {
+            List<Booking> activeBookings = new ArrayList<>();
+            for (FitnessClass fitnessClass : fitnessClasses) {
+                activeBookings.addAll(hotBookings.findByFitnessClass(fitnessClass));
+            }
+            List<WaitlistEntry> closedEntries = hotWaitlistEntries.clearPendingByFitnessClasses(fitnessClasses);
+            
+            // Copy first, then publish the classes as archived, then drop the hot copies
+            archivedBookings.saveAll(activeBookings);
+            for (WaitlistEntry entry : closedEntries) {
+                archivedWaitlistEntries.save(entry);
+            }
+            for (FitnessClass fitnessClass : fitnessClasses) {
+                saveArchived(fitnessClass);
+            }
+            
+            for (Booking booking : activeBookings) {
+                hotBookings.remove(booking);
+            }
+            for (WaitlistEntry entry : closedEntries) {
+                hotWaitlistEntries.remove(entry);
+            }
+            for (FitnessClass fitnessClass : fitnessClasses) {
+                hotBookings.removeFitnessClass(fitnessClass);
+                hotFitnessClasses.remove(fitnessClass);
+            }
+        } finally {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
+    }
+    
+    private void archiveQuietly() {
+        try {
+            if (SCHEDULED_ARCHIVE != null) {
+                SCHEDULED_ARCHIVE.time(this::archive);
+            } else {
+                archive();
+            }
+        } catch (RuntimeException e) {
+            // Counted rather than rethrown, which would cancel every later run
+            archiveFailures.increment();
+        }
+    }
+    
+    boolean isArchived(FitnessClass fitnessClass) {
+        return archivedFitnessClasses.findById(fitnessClass.getId()).isPresent();
+    }
+    
+    boolean mayReachArchive(long startEpochSecond) {
+        return startEpochSecond < archivedUntilEpochSecond.get();
+    }
+    
+    boolean mayReachArchive(LocalDateTime start) {
+        return mayReachArchive(start.toEpochSecond(ZoneOffset.UTC));
+    }
+    
+    FitnessClass saveArchived(FitnessClass fitnessClass) {
+        archivedFitnessClasses.save(fitnessClass);
+        archivedUntilEpochSecond.accumulateAndGet(fitnessClass.getEndEpochSecond(), Math::max);
+        return fitnessClass;
+    }
+    
+    InMemoryFitnessClassRepository hotFitnessClasses() {
+        return hotFitnessClasses;
+    }
+    
+    InMemoryBookingRepository hotBookings() {
+        return hotBookings;
+    }
+    
+    InMemoryWaitlistRepository hotWaitlistEntries() {
+        return hotWaitlistEntries;
+    }
+    
+    InMemoryFitnessClassRepository archivedFitnessClasses() {
+        return archivedFitnessClasses;
+    }
+    
+    ColumnarBookingRepository archivedBookings() {
+        return archivedBookings;
+    }
+    
+    InMemoryWaitlistRepository archivedWaitlistEntries() {
+        return archivedWaitlistEntries;
+    }
+}
@@ -0,0 +1,64 @@
+package com.fitness.management.repository.impl.tiered;
+
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.model.WaitlistEntry;
+import com.fitness.management.repository.WaitlistRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+// Entries of archived classes live in the archive; processed entries of upcoming classes may be in either tier
+public class TieredWaitlistRepository implements WaitlistRepository {
+    private final TieredRepositoryStore store;
+    
+    TieredWaitlistRepository(TieredRepositoryStore store) {
+        this.store = store;
+    }
+    
+    @Override
+    public WaitlistEntry save(WaitlistEntry waitlistEntry) {
+        return tierOf(waitlistEntry.getFitnessClass()).save(waitlistEntry);
+    }
+    
+    @Override
+    public Optional<WaitlistEntry> findFirstByFitnessClass(FitnessClass fitnessClass) {
+        return tierOf(fitnessClass).findFirstByFitnessClass(fitnessClass);
+    }
+    
+    @Override
+    public Optional<WaitlistEntry> findByUserAndFitnessClass(User user, FitnessClass fitnessClass) {
+        Optional<WaitlistEntry> hot = store.hotWaitlistEntries().findByUserAndFitnessClass(user, fitnessClass);
+        if (hot.isPresent() && !hot.get().isProcessed()) {
+            return hot;
+        }
+        Optional<WaitlistEntry> archived = store.archivedWaitlistEntries().findByUserAndFitnessClass(user, fitnessClass);
+        return archived.isPresent() ? archived : hot;
+    }
+    
+    @Override
+    public int countPendingByFitnessClass(FitnessClass fitnessClass) {
+        return tierOf(fitnessClass).countPendingByFitnessClass(fitnessClass);
+    }
+    
+    @Override
+    public List<WaitlistEntry> clearPendingByFitnessClasses(Collection<FitnessClass> fitnessClasses) {
+        List<FitnessClass> hotClasses = new ArrayList<>();
+        List<FitnessClass> archivedClasses = new ArrayList<>();
+        for (FitnessClass fitnessClass : fitnessClasses) {
+            (store.isArchived(fitnessClass) ? archivedClasses : hotClasses).add(fitnessClass);
+        }
+        
+        List<WaitlistEntry> cleared = store.hotWaitlistEntries().clearPendingByFitnessClasses(hotClasses);
+        if (!archivedClasses.isEmpty()) {
+            cleared.addAll(store.archivedWaitlistEntries().clearPendingByFitnessClasses(archivedClasses));
+        }
+        return cleared;
+    }
+    
+    private WaitlistRepository tierOf(FitnessClass fitnessClass) {
+        return store.isArchived(fitnessClass) ? store.archivedWaitlistEntries() : store.hotWaitlistEntries();
+    }
+}
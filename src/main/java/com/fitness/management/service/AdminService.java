@@ -4,8 +4,12 @@ import com.fitness.management.model.FitnessClass;
 import com.fitness.management.model.ClassType;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface AdminService {
     FitnessClass createClass(String name, ClassType classType, int capacity, LocalDateTime startTime, int durationMinutes);
     void cancelClass(FitnessClass fitnessClass);
+    void cancelClasses(Collection<FitnessClass> fitnessClasses);
+    List<FitnessClass> cancelClassesInRange(LocalDateTime start, LocalDateTime end);
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.fitness.management.service;
+
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.model.WaitlistEntry;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncBookingService {
+    CompletableFuture<Booking> bookClassAsync(User user, FitnessClass fitnessClass);
+    CompletableFuture<Void> cancelBookingAsync(User user, FitnessClass fitnessClass);
+    CompletableFuture<WaitlistEntry> addToWaitlistAsync(User user, FitnessClass fitnessClass);
+}
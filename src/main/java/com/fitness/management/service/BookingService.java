@@ -1,15 +1,22 @@
 package com.fitness.management.service;
 
 import com.fitness.management.model.Booking;
+import com.fitness.management.model.BookingResult;
 import com.fitness.management.model.FitnessClass;
 import com.fitness.management.model.User;
 import com.fitness.management.model.WaitlistEntry;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface BookingService {
     Booking bookClass(User user, FitnessClass fitnessClass);
+    // Retries with the same key return the first attempt's booking or exception; a null key books as usual
+    Booking bookClass(User user, FitnessClass fitnessClass, String idempotencyKey);
+    List<BookingResult> bookAll(List<User> users, FitnessClass fitnessClass);
+    List<BookingResult> bookSeries(User user, List<FitnessClass> fitnessClasses);
     void cancelBooking(User user, FitnessClass fitnessClass);
     List<Booking> getUserBookings(User user);
+    List<Booking> getUserBookingsBetween(User user, LocalDateTime start, LocalDateTime end);
     WaitlistEntry addToWaitlist(User user, FitnessClass fitnessClass);
 }
\ No newline at end of file
@@ -1,25 +1,50 @@
 package com.fitness.management.service.impl;
 
+import com.fitness.management.context.ApplicationContext;
+import com.fitness.management.event.BookingEvent;
+import com.fitness.management.event.BookingEventBus;
 import com.fitness.management.model.Booking;
 import com.fitness.management.model.FitnessClass;
 import com.fitness.management.model.ClassType;
+import com.fitness.management.model.User;
 import com.fitness.management.repository.BookingRepository;
 import com.fitness.management.repository.FitnessClassRepository;
-import com.fitness.management.repository.RepositoryFactory;
+import com.fitness.management.repository.WaitlistRepository;
+import com.fitness.management.repository.WriteScope;
 import com.fitness.management.service.AdminService;
 import com.fitness.management.util.ConcurrencyUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.locks.Lock;
 
 public class AdminServiceImpl implements AdminService {
     private final FitnessClassRepository fitnessClassRepository;
     private final BookingRepository bookingRepository;
+    private final WaitlistRepository waitlistRepository;
+    private final BookingEventBus eventBus;
     
     public AdminServiceImpl() {
-        this.fitnessClassRepository = RepositoryFactory.createFitnessClassRepository();
-        this.bookingRepository = RepositoryFactory.createBookingRepository();
+        this(ApplicationContext.getDefault().getFitnessClassRepository(), ApplicationContext.getDefault().getBookingRepository());
+    }
+    
+    public AdminServiceImpl(FitnessClassRepository fitnessClassRepository, BookingRepository bookingRepository) {
+        this(fitnessClassRepository, bookingRepository, ApplicationContext.getDefault().getWaitlistRepository(),
+                ApplicationContext.getDefault().getEventBus());
+    }
+    
+    public AdminServiceImpl(FitnessClassRepository fitnessClassRepository, BookingRepository bookingRepository,
+                            WaitlistRepository waitlistRepository, BookingEventBus eventBus) {
+        this.fitnessClassRepository = fitnessClassRepository;
+        this.bookingRepository = bookingRepository;
+        this.waitlistRepository = waitlistRepository;
+        this.eventBus = eventBus;
     }
     
     @Override
@@ -38,34 +63,80 @@ public class AdminServiceImpl implements AdminService {
     
     @Override
     public void cancelClass(FitnessClass fitnessClass) {
-        Lock lock = ConcurrencyUtils.getLockForFitnessClass(fitnessClass);
+        cancelClasses(Collections.singletonList(fitnessClass));
+    }
+    
+    @Override
+    public List<FitnessClass> cancelClassesInRange(LocalDateTime start, LocalDateTime end) {
+        List<FitnessClass> fitnessClasses = fitnessClassRepository.findByStartTimeBetween(start, end);
+        cancelClasses(fitnessClasses);
+        return fitnessClasses;
+    }
+    
+    // Waits for durable repositories only once the class locks are released
+    @Override
+    public void cancelClasses(Collection<FitnessClass> fitnessClasses) {
+        if (fitnessClasses.isEmpty()) {
+            return;
+        }
+        WriteScope.run(() -> cancelClassesLocked(fitnessClasses));
+    }
+    
+    private void cancelClassesLocked(Collection<FitnessClass> fitnessClasses) {
+        // Stripe locks are taken in index order so this never deadlocks with bookSeries
+        List<Lock> locks = ConcurrencyUtils.getLocksForFitnessClasses(fitnessClasses);
+        List<Lock> acquired = new ArrayList<>(locks.size());
         
         try {
-            lock.lock();
+            for (Lock lock : locks) {
+                lock.lock();
+                acquired.add(lock);
+            }
             
-            // Get all active bookings for this class
-            List<Booking> classBookings = bookingRepository.findByFitnessClass(fitnessClass);
+            Map<Long, FitnessClass> classesToCancel = new LinkedHashMap<>();
+            for (FitnessClass fitnessClass : fitnessClasses) {
+                if (!fitnessClass.isCancelled()) {
+                    classesToCancel.putIfAbsent(fitnessClass.getId(), fitnessClass);
+                }
+            }
             
-            // Restore booking limits for all users with active bookings
-            for (Booking booking : classBookings) {
-                if (!booking.isCancelled()) {
-                    // Mark the booking as cancelled
-                    booking.setCancelled(true);
-                    bookingRepository.save(booking);
-                    
-                    // Restore the user's booking limit by decrementing their active bookings count
-                    booking.getUser().decrementActiveBookings();
-                    
-                    System.out.println("Restored booking limit for user: " + booking.getUser().getUsername());
+            // Collect the active bookings of every class and write them back in one batch
+            List<Booking> cancelledBookings = new ArrayList<>();
+            for (FitnessClass fitnessClass : classesToCancel.values()) {
+                for (Booking booking : bookingRepository.findByFitnessClass(fitnessClass)) {
+                    if (!booking.isCancelled()) {
+                        booking.setCancelled(true);
+                        cancelledBookings.add(booking);
+                    }
                 }
             }
+            bookingRepository.saveAll(cancelledBookings);
             
-            // Mark the class as cancelled
-            fitnessClass.setCancelled(true);
-            fitnessClassRepository.save(fitnessClass);
+            // Restore booking limits with one counter update per user
+            Map<User, Integer> cancelledPerUser = new IdentityHashMap<>();
+            for (Booking booking : cancelledBookings) {
+                cancelledPerUser.merge(booking.getUser(), 1, Integer::sum);
+            }
+            cancelledPerUser.forEach(User::decrementActiveBookings);
             
+            for (FitnessClass fitnessClass : classesToCancel.values()) {
+                fitnessClass.setCancelled(true);
+                fitnessClassRepository.save(fitnessClass);
+            }
+            
+            // Nobody can be promoted into a cancelled class
+            waitlistRepository.clearPendingByFitnessClasses(classesToCancel.values());
+            
+            for (Booking booking : cancelledBookings) {
+                eventBus.publish(BookingEvent::cancelled, booking);
+            }
+            for (FitnessClass fitnessClass : classesToCancel.values()) {
+                eventBus.publish(BookingEvent::classCancelled, fitnessClass);
+            }
         } finally {
-            lock.unlock();
+            for (int i = acquired.size() - 1; i >= 0; i--) {
+                acquired.get(i).unlock();
+            }
         }
     }
 }
\ No newline at end of file
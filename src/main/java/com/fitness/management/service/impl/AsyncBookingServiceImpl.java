@@ -0,0 +1,48 @@
+package com.fitness.management.service.impl;
+
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.model.WaitlistEntry;
+import com.fitness.management.service.AsyncBookingService;
+import com.fitness.management.service.BookingService;
+import com.fitness.management.util.ExecutorUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Runs each request of the wrapped BookingService as its own task, by default on a virtual thread per request
+public class AsyncBookingServiceImpl implements AsyncBookingService {
+    private final BookingService bookingService;
+    private final ExecutorService executor;
+    
+    public AsyncBookingServiceImpl(BookingService bookingService) {
+        this(bookingService, ExecutorUtils.newThreadPerRequestExecutor("booking-request"));
+    }
+    
+    public AsyncBookingServiceImpl(BookingService bookingService, ExecutorService executor) {
+        this.bookingService = bookingService;
+        this.executor = executor;
+    }
+    
+    @Override
+    public CompletableFuture<Booking> bookClassAsync(User user, FitnessClass fitnessClass) {
+        return CompletableFuture.supplyAsync(() -> bookingService.bookClass(user, fitnessClass), executor);
+    }
+    
+    @Override
+    public CompletableFuture<Void> cancelBookingAsync(User user, FitnessClass fitnessClass) {
+        return CompletableFuture.runAsync(() -> bookingService.cancelBooking(user, fitnessClass), executor);
+    }
+    
+    @Override
+    public CompletableFuture<WaitlistEntry> addToWaitlistAsync(User user, FitnessClass fitnessClass) {
+        return CompletableFuture.supplyAsync(() -> bookingService.addToWaitlist(user, fitnessClass), executor);
+    }
+    
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(timeout, unit);
+    }
+}
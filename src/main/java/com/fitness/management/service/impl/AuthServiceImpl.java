@@ -1,8 +1,8 @@
 package com.fitness.management.service.impl;
 
+import com.fitness.management.context.ApplicationContext;
 import com.fitness.management.model.User;
 import com.fitness.management.model.UserType;
-import com.fitness.management.repository.RepositoryFactory;
 import com.fitness.management.repository.UserRepository;
 import com.fitness.management.service.AuthService;
 import com.fitness.management.util.ValidationUtils;
@@ -13,7 +13,11 @@ public class AuthServiceImpl implements AuthService {
     private final UserRepository userRepository;
     
     public AuthServiceImpl() {
-        this.userRepository = RepositoryFactory.createUserRepository();
+        this(ApplicationContext.getDefault().getUserRepository());
+    }
+    
+    public AuthServiceImpl(UserRepository userRepository) {
+        this.userRepository = userRepository;
     }
     
     @Override
@@ -27,8 +31,12 @@ public class AuthServiceImpl implements AuthService {
             throw new IllegalArgumentException("Username already exists: " + username);
         }
         
+        // A concurrent registration may claim the name after the check above, so the save is conditional
         User user = new User(username, password, userType);
-        return userRepository.save(user);
+        if (!userRepository.saveIfUsernameAbsent(user)) {
+            throw new IllegalArgumentException("Username already exists: " + username);
+        }
+        return user;
     }
     
     @Override
@@ -0,0 +1,147 @@
+package com.fitness.management.service.impl;
+
+import com.fitness.management.exception.AdmissionRejectedException;
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.repository.FitnessClassRepository;
+import com.fitness.management.repository.WaitlistRepository;
+import com.fitness.management.util.ConcurrentLongMap;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+// Per-class admission in front of bookClass. Once the seats taken, the pending waitlist and the requests already
+// admitted together reach capacity plus the waitlist cap, further requests are turned away before they take a lock.
+// Seats and waitlist entries are read from the repositories, so cancellations, archiving and other service instances
+// are always accounted for; the gate itself only counts admitted requests whose seat or waitlist entry is not in the
+// repositories yet. Admitted requests can queue on a fair per-class lock, so they reach the class lock one at a time
+// in arrival order.
+final class BookingAdmission {
+    private final boolean enabled;
+    private final int waitlistCap;
+    private final WaitlistRepository waitlistRepository;
+    private final FitnessClassRepository fitnessClassRepository;
+    // Only classes with requests in progress have a gate
+    private final ConcurrentLongMap<ClassGate> gates = new ConcurrentLongMap<>();
+    
+    BookingAdmission(boolean enabled, int waitlistCap, WaitlistRepository waitlistRepository,
+                     FitnessClassRepository fitnessClassRepository) {
+        if (waitlistCap < 0) {
+            throw new IllegalArgumentException("Waitlist cap must not be negative: " + waitlistCap);
+        }
+        this.enabled = enabled;
+        this.waitlistCap = waitlistCap;
+        this.waitlistRepository = waitlistRepository;
+        this.fitnessClassRepository = fitnessClassRepository;
+    }
+    
+    // Configured through fitness.admission.enabled and fitness.admission.waitlistCap
+    static BookingAdmission fromSystemProperties(WaitlistRepository waitlistRepository,
+                                                 FitnessClassRepository fitnessClassRepository) {
+        return new BookingAdmission(Boolean.getBoolean("fitness.admission.enabled"),
+                Integer.getInteger("fitness.admission.waitlistCap", 100), waitlistRepository, fitnessClassRepository);
+    }
+    
+    // Runs the booking once admitted, behind earlier admitted requests for the class when queued is set. The booking
+    // calls Ticket.settled() once its seat or waitlist entry is stored.
+    Booking book(FitnessClass fitnessClass, boolean queued, Function<Ticket, Booking> booking) {
+        if (!enabled) {
+            return booking.apply(Ticket.NONE);
+        }
+        FitnessClass current = fitnessClassRepository.findById(fitnessClass.getId()).orElse(fitnessClass);
+        long room = (long) current.getCapacity() + waitlistCap
+                - current.getCurrentAttendance() - waitlistRepository.countPendingByFitnessClass(current);
+        ClassGate gate = room > 0 ? admit(fitnessClass.getId(), room) : null;
+        if (gate == null) {
+            throw new AdmissionRejectedException("Class is full and its waitlist is closed: " + fitnessClass.getName());
+        }
+        
+        Ticket ticket = new Ticket(gate);
+        try {
+            if (!queued) {
+                return booking.apply(ticket);
+            }
+            gate.queue.lock();
+            try {
+                return booking.apply(ticket);
+            } finally {
+                gate.queue.unlock();
+            }
+        } finally {
+            ticket.settled();
+            leave(gate);
+        }
+    }
+    
+    int gateCount() {
+        return gates.size();
+    }
+    
+    // Null when the unsettled requests already fill the room left
+    private ClassGate admit(long fitnessClassId, long room) {
+        while (true) {
+            ClassGate gate = gates.computeIfAbsent(fitnessClassId, ClassGate::new);
+            int inProgress = gate.inProgress.get();
+            if (inProgress < 0) {
+                // Retired by its last request; the next pass finds or creates its successor
+                continue;
+            }
+            if (!gate.inProgress.compareAndSet(inProgress, inProgress + 1)) {
+                continue;
+            }
+            
+            while (true) {
+                int unsettled = gate.unsettled.get();
+                if (unsettled >= room) {
+                    leave(gate);
+                    return null;
+                }
+                if (gate.unsettled.compareAndSet(unsettled, unsettled + 1)) {
+                    return gate;
+                }
+            }
+        }
+    }
+    
+    // The last request out retires the gate, so the map only holds classes with requests in progress
+    private void leave(ClassGate gate) {
+        if (gate.inProgress.decrementAndGet() == 0 && gate.inProgress.compareAndSet(0, -1)) {
+            gates.remove(gate.fitnessClassId, gate);
+        }
+    }
+    
+    // One admitted request. Once its seat or waitlist entry is stored the repositories count it, so the gate stops.
+    static final class Ticket {
+        // For bookings that skip the gate
+        static final Ticket NONE = new Ticket(null);
+        
+        private final ClassGate gate;
+        // Only touched by the thread running the booking, then by the admitting thread after it returns
+        private boolean settled;
+        
+        private Ticket(ClassGate gate) {
+            this.gate = gate;
+        }
+        
+        void settled() {
+            if (gate != null && !settled) {
+                settled = true;
+                gate.unsettled.decrementAndGet();
+            }
+        }
+    }
+    
+    private static final class ClassGate {
+        private final long fitnessClassId;
+        // Requests between admission and leave, or -1 once retired
+        private final AtomicInteger inProgress = new AtomicInteger();
+        // Admitted requests not yet counted by the repositories
+        private final AtomicInteger unsettled = new AtomicInteger();
+        private final ReentrantLock queue = new ReentrantLock(true);
+        
+        ClassGate(long fitnessClassId) {
+            this.fitnessClassId = fitnessClassId;
+        }
+    }
+}
@@ -1,161 +1,189 @@
 package com.fitness.management.service.impl;
 
-import com.fitness.management.exception.BookingLimitExceededException;
-import com.fitness.management.exception.ClassFullException;
-import com.fitness.management.exception.TimeConflictException;
+import com.fitness.management.context.ApplicationContext;
+import com.fitness.management.event.BookingEventBus;
 import com.fitness.management.model.Booking;
+import com.fitness.management.model.BookingResult;
 import com.fitness.management.model.FitnessClass;
 import com.fitness.management.model.User;
-import com.fitness.management.model.UserType;
 import com.fitness.management.model.WaitlistEntry;
 import com.fitness.management.repository.BookingRepository;
 import com.fitness.management.repository.FitnessClassRepository;
-import com.fitness.management.repository.RepositoryFactory;
 import com.fitness.management.repository.WaitlistRepository;
+import com.fitness.management.repository.WriteScope;
 import com.fitness.management.service.BookingService;
 import com.fitness.management.util.ConcurrencyUtils;
-import com.fitness.management.util.ValidationUtils;
 
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 
-public class BookingServiceImpl implements BookingService {
+public class BookingServiceImpl implements BookingService, AutoCloseable {
     private final BookingRepository bookingRepository;
-    private final WaitlistRepository waitlistRepository;
     private final FitnessClassRepository fitnessClassRepository;
+    private final SeatReservationMode seatReservationMode;
+    private final WaitlistPromoter waitlistPromoter;
+    private final BookingSupport support;
+    private final IdempotencyCache idempotencyCache = IdempotencyCache.fromSystemProperties();
+    private final BookingAdmission admission;
+    
+    // Selects how seats are claimed in bookClass
+    public enum SeatReservationMode {
+        LOCKED,
+        LOCK_FREE
+    }
     
     public BookingServiceImpl() {
-        this.bookingRepository = RepositoryFactory.createBookingRepository();
-        this.waitlistRepository = RepositoryFactory.createWaitlistRepository();
-        this.fitnessClassRepository = RepositoryFactory.createFitnessClassRepository();
+        this(SeatReservationMode.LOCKED);
+    }
+    
+    public BookingServiceImpl(SeatReservationMode seatReservationMode) {
+        this(ApplicationContext.getDefault().getBookingRepository(),
+                ApplicationContext.getDefault().getWaitlistRepository(),
+                ApplicationContext.getDefault().getFitnessClassRepository(),
+                seatReservationMode);
+    }
+    
+    public BookingServiceImpl(BookingRepository bookingRepository, WaitlistRepository waitlistRepository,
+                              FitnessClassRepository fitnessClassRepository, SeatReservationMode seatReservationMode) {
+        this(bookingRepository, waitlistRepository, fitnessClassRepository, seatReservationMode,
+                ApplicationContext.getDefault().getEventBus());
+    }
+    
+    public BookingServiceImpl(BookingRepository bookingRepository, WaitlistRepository waitlistRepository,
+                              FitnessClassRepository fitnessClassRepository, SeatReservationMode seatReservationMode,
+                              BookingEventBus eventBus) {
+        this.bookingRepository = bookingRepository;
+        this.fitnessClassRepository = fitnessClassRepository;
+        this.seatReservationMode = seatReservationMode;
+        this.admission = BookingAdmission.fromSystemProperties(waitlistRepository, fitnessClassRepository);
+        this.waitlistPromoter = new WaitlistPromoter(waitlistRepository,
+                (user, fitnessClass) -> WriteScope.run(() -> bookClass(user, fitnessClass, false, BookingAdmission.Ticket.NONE)));
+        this.support = new BookingSupport(bookingRepository, waitlistRepository, fitnessClassRepository, eventBus,
+                waitlistPromoter);
     }
     
+    // Public write operations wait for durable repositories only after every lock they took is released
     @Override
     public Booking bookClass(User user, FitnessClass fitnessClass) {
+        // Lock-free bookings have no class lock to queue for
+        return WriteScope.run(() -> admission.book(fitnessClass, seatReservationMode == SeatReservationMode.LOCKED,
+                ticket -> bookClass(user, fitnessClass, true, ticket)));
+    }
+    
+    @Override
+    public Booking bookClass(User user, FitnessClass fitnessClass, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return bookClass(user, fitnessClass);
+        }
+        return idempotencyCache.execute(idempotencyKey, user, fitnessClass, () -> bookClass(user, fitnessClass));
+    }
+    
+    // Waitlist promotions book without re-queueing the user when the seat is gone again
+    private Booking bookClass(User user, FitnessClass fitnessClass, boolean waitlistWhenFull,
+                              BookingAdmission.Ticket ticket) {
+        if (seatReservationMode == SeatReservationMode.LOCK_FREE) {
+            return bookClassLockFree(user, fitnessClass, waitlistWhenFull, ticket);
+        }
+        
         Lock lock = ConcurrencyUtils.getLockForFitnessClass(fitnessClass);
         
         try {
             lock.lock();
             
-            // Check if class is cancelled
-            if (fitnessClass.isCancelled()) {
-                throw new IllegalStateException("Cannot book a cancelled class");
-            }
-            
-            // Check if user has already booked this class
-            Optional<Booking> existingBooking = bookingRepository.findByUserAndFitnessClass(user, fitnessClass);
-            if (existingBooking.isPresent() && !existingBooking.get().isCancelled()) {
-                throw new IllegalStateException("User has already booked this class");
-            }
-            
-            // Check booking limit for user - using the new hasReachedBookingLimit method
-            if (user.hasReachedBookingLimit()) {
-                throw new BookingLimitExceededException("User has reached the booking limit of " + user.getBookingLimit());
-            }
-            
-            // Check for time conflicts
-            List<Booking> userBookings = bookingRepository.findByUser(user);
-            for (Booking booking : userBookings) {
-                if (!booking.isCancelled() && booking.getFitnessClass().hasTimeConflict(fitnessClass)) {
-                    throw new TimeConflictException("Time conflict with existing booking: " + booking.getFitnessClass().getName());
-                }
-            }
+            support.validateBooking(user, fitnessClass);
             
-            // Reload fitness class to get the most up-to-date state
-            Optional<FitnessClass> refreshedClassOpt = fitnessClassRepository.findById(fitnessClass.getId());
-            FitnessClass refreshedClass = refreshedClassOpt.orElse(fitnessClass);
+            FitnessClass refreshedClass = support.refresh(fitnessClass);
             
             // Check if class is full - using the refreshed class data
-            if (refreshedClass.getCurrentAttendance() >= refreshedClass.getCapacity()) {
-                WaitlistEntry waitlistEntry = addToWaitlist(user, refreshedClass);
-                System.out.println("Class is full. User added to waitlist position: " + waitlistEntry.getId());
-                throw new ClassFullException("Class is full: " + refreshedClass.getName() + ". You have been added to the waitlist.");
+            if (refreshedClass.getCurrentAttendance() >= refreshedClass.getCapacity()
+                    || !fitnessClassRepository.reserveSpot(refreshedClass)) {
+                throw support.classFull(user, refreshedClass, waitlistWhenFull, ticket);
             }
+            ticket.settled();
             
-            // Create and save booking
+            // Create and save booking, giving the seat back if that fails
             Booking booking = new Booking(user, refreshedClass);
-            Booking savedBooking = bookingRepository.save(booking);
+            Booking savedBooking;
+            try {
+                savedBooking = bookingRepository.save(booking);
+            } catch (RuntimeException e) {
+                fitnessClassRepository.releaseSpot(refreshedClass);
+                throw e;
+            }
             
             // Update the fitness class in the repository
-            refreshedClass.incrementCurrentAttendance();
             fitnessClassRepository.save(refreshedClass);
             
             // Increment user's active bookings count
             user.incrementActiveBookings();
             
+            support.publishBooked(savedBooking, waitlistWhenFull);
             return savedBooking;
         } finally {
             lock.unlock();
         }
     }
     
-    @Override
-    public void cancelBooking(User user, FitnessClass fitnessClass) {
-        Lock lock = ConcurrencyUtils.getLockForFitnessClass(fitnessClass);
+    private Booking bookClassLockFree(User user, FitnessClass fitnessClass, boolean waitlistWhenFull,
+                                      BookingAdmission.Ticket ticket) {
+        // Claims one of the user's booking slots, then a seat, each with a CAS loop
+        Booking booking = support.reserve(user, support.refresh(fitnessClass), waitlistWhenFull, ticket);
         
+        // The seat is ours, so the booking record can be written
         try {
-            lock.lock();
-            
-            // Find the user's booking for this class
-            Optional<Booking> bookingOpt = bookingRepository.findByUserAndFitnessClass(user, fitnessClass);
-            
-            if (bookingOpt.isEmpty()) {
-                throw new IllegalStateException("No booking found for user and class");
-            }
-            
-            Booking booking = bookingOpt.get();
+            Booking savedBooking = bookingRepository.save(booking);
             
-            // If booking is already cancelled, notify and return
-            if (booking.isCancelled()) {
-                System.out.println("Booking was already cancelled");
-                return;
+            // A concurrent request for the same user and class may have won the race
+            Optional<Booking> recordedBooking = bookingRepository.findByUserAndFitnessClass(user, booking.getFitnessClass());
+            if (recordedBooking.isPresent() && recordedBooking.get().getId() != savedBooking.getId()
+                    && !recordedBooking.get().isCancelled()) {
+                booking.setCancelled(true);
+                bookingRepository.save(booking);
+                throw new IllegalStateException("User has already booked this class");
             }
             
-            // Check if the user is an admin or if it's more than 30 minutes before the class starts
-            boolean isAdmin = user.getUserType() == UserType.ADMIN;
-            LocalDateTime now = LocalDateTime.now();
-            LocalDateTime classStartTime = fitnessClass.getStartTime();
-            long minutesUntilClass = now.until(classStartTime, ChronoUnit.MINUTES);
-            
-            if (!isAdmin && minutesUntilClass < 30) {
-                throw new IllegalStateException("Bookings can only be cancelled at least 30 minutes before the class starts");
+            fitnessClassRepository.save(booking.getFitnessClass());
+            support.publishBooked(savedBooking, waitlistWhenFull);
+            return savedBooking;
+        } catch (RuntimeException e) {
+            support.release(booking);
+            throw e;
+        }
+    }
+    
+    @Override
+    public List<BookingResult> bookAll(List<User> users, FitnessClass fitnessClass) {
+        return WriteScope.run(() -> {
+            Lock lock = ConcurrencyUtils.getLockForFitnessClass(fitnessClass);
+            lock.lock();
+            try {
+                return support.bookAll(users, fitnessClass);
+            } finally {
+                lock.unlock();
             }
-            
-            // Mark booking as cancelled
-            booking.setCancelled(true);
-            bookingRepository.save(booking);
-            
-            Optional<FitnessClass> refreshedClassOpt = fitnessClassRepository.findById(fitnessClass.getId());
-            FitnessClass refreshedClass = refreshedClassOpt.orElse(fitnessClass);
-            
-            refreshedClass.decrementCurrentAttendance();
-            fitnessClassRepository.save(refreshedClass);
-            
-            User bookingUser = booking.getUser();
-            
-            bookingUser.decrementActiveBookings();
-            
-            Optional<WaitlistEntry> nextInLine = waitlistRepository.findFirstByFitnessClass(refreshedClass);
-            if (nextInLine.isPresent()) {
-                WaitlistEntry entry = nextInLine.get();
-                entry.setProcessed(true);
-                waitlistRepository.save(entry);
-                
-                try {
-                    lock.unlock();
-                    bookClass(entry.getUser(), refreshedClass);
-                    System.out.println("Successfully booked class for waitlisted user: " + entry.getUser().getUsername());
-                } catch (Exception e) {
-                    System.out.println("Failed to automatically book for waitlisted user: " + e.getMessage());
-                    lock.lock();
-                }
+        });
+    }
+    
+    @Override
+    public List<BookingResult> bookSeries(User user, List<FitnessClass> fitnessClasses) {
+        return WriteScope.run(() -> ConcurrencyUtils.withLocksForFitnessClasses(fitnessClasses,
+                () -> support.bookSeries(user, fitnessClasses)));
+    }
+    
+    @Override
+    public void cancelBooking(User user, FitnessClass fitnessClass) {
+        WriteScope.run(() -> {
+            Lock lock = ConcurrencyUtils.getLockForFitnessClass(fitnessClass);
+            lock.lock();
+            try {
+                support.cancel(user, fitnessClass);
+            } finally {
+                lock.unlock();
             }
-        } finally {
-            lock.unlock();
-        }
+        });
     }
     
     @Override
@@ -163,29 +191,23 @@ public class BookingServiceImpl implements BookingService {
         return bookingRepository.findByUser(user);
     }
     
+    @Override
+    public List<Booking> getUserBookingsBetween(User user, LocalDateTime start, LocalDateTime end) {
+        return bookingRepository.findByUserBetween(user, start, end);
+    }
+    
     @Override
     public WaitlistEntry addToWaitlist(User user, FitnessClass fitnessClass) {
-        ValidationUtils.validateCapacity(fitnessClass.getCapacity());
-
-        // Check if class is cancelled
-        if (fitnessClass.isCancelled()) {
-            throw new IllegalStateException("Cannot add to waitlist for a cancelled class");
-        }
-        
-        // Check if user is already on the waitlist
-        Optional<WaitlistEntry> existingEntry = waitlistRepository.findByUserAndFitnessClass(user, fitnessClass);
-        if (existingEntry.isPresent() && !existingEntry.get().isProcessed()) {
-            throw new IllegalStateException("User is already on the waitlist for this class");
-        }
-        
-        // Check if user is already booked
-        Optional<Booking> existingBooking = bookingRepository.findByUserAndFitnessClass(user, fitnessClass);
-        if (existingBooking.isPresent() && !existingBooking.get().isCancelled()) {
-            throw new IllegalStateException("User is already booked for this class");
-        }
-        
-        // Create and save waitlist entry
-        WaitlistEntry entry = new WaitlistEntry(user, fitnessClass);
-        return waitlistRepository.save(entry);
+        return WriteScope.run(() -> support.waitlist(user, fitnessClass));
+    }
+    
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        waitlistPromoter.shutdown(timeout, unit);
+    }
+    
+    // Stops the promoter once its queued promotions have run, without waiting for them
+    @Override
+    public void close() {
+        waitlistPromoter.close();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,94 @@
+package com.fitness.management.service.impl;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// One worker thread draining its own request queue. Everything for the classes hashed to a shard runs here,
+// one request at a time, so that state never needs a lock.
+class BookingShard implements Runnable {
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    
+    private final BlockingQueue<Runnable> requests = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+    
+    BookingShard(int index) {
+        this.thread = new Thread(this, "booking-shard-" + index);
+        this.thread.setDaemon(true);
+    }
+    
+    void start() {
+        thread.start();
+    }
+    
+    <T> T call(Supplier<T> request) {
+        // Requests issued from the shard's own thread would wait on themselves
+        if (Thread.currentThread() == thread) {
+            return request.get();
+        }
+        
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable task = () -> {
+            try {
+                result.complete(request.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        };
+        enqueue(task);
+        
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+    
+    void stop() {
+        running = false;
+    }
+    
+    void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        stop();
+        thread.join(unit.toMillis(timeout));
+    }
+    
+    int getQueueLength() {
+        return requests.size();
+    }
+    
+    @Override
+    public void run() {
+        while (running || !requests.isEmpty()) {
+            try {
+                Runnable request = requests.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (request != null) {
+                    request.run();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    private void enqueue(Runnable task) {
+        requests.add(task);
+        // A request that lands after the worker stopped would never run
+        if (!running && requests.remove(task)) {
+            throw new RejectedExecutionException("Booking shard " + thread.getName() + " is shut down");
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.fitness.management.service.impl;
+
+import com.fitness.management.event.BookingEvent;
+import com.fitness.management.event.BookingEventBus;
+import com.fitness.management.exception.BookingLimitExceededException;
+import com.fitness.management.exception.ClassFullException;
+import com.fitness.management.exception.TimeConflictException;
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.BookingResult;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.model.UserType;
+import com.fitness.management.model.WaitlistEntry;
+import com.fitness.management.repository.BookingRepository;
+import com.fitness.management.repository.FitnessClassRepository;
+import com.fitness.management.repository.WaitlistRepository;
+import com.fitness.management.util.ValidationUtils;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+// Booking rules and writes shared by BookingServiceImpl and ShardedBookingServiceImpl. The services decide how a
+// class's writes are serialized; every method here expects the caller to hold the lock of each class it touches.
+final class BookingSupport {
+    private final BookingRepository bookingRepository;
+    private final WaitlistRepository waitlistRepository;
+    private final FitnessClassRepository fitnessClassRepository;
+    private final BookingEventBus eventBus;
+    private final WaitlistPromoter waitlistPromoter;
+    
+    BookingSupport(BookingRepository bookingRepository, WaitlistRepository waitlistRepository,
+                   FitnessClassRepository fitnessClassRepository, BookingEventBus eventBus,
+                   WaitlistPromoter waitlistPromoter) {
+        this.bookingRepository = bookingRepository;
+        this.waitlistRepository = waitlistRepository;
+        this.fitnessClassRepository = fitnessClassRepository;
+        this.eventBus = eventBus;
+        this.waitlistPromoter = waitlistPromoter;
+    }
+    
+    // Reload fitness class to get the most up-to-date state
+    FitnessClass refresh(FitnessClass fitnessClass) {
+        return fitnessClassRepository.findById(fitnessClass.getId()).orElse(fitnessClass);
+    }
+    
+    void validateBooking(User user, FitnessClass fitnessClass) {
+        // Check if class is cancelled
+        if (fitnessClass.isCancelled()) {
+            throw new IllegalStateException("Cannot book a cancelled class");
+        }
+        
+        // Check if user has already booked this class
+        Optional<Booking> existingBooking = bookingRepository.findByUserAndFitnessClass(user, fitnessClass);
+        if (existingBooking.isPresent() && !existingBooking.get().isCancelled()) {
+            throw new IllegalStateException("User has already booked this class");
+        }
+        
+        // Check booking limit for user - using the new hasReachedBookingLimit method
+        if (user.hasReachedBookingLimit()) {
+            throw new BookingLimitExceededException("User has reached the booking limit of " + user.getBookingLimit());
+        }
+        
+        // Check for time conflicts
+        Optional<Booking> conflictingBooking = bookingRepository.findConflictingBooking(user, fitnessClass);
+        if (conflictingBooking.isPresent()) {
+            throw new TimeConflictException("Time conflict with existing booking: " + conflictingBooking.get().getFitnessClass().getName());
+        }
+    }
+    
+    // Validates the booking and claims the user's slot and a seat, each with a CAS loop; the caller saves the booking
+    Booking reserve(User user, FitnessClass refreshedClass, boolean waitlistWhenFull, BookingAdmission.Ticket ticket) {
+        validateBooking(user, refreshedClass);
+        
+        if (!user.tryIncrementActiveBookings()) {
+            throw new BookingLimitExceededException("User has reached the booking limit of " + user.getBookingLimit());
+        }
+        
+        if (!fitnessClassRepository.reserveSpot(refreshedClass)) {
+            user.decrementActiveBookings();
+            throw classFull(user, refreshedClass, waitlistWhenFull, ticket);
+        }
+        ticket.settled();
+        
+        return new Booking(user, refreshedClass);
+    }
+    
+    // Gives back the seat and the user's slot claimed by reserve
+    void release(Booking booking) {
+        fitnessClassRepository.releaseSpot(booking.getFitnessClass());
+        booking.getUser().decrementActiveBookings();
+    }
+    
+    // Waitlist promotions book without re-queueing the user when the seat is gone again
+    ClassFullException classFull(User user, FitnessClass refreshedClass, boolean waitlistWhenFull,
+                                 BookingAdmission.Ticket ticket) {
+        if (!waitlistWhenFull) {
+            return new ClassFullException("Class is full: " + refreshedClass.getName());
+        }
+        waitlist(user, refreshedClass);
+        ticket.settled();
+        return new ClassFullException("Class is full: " + refreshedClass.getName() + ". You have been added to the waitlist.");
+    }
+    
+    // Only waitlist promotions book without falling back to the waitlist
+    void publishBooked(Booking booking, boolean waitlistWhenFull) {
+        eventBus.publish(waitlistWhenFull ? BookingEvent::booked : BookingEvent::promoted, booking);
+    }
+    
+    List<BookingResult> bookAll(List<User> users, FitnessClass fitnessClass) {
+        BookingResult[] results = new BookingResult[users.size()];
+        List<Booking> pendingBookings = new ArrayList<>();
+        List<Integer> pendingIndexes = new ArrayList<>();
+        FitnessClass refreshedClass = refresh(fitnessClass);
+        Set<Long> batchUserIds = new HashSet<>();
+        
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            try {
+                if (!batchUserIds.add(user.getId())) {
+                    throw new IllegalStateException("User has already booked this class");
+                }
+                pendingBookings.add(reserve(user, refreshedClass, true, BookingAdmission.Ticket.NONE));
+                pendingIndexes.add(i);
+            } catch (RuntimeException e) {
+                results[i] = BookingResult.failure(user, refreshedClass, e);
+            }
+        }
+        
+        saveBatch(pendingBookings, pendingIndexes, results);
+        fitnessClassRepository.save(refreshedClass);
+        return Arrays.asList(results);
+    }
+    
+    List<BookingResult> bookSeries(User user, List<FitnessClass> fitnessClasses) {
+        BookingResult[] results = new BookingResult[fitnessClasses.size()];
+        List<Booking> pendingBookings = new ArrayList<>();
+        List<Integer> pendingIndexes = new ArrayList<>();
+        Set<Long> batchClassIds = new HashSet<>();
+        List<FitnessClass> refreshedClasses = new ArrayList<>();
+        
+        for (int i = 0; i < fitnessClasses.size(); i++) {
+            FitnessClass fitnessClass = fitnessClasses.get(i);
+            try {
+                if (!batchClassIds.add(fitnessClass.getId())) {
+                    throw new IllegalStateException("User has already booked this class");
+                }
+                
+                FitnessClass refreshedClass = refresh(fitnessClass);
+                
+                // Classes accepted earlier in this series are not saved yet, so check them here
+                for (Booking pending : pendingBookings) {
+                    if (pending.getFitnessClass().hasTimeConflict(refreshedClass)) {
+                        throw new TimeConflictException("Time conflict with existing booking: " + pending.getFitnessClass().getName());
+                    }
+                }
+                
+                pendingBookings.add(reserve(user, refreshedClass, true, BookingAdmission.Ticket.NONE));
+                pendingIndexes.add(i);
+                refreshedClasses.add(refreshedClass);
+            } catch (RuntimeException e) {
+                results[i] = BookingResult.failure(user, fitnessClass, e);
+            }
+        }
+        
+        saveBatch(pendingBookings, pendingIndexes, results);
+        for (FitnessClass refreshedClass : refreshedClasses) {
+            fitnessClassRepository.save(refreshedClass);
+        }
+        return Arrays.asList(results);
+    }
+    
+    void cancel(User user, FitnessClass fitnessClass) {
+        // Find the user's booking for this class
+        Optional<Booking> bookingOpt = bookingRepository.findByUserAndFitnessClass(user, fitnessClass);
+        
+        if (bookingOpt.isEmpty()) {
+            throw new IllegalStateException("No booking found for user and class");
+        }
+        
+        Booking booking = bookingOpt.get();
+        
+        // If booking is already cancelled, there is nothing left to do
+        if (booking.isCancelled()) {
+            return;
+        }
+        
+        // Check if the user is an admin or if it's more than 30 minutes before the class starts
+        boolean isAdmin = user.getUserType() == UserType.ADMIN;
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime classStartTime = fitnessClass.getStartTime();
+        long minutesUntilClass = now.until(classStartTime, ChronoUnit.MINUTES);
+        
+        if (!isAdmin && minutesUntilClass < 30) {
+            throw new IllegalStateException("Bookings can only be cancelled at least 30 minutes before the class starts");
+        }
+        
+        // Mark booking as cancelled
+        booking.setCancelled(true);
+        bookingRepository.save(booking);
+        
+        FitnessClass refreshedClass = refresh(fitnessClass);
+        fitnessClassRepository.releaseSpot(refreshedClass);
+        fitnessClassRepository.save(refreshedClass);
+        
+        booking.getUser().decrementActiveBookings();
+        eventBus.publish(BookingEvent::cancelled, booking);
+        
+        // The freed seat goes to the waitlist asynchronously
+        waitlistPromoter.schedule(refreshedClass);
+    }
+    
+    WaitlistEntry waitlist(User user, FitnessClass fitnessClass) {
+        ValidationUtils.validateCapacity(fitnessClass.getCapacity());
+        
+        // Check if class is cancelled
+        if (fitnessClass.isCancelled()) {
+            throw new IllegalStateException("Cannot add to waitlist for a cancelled class");
+        }
+        
+        // Check if user is already on the waitlist
+        Optional<WaitlistEntry> existingEntry = waitlistRepository.findByUserAndFitnessClass(user, fitnessClass);
+        if (existingEntry.isPresent() && !existingEntry.get().isProcessed()) {
+            throw new IllegalStateException("User is already on the waitlist for this class");
+        }
+        
+        // Check if user is already booked
+        Optional<Booking> existingBooking = bookingRepository.findByUserAndFitnessClass(user, fitnessClass);
+        if (existingBooking.isPresent() && !existingBooking.get().isCancelled()) {
+            throw new IllegalStateException("User is already booked for this class");
+        }
+        
+        // Create and save waitlist entry
+        WaitlistEntry entry = waitlistRepository.save(new WaitlistEntry(user, fitnessClass));
+        eventBus.publish(BookingEvent::waitlisted, entry);
+        return entry;
+    }
+    
+    // Books the batch with one saveAll, giving back every seat and slot if that fails
+    private void saveBatch(List<Booking> pendingBookings, List<Integer> pendingIndexes, BookingResult[] results) {
+        try {
+            bookingRepository.saveAll(pendingBookings);
+            for (int i = 0; i < pendingBookings.size(); i++) {
+                results[pendingIndexes.get(i)] = BookingResult.success(pendingBookings.get(i));
+                eventBus.publish(BookingEvent::booked, pendingBookings.get(i));
+            }
+        } catch (RuntimeException e) {
+            for (int i = 0; i < pendingBookings.size(); i++) {
+                Booking booking = pendingBookings.get(i);
+                release(booking);
+                results[pendingIndexes.get(i)] = BookingResult.failure(booking.getUser(), booking.getFitnessClass(), e);
+            }
+        }
+    }
+}
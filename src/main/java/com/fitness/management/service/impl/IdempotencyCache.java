@@ -0,0 +1,185 @@
+package com.fitness.management.service.impl;
+
+import com.fitness.management.exception.AdmissionRejectedException;
+import com.fitness.management.exception.BookingLimitExceededException;
+import com.fitness.management.exception.ClassFullException;
+import com.fitness.management.exception.TimeConflictException;
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+// Outcome of each keyed booking request, kept for a fixed time after it completes and bounded in size. A retry with
+// the same key gets the original Booking or exception back, and a retry racing the first attempt waits for it, so
+// neither takes a class lock or touches a repository. Requests still running are held apart from completed outcomes
+// and are never evicted; only outcomes a retry would get again are kept once the request completes. Entries are split
+// over independently locked segments, each keeping completed outcomes in completion order so the eldest entry is also
+// the first to expire.
+final class IdempotencyCache {
+    private static final int SEGMENT_COUNT = 16;
+    
+    private final Segment[] segments;
+    private final long ttlNanos;
+    
+    IdempotencyCache(int maximumSize, int maximumInFlight, Duration ttl) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Idempotency cache size must be positive: " + maximumSize);
+        }
+        if (maximumInFlight <= 0) {
+            throw new IllegalArgumentException("Idempotent requests in flight must be positive: " + maximumInFlight);
+        }
+        if (ttl.isZero() || ttl.isNegative()) {
+            throw new IllegalArgumentException("Idempotency key TTL must be positive: " + ttl);
+        }
+        this.ttlNanos = ttl.toNanos();
+        int segmentSize = Math.max(1, (maximumSize + SEGMENT_COUNT - 1) / SEGMENT_COUNT);
+        int segmentInFlight = Math.max(1, (maximumInFlight + SEGMENT_COUNT - 1) / SEGMENT_COUNT);
+        this.segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(segmentSize, segmentInFlight);
+        }
+    }
+    
+    // Configured through fitness.idempotency.maximumKeys, fitness.idempotency.maximumInFlight and
+    // fitness.idempotency.ttlSeconds
+    static IdempotencyCache fromSystemProperties() {
+        return new IdempotencyCache(Integer.getInteger("fitness.idempotency.maximumKeys", 100_000),
+                Integer.getInteger("fitness.idempotency.maximumInFlight", 10_000),
+                Duration.ofSeconds(Long.getLong("fitness.idempotency.ttlSeconds", 24 * 60 * 60)));
+    }
+    
+    Booking execute(String idempotencyKey, User user, FitnessClass fitnessClass, Supplier<Booking> request) {
+        Segment segment = segmentFor(idempotencyKey);
+        Entry entry;
+        boolean firstAttempt = false;
+        synchronized (segment) {
+            entry = segment.inFlight.get(idempotencyKey);
+            if (entry == null) {
+                entry = segment.completed.get(idempotencyKey);
+                if (entry != null && entry.expiresAtNanos - System.nanoTime() <= 0) {
+                    segment.completed.remove(idempotencyKey);
+                    entry = null;
+                }
+            }
+            if (entry == null) {
+                if (segment.inFlight.size() >= segment.maximumInFlight) {
+                    throw new IllegalStateException("Too many idempotent booking requests in progress");
+                }
+                entry = new Entry(user.getId(), fitnessClass.getId());
+                segment.inFlight.put(idempotencyKey, entry);
+                firstAttempt = true;
+            }
+        }
+        
+        if (entry.userId != user.getId() || entry.fitnessClassId != fitnessClass.getId()) {
+            throw new IllegalArgumentException("Idempotency key " + idempotencyKey + " was already used for another booking request");
+        }
+        if (!firstAttempt) {
+            return replay(entry.result);
+        }
+        
+        try {
+            Booking booking = request.get();
+            complete(segment, idempotencyKey, entry, true);
+            entry.result.complete(booking);
+            return booking;
+        } catch (RuntimeException | Error e) {
+            // Requests already waiting still get this outcome; later retries only get it when it is kept
+            complete(segment, idempotencyKey, entry, isRepeatable(e));
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+    
+    private void complete(Segment segment, String idempotencyKey, Entry entry, boolean keep) {
+        synchronized (segment) {
+            segment.inFlight.remove(idempotencyKey);
+            if (keep) {
+                entry.expiresAtNanos = System.nanoTime() + ttlNanos;
+                segment.completed.remove(idempotencyKey);
+                segment.completed.put(idempotencyKey, entry);
+            }
+        }
+    }
+    
+    // Business outcomes a retry would run into again. Admission rejections, storage failures and anything else
+    // unexpected can clear up, so a retry runs the request afresh.
+    private static boolean isRepeatable(Throwable failure) {
+        if (failure instanceof AdmissionRejectedException) {
+            return false;
+        }
+        return failure instanceof ClassFullException
+                || failure instanceof BookingLimitExceededException
+                || failure instanceof TimeConflictException
+                || failure instanceof IllegalStateException
+                || failure instanceof IllegalArgumentException;
+    }
+    
+    private static Booking replay(CompletableFuture<Booking> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            // Rethrow the original exception rather than the wrapper
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+    
+    private Segment segmentFor(String idempotencyKey) {
+        int hash = idempotencyKey.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[hash & (SEGMENT_COUNT - 1)];
+    }
+    
+    private static final class Entry {
+        final long userId;
+        final long fitnessClassId;
+        // Set under the segment lock once the outcome is kept
+        long expiresAtNanos;
+        final CompletableFuture<Booking> result = new CompletableFuture<>();
+        
+        Entry(long userId, long fitnessClassId) {
+            this.userId = userId;
+            this.fitnessClassId = fitnessClassId;
+        }
+    }
+    
+    private static final class Segment {
+        private final int maximumInFlight;
+        // Requests still running; bounded on their own and never evicted
+        private final Map<String, Entry> inFlight = new HashMap<>();
+        private final CompletedEntries completed;
+        
+        Segment(int maximumSize, int maximumInFlight) {
+            this.maximumInFlight = maximumInFlight;
+            this.completed = new CompletedEntries(maximumSize);
+        }
+    }
+    
+    private static final class CompletedEntries extends LinkedHashMap<String, Entry> {
+        private final int maximumSize;
+        
+        CompletedEntries(int maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+        
+        // Drops the eldest entry once it has expired or the segment is over its size
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maximumSize || eldest.getValue().expiresAtNanos - System.nanoTime() <= 0;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.fitness.management.service.impl;
+
+import com.fitness.management.context.ApplicationContext;
+import com.fitness.management.event.BookingEventBus;
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.BookingResult;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.model.WaitlistEntry;
+import com.fitness.management.repository.BookingRepository;
+import com.fitness.management.repository.FitnessClassRepository;
+import com.fitness.management.repository.WaitlistRepository;
+import com.fitness.management.repository.WriteScope;
+import com.fitness.management.service.BookingService;
+import com.fitness.management.util.ConcurrencyUtils;
+import com.fitness.management.util.IdUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+
+// Classes are hashed to a fixed number of shards, each owned by a single worker thread. Writes for a class run on
+// its shard, so booking, cancelling and waitlisting for that class are serialized by the shard's queue rather than by
+// contending for the class lock. A series spans shards, so it is booked on the caller under the locks of all its
+// classes, which shard work holds too. State shared across shards (a user's booking count) is claimed with CAS.
+public class ShardedBookingServiceImpl implements BookingService, AutoCloseable {
+    private final BookingRepository bookingRepository;
+    private final FitnessClassRepository fitnessClassRepository;
+    private final BookingShard[] shards;
+    private final WaitlistPromoter waitlistPromoter;
+    private final BookingSupport support;
+    private final IdempotencyCache idempotencyCache = IdempotencyCache.fromSystemProperties();
+    private final BookingAdmission admission;
+    
+    public ShardedBookingServiceImpl() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+    
+    public ShardedBookingServiceImpl(int shardCount) {
+        this(ApplicationContext.getDefault().getBookingRepository(),
+                ApplicationContext.getDefault().getWaitlistRepository(),
+                ApplicationContext.getDefault().getFitnessClassRepository(),
+                shardCount);
+    }
+    
+    public ShardedBookingServiceImpl(BookingRepository bookingRepository, WaitlistRepository waitlistRepository,
+                                     FitnessClassRepository fitnessClassRepository, int shardCount) {
+        this(bookingRepository, waitlistRepository, fitnessClassRepository, shardCount,
+                ApplicationContext.getDefault().getEventBus());
+    }
+    
+    public ShardedBookingServiceImpl(BookingRepository bookingRepository, WaitlistRepository waitlistRepository,
+                                     FitnessClassRepository fitnessClassRepository, int shardCount,
+                                     BookingEventBus eventBus) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        }
+        this.bookingRepository = bookingRepository;
+        this.fitnessClassRepository = fitnessClassRepository;
+        this.shards = new BookingShard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new BookingShard(i);
+            shards[i].start();
+        }
+        this.admission = BookingAdmission.fromSystemProperties(waitlistRepository, fitnessClassRepository);
+        this.waitlistPromoter = new WaitlistPromoter(waitlistRepository,
+                (user, fitnessClass) -> onShard(fitnessClass, () -> book(user, fitnessClass, false, BookingAdmission.Ticket.NONE)));
+        this.support = new BookingSupport(bookingRepository, waitlistRepository, fitnessClassRepository, eventBus,
+                waitlistPromoter);
+    }
+    
+    @Override
+    public Booking bookClass(User user, FitnessClass fitnessClass) {
+        // The shard's queue already runs admitted requests in arrival order
+        return admission.book(fitnessClass, false,
+                ticket -> onShard(fitnessClass, () -> book(user, fitnessClass, true, ticket)));
+    }
+    
+    // Replays are answered on the calling thread without queueing on the shard
+    @Override
+    public Booking bookClass(User user, FitnessClass fitnessClass, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return bookClass(user, fitnessClass);
+        }
+        return idempotencyCache.execute(idempotencyKey, user, fitnessClass, () -> bookClass(user, fitnessClass));
+    }
+    
+    @Override
+    public List<BookingResult> bookAll(List<User> users, FitnessClass fitnessClass) {
+        return onShard(fitnessClass, () -> support.bookAll(users, fitnessClass));
+    }
+    
+    // The classes of a series can live on different shards, so the series is booked here under all of their locks
+    // and saved in one batch
+    @Override
+    public List<BookingResult> bookSeries(User user, List<FitnessClass> fitnessClasses) {
+        return WriteScope.run(() -> ConcurrencyUtils.withLocksForFitnessClasses(fitnessClasses,
+                () -> support.bookSeries(user, fitnessClasses)));
+    }
+    
+    @Override
+    public void cancelBooking(User user, FitnessClass fitnessClass) {
+        onShard(fitnessClass, () -> {
+            support.cancel(user, fitnessClass);
+            return null;
+        });
+    }
+    
+    @Override
+    public List<Booking> getUserBookings(User user) {
+        return bookingRepository.findByUser(user);
+    }
+    
+    @Override
+    public List<Booking> getUserBookingsBetween(User user, LocalDateTime start, LocalDateTime end) {
+        return bookingRepository.findByUserBetween(user, start, end);
+    }
+    
+    @Override
+    public WaitlistEntry addToWaitlist(User user, FitnessClass fitnessClass) {
+        return onShard(fitnessClass, () -> support.waitlist(user, fitnessClass));
+    }
+    
+    public int getShardCount() {
+        return shards.length;
+    }
+    
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        waitlistPromoter.shutdown(timeout, unit);
+        for (BookingShard shard : shards) {
+            shard.shutdown(timeout, unit);
+        }
+    }
+    
+    // Stops the promoter and the shard workers once their queued work has run, without waiting for them
+    @Override
+    public void close() {
+        waitlistPromoter.close();
+        for (BookingShard shard : shards) {
+            shard.stop();
+        }
+    }
+    
+    // Admin cancellations and the tiered archiver change classes under the class lock rather than on a shard, so
+    // shard work holds the class's lock as well. Only those rare writers ever contend for it here. The writes join
+    // the caller's WriteScope, so the caller waits for them to be durable rather than the shard worker.
+    private <T> T onShard(FitnessClass fitnessClass, Supplier<T> request) {
+        return WriteScope.run(() -> {
+            WriteScope scope = WriteScope.current();
+            return shardFor(fitnessClass).call(() -> scope.join(() -> {
+                Lock lock = ConcurrencyUtils.getLockForFitnessClass(fitnessClass);
+                lock.lock();
+                try {
+                    return request.get();
+                } finally {
+                    lock.unlock();
+                }
+            }));
+        });
+    }
+    
+    private BookingShard shardFor(FitnessClass fitnessClass) {
+        return shards[Math.floorMod(IdUtils.hash(fitnessClass.getId()), shards.length)];
+    }
+    
+    // Runs on the shard that owns the class
+    private Booking book(User user, FitnessClass fitnessClass, boolean waitlistWhenFull, BookingAdmission.Ticket ticket) {
+        Booking booking = support.reserve(user, support.refresh(fitnessClass), waitlistWhenFull, ticket);
+        try {
+            bookingRepository.save(booking);
+        } catch (RuntimeException e) {
+            support.release(booking);
+            throw e;
+        }
+        fitnessClassRepository.save(booking.getFitnessClass());
+        support.publishBooked(booking, waitlistWhenFull);
+        return booking;
+    }
+}
@@ -0,0 +1,101 @@
+package com.fitness.management.service.impl;
+
+import com.fitness.management.exception.BookingLimitExceededException;
+import com.fitness.management.exception.TimeConflictException;
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.model.WaitlistEntry;
+import com.fitness.management.repository.WaitlistRepository;
+import com.fitness.management.util.ConcurrentLongMap;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// Moves waitlisted users into freed seats on a dedicated worker, so cancelling never waits for a promotion
+public class WaitlistPromoter implements AutoCloseable {
+    private static final int DEFAULT_BATCH_SIZE = 32;
+    
+    private final WaitlistRepository waitlistRepository;
+    private final Promotion promotion;
+    private final int batchSize;
+    private final ConcurrentLongMap<Boolean> scheduledClassIds = new ConcurrentLongMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "waitlist-promoter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    public WaitlistPromoter(WaitlistRepository waitlistRepository, Promotion promotion) {
+        this(waitlistRepository, promotion, DEFAULT_BATCH_SIZE);
+    }
+    
+    public WaitlistPromoter(WaitlistRepository waitlistRepository, Promotion promotion, int batchSize) {
+        this.waitlistRepository = waitlistRepository;
+        this.promotion = promotion;
+        this.batchSize = batchSize;
+    }
+    
+    // Several cancellations of the same class before the worker gets to it are drained together. Once the promoter
+    // is shut down nothing is promoted; the entries stay pending.
+    public void schedule(FitnessClass fitnessClass) {
+        if (scheduledClassIds.putIfAbsent(fitnessClass.getId(), Boolean.TRUE) == null) {
+            try {
+                executor.execute(() -> drain(fitnessClass));
+            } catch (RejectedExecutionException e) {
+                scheduledClassIds.remove(fitnessClass.getId());
+            }
+        }
+    }
+    
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(timeout, unit);
+    }
+    
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+    
+    private void drain(FitnessClass fitnessClass) {
+        scheduledClassIds.remove(fitnessClass.getId());
+        
+        for (int promoted = 0; promoted < batchSize; promoted++) {
+            if (fitnessClass.isCancelled() || !fitnessClass.hasAvailableSpots()) {
+                return;
+            }
+            
+            Optional<WaitlistEntry> nextInLine = waitlistRepository.findFirstByFitnessClass(fitnessClass);
+            if (nextInLine.isEmpty()) {
+                return;
+            }
+            
+            WaitlistEntry entry = nextInLine.get();
+            entry.setProcessed(true);
+            waitlistRepository.save(entry);
+            
+            try {
+                promotion.book(entry.getUser(), fitnessClass);
+            } catch (BookingLimitExceededException | TimeConflictException | IllegalStateException e) {
+                // Limits, conflicts and duplicates only disqualify this entry, so move on to the next one
+            } catch (RuntimeException e) {
+                // Someone else took the seat first, or a write failed; the entry keeps its place in the queue
+                entry.setProcessed(false);
+                waitlistRepository.save(entry);
+                return;
+            }
+        }
+        
+        // The batch is used up but seats may remain, so queue another pass behind other classes
+        schedule(fitnessClass);
+    }
+    
+    @FunctionalInterface
+    public interface Promotion {
+        Booking book(User user, FitnessClass fitnessClass);
+    }
+}
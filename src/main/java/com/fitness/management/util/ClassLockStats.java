@@ -0,0 +1,91 @@
+package com.fitness.management.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock profile of one fitness class, collected while lock profiling is on
+public class ClassLockStats {
+    private final long classId;
+    private final String className;
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contendedAcquisitions = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder totalQueueLength = new LongAdder();
+    private final AtomicInteger maxQueueLength = new AtomicInteger();
+    private final LongAdder totalHoldNanos = new LongAdder();
+    private final AtomicLong maxHoldNanos = new AtomicLong();
+    
+    ClassLockStats(long classId, String className) {
+        this.classId = classId;
+        this.className = className;
+    }
+    
+    void recordAcquisition(long waitNanos, int queueLength, boolean contended) {
+        acquisitions.increment();
+        if (contended) {
+            contendedAcquisitions.increment();
+        }
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        totalQueueLength.add(queueLength);
+        maxQueueLength.accumulateAndGet(queueLength, Math::max);
+    }
+    
+    void recordHold(long holdNanos) {
+        totalHoldNanos.add(holdNanos);
+        maxHoldNanos.accumulateAndGet(holdNanos, Math::max);
+    }
+    
+    public long getClassId() {
+        return classId;
+    }
+    
+    public String getClassName() {
+        return className;
+    }
+    
+    public long getAcquisitionCount() {
+        return acquisitions.sum();
+    }
+    
+    public long getContendedAcquisitionCount() {
+        return contendedAcquisitions.sum();
+    }
+    
+    public long getTotalWaitNanos() {
+        return totalWaitNanos.sum();
+    }
+    
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+    
+    public double getAverageQueueLength() {
+        long count = getAcquisitionCount();
+        return count == 0 ? 0.0 : (double) totalQueueLength.sum() / count;
+    }
+    
+    public int getMaxQueueLength() {
+        return maxQueueLength.get();
+    }
+    
+    public long getTotalHoldNanos() {
+        return totalHoldNanos.sum();
+    }
+    
+    public long getMaxHoldNanos() {
+        return maxHoldNanos.get();
+    }
+    
+    @Override
+    public String toString() {
+        return className + " (" + classId + ") acquisitions=" + getAcquisitionCount()
+                + ", contended=" + getContendedAcquisitionCount()
+                + ", totalWaitNanos=" + getTotalWaitNanos()
+                + ", maxWaitNanos=" + getMaxWaitNanos()
+                + ", maxQueueLength=" + getMaxQueueLength()
+                + ", totalHoldNanos=" + getTotalHoldNanos();
+    }
+}
@@ -2,20 +2,169 @@ package com.fitness.management.util;
 
 import com.fitness.management.model.FitnessClass;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 public class ConcurrencyUtils {
     
-    private static final Map<String, Lock> fitnessClassLocks = new ConcurrentHashMap<>();
+    // Fixed set of lock stripes shared by all classes, so memory stays flat however many classes exist
+    private static final LockStripe[] fitnessClassLocks = createStripes(Constants.FITNESS_CLASS_LOCK_STRIPES);
+    
+    // Optional per-class lock profiling, switched on with fitness.locks.profile or setLockProfilingEnabled. Stats are
+    // kept for at most fitness.locks.profile.maxClasses classes; later classes go unprofiled until resetLockProfile.
+    private static volatile boolean lockProfilingEnabled = Boolean.getBoolean("fitness.locks.profile");
+    private static final int maxProfiledClasses = Integer.getInteger("fitness.locks.profile.maxClasses", 10_000);
+    private static final ConcurrentLongMap<ClassLockStats> classLockStats = new ConcurrentLongMap<>();
+    private static final AtomicInteger profiledClassCount = new AtomicInteger();
     
     public static Lock getLockForFitnessClass(FitnessClass fitnessClass) {
-        String classId = fitnessClass.getId();
-        return fitnessClassLocks.computeIfAbsent(classId, k -> new ReentrantLock());
+        LockStripe stripe = fitnessClassLocks[stripeIndex(fitnessClass.getId())];
+        if (!lockProfilingEnabled) {
+            return stripe;
+        }
+        ClassLockStats stats = statsFor(fitnessClass);
+        return stats != null ? new ProfiledClassLock(stripe, stats) : stripe;
+    }
+    
+    // Distinct locks for several classes in stripe order, so callers taking all of them cannot deadlock. While
+    // profiling, a stripe shared by several of the classes charges its wait and hold time to each of them.
+    public static List<Lock> getLocksForFitnessClasses(Collection<FitnessClass> fitnessClasses) {
+        if (!lockProfilingEnabled) {
+            return fitnessClasses.stream()
+                    .map(fitnessClass -> stripeIndex(fitnessClass.getId()))
+                    .distinct()
+                    .sorted()
+                    .map(index -> (Lock) fitnessClassLocks[index])
+                    .collect(Collectors.toList());
+        }
+        
+        Map<Integer, List<ClassLockStats>> statsByStripe = new TreeMap<>();
+        for (FitnessClass fitnessClass : fitnessClasses) {
+            List<ClassLockStats> stripeStats = statsByStripe.computeIfAbsent(stripeIndex(fitnessClass.getId()),
+                    index -> new ArrayList<>());
+            ClassLockStats stats = statsFor(fitnessClass);
+            if (stats != null && !stripeStats.contains(stats)) {
+                stripeStats.add(stats);
+            }
+        }
+        List<Lock> locks = new ArrayList<>(statsByStripe.size());
+        for (Map.Entry<Integer, List<ClassLockStats>> entry : statsByStripe.entrySet()) {
+            LockStripe stripe = fitnessClassLocks[entry.getKey()];
+            List<ClassLockStats> stripeStats = entry.getValue();
+            locks.add(stripeStats.isEmpty() ? stripe
+                    : new ProfiledClassLock(stripe, stripeStats.toArray(new ClassLockStats[0])));
+        }
+        return locks;
+    }
+    
+    // Runs the action holding the locks of every class, released in reverse order
+    public static <T> T withLocksForFitnessClasses(Collection<FitnessClass> fitnessClasses, Supplier<T> action) {
+        List<Lock> locks = getLocksForFitnessClasses(fitnessClasses);
+        List<Lock> acquired = new ArrayList<>(locks.size());
+        try {
+            for (Lock lock : locks) {
+                lock.lock();
+                acquired.add(lock);
+            }
+            return action.get();
+        } finally {
+            for (int i = acquired.size() - 1; i >= 0; i--) {
+                acquired.get(i).unlock();
+            }
+        }
+    }
+    
+    public static List<LockStripe> getLockStripes() {
+        return Collections.unmodifiableList(Arrays.asList(fitnessClassLocks));
+    }
+    
+    public static List<LockStripe> getMostContendedLockStripes(int limit) {
+        return Arrays.stream(fitnessClassLocks)
+                .filter(stripe -> stripe.getContendedAcquisitionCount() > 0)
+                .sorted(Comparator.comparingLong(LockStripe::getContendedAcquisitionCount).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+    
+    public static void setLockProfilingEnabled(boolean enabled) {
+        lockProfilingEnabled = enabled;
+    }
+    
+    public static boolean isLockProfilingEnabled() {
+        return lockProfilingEnabled;
+    }
+    
+    // Classes ranked by the total time requests spent waiting for their lock
+    public static List<ClassLockStats> getMostContendedClasses(int limit) {
+        return classLockStats.values().stream()
+                .filter(stats -> stats.getContendedAcquisitionCount() > 0)
+                .sorted(Comparator.comparingLong(ClassLockStats::getTotalWaitNanos).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+    
+    public static String formatLockProfile(int limit) {
+        StringBuilder report = new StringBuilder(String.format("%-30s %12s %10s %12s %12s %9s %9s %12s %12s%n",
+                "class", "acquisitions", "contended", "avg_wait_us", "max_wait_us", "avg_queue", "max_queue",
+                "avg_hold_us", "max_hold_us"));
+        for (ClassLockStats stats : getMostContendedClasses(limit)) {
+            long acquisitions = Math.max(1, stats.getAcquisitionCount());
+            report.append(String.format("%-30s %12d %10d %12.1f %12.1f %9.2f %9d %12.1f %12.1f%n",
+                    stats.getClassName(), stats.getAcquisitionCount(), stats.getContendedAcquisitionCount(),
+                    stats.getTotalWaitNanos() / 1000.0 / acquisitions, stats.getMaxWaitNanos() / 1000.0,
+                    stats.getAverageQueueLength(), stats.getMaxQueueLength(),
+                    stats.getTotalHoldNanos() / 1000.0 / acquisitions, stats.getMaxHoldNanos() / 1000.0));
+        }
+        return report.toString();
+    }
+    
+    public static void resetLockProfile() {
+        classLockStats.clear();
+        profiledClassCount.set(0);
+    }
+    
+    public static void resetLockStripeStats() {
+        for (LockStripe stripe : fitnessClassLocks) {
+            stripe.resetStats();
+        }
+    }
+    
+    // Null once the profile holds maxProfiledClasses classes
+    private static ClassLockStats statsFor(FitnessClass fitnessClass) {
+        return classLockStats.computeIfAbsent(fitnessClass.getId(), id -> {
+            if (profiledClassCount.incrementAndGet() > maxProfiledClasses) {
+                profiledClassCount.decrementAndGet();
+                return null;
+            }
+            return new ClassLockStats(id, fitnessClass.getName());
+        });
+    }
+    
+    private static int stripeIndex(long classId) {
+        return IdUtils.hash(classId) & (fitnessClassLocks.length - 1);
+    }
+    
+    private static LockStripe[] createStripes(int stripes) {
+        if (Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("Lock stripe count must be a power of two: " + stripes);
+        }
+        LockStripe[] locks = new LockStripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new LockStripe(i);
+        }
+        return locks;
     }
     
     private ConcurrencyUtils() {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,340 @@
+package com.fitness.management.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiFunction;
+import java.util.function.LongFunction;
+
+// Concurrent map from primitive long keys to objects, stored in open-addressing tables (linear probing with
+// backward-shift deletion), so there are no boxed keys or entry nodes. Keys are split over segments; writes lock one
+// segment, reads are optimistic and only fall back to the segment's read lock when they raced a write.
+// Null values are not allowed.
+public class ConcurrentLongMap<V> {
+    private static final int DEFAULT_SEGMENTS = 16;
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+    
+    private final Segment<V>[] segments;
+    private final int segmentMask;
+    
+    public ConcurrentLongMap() {
+        this(DEFAULT_SEGMENTS);
+    }
+    
+    public ConcurrentLongMap(int segmentCount) {
+        if (segmentCount <= 0 || Integer.bitCount(segmentCount) != 1) {
+            throw new IllegalArgumentException("Segment count must be a power of two: " + segmentCount);
+        }
+        this.segments = newSegments(segmentCount);
+        this.segmentMask = segmentCount - 1;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>();
+        }
+    }
+    
+    public V get(long key) {
+        int hash = IdUtils.hash(key);
+        Segment<V> segment = segmentFor(hash);
+        long stamp = segment.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            V value = segment.table.get(key, hash);
+            if (segment.lock.validate(stamp)) {
+                return value;
+            }
+        }
+        stamp = segment.lock.readLock();
+        try {
+            return segment.table.get(key, hash);
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+    
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+    
+    public V put(long key, V value) {
+        requireValue(value);
+        int hash = IdUtils.hash(key);
+        Segment<V> segment = segmentFor(hash);
+        long stamp = segment.lock.writeLock();
+        try {
+            return segment.put(key, hash, value, false);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+    
+    public V putIfAbsent(long key, V value) {
+        requireValue(value);
+        int hash = IdUtils.hash(key);
+        Segment<V> segment = segmentFor(hash);
+        long stamp = segment.lock.writeLock();
+        try {
+            return segment.put(key, hash, value, true);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+    
+    public V remove(long key) {
+        int hash = IdUtils.hash(key);
+        Segment<V> segment = segmentFor(hash);
+        long stamp = segment.lock.writeLock();
+        try {
+            return segment.table.remove(key, hash);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+    
+    // Removes the mapping only while it still points at the given value (compared by identity or equals)
+    public boolean remove(long key, V value) {
+        int hash = IdUtils.hash(key);
+        Segment<V> segment = segmentFor(hash);
+        long stamp = segment.lock.writeLock();
+        try {
+            V current = segment.table.get(key, hash);
+            if (current == null || (current != value && !current.equals(value))) {
+                return false;
+            }
+            segment.table.remove(key, hash);
+            return true;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+    
+    // The mapping function runs under the segment's write lock, so it must be short and must not touch this map
+    public V computeIfAbsent(long key, LongFunction<? extends V> mappingFunction) {
+        V existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        int hash = IdUtils.hash(key);
+        Segment<V> segment = segmentFor(hash);
+        long stamp = segment.lock.writeLock();
+        try {
+            existing = segment.table.get(key, hash);
+            if (existing != null) {
+                return existing;
+            }
+            V created = mappingFunction.apply(key);
+            if (created != null) {
+                segment.put(key, hash, created, false);
+            }
+            return created;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+    
+    // Same locking rules as computeIfAbsent; returning null removes the mapping
+    public V compute(long key, BiFunction<Long, ? super V, ? extends V> remappingFunction) {
+        int hash = IdUtils.hash(key);
+        Segment<V> segment = segmentFor(hash);
+        long stamp = segment.lock.writeLock();
+        try {
+            V existing = segment.table.get(key, hash);
+            V updated = remappingFunction.apply(key, existing);
+            if (updated != null) {
+                segment.put(key, hash, updated, false);
+            } else if (existing != null) {
+                segment.table.remove(key, hash);
+            }
+            return updated;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+    
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                size += segment.table.size;
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+    
+    // Snapshot of the values, consistent per segment
+    public List<V> values() {
+        List<V> values = new ArrayList<>();
+        for (Segment<V> segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                segment.table.collectValues(values);
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return values;
+    }
+    
+    public void clear() {
+        for (Segment<V> segment : segments) {
+            long stamp = segment.lock.writeLock();
+            try {
+                segment.table = new Table<>(INITIAL_SEGMENT_CAPACITY);
+            } finally {
+                segment.lock.unlockWrite(stamp);
+            }
+        }
+    }
+    
+    private Segment<V> segmentFor(int hash) {
+        // The table uses the low bits of the hash, segments the high ones
+        return segments[(hash >>> 24) & segmentMask];
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <V> Segment<V>[] newSegments(int count) {
+        return (Segment<V>[]) new Segment<?>[count];
+    }
+    
+    private static void requireValue(Object value) {
+        if (value == null) {
+            throw new NullPointerException("ConcurrentLongMap does not accept null values");
+        }
+    }
+    
+    private static final class Segment<V> {
+        private final StampedLock lock = new StampedLock();
+        private Table<V> table = new Table<>(INITIAL_SEGMENT_CAPACITY);
+        
+        // Callers hold the write lock
+        V put(long key, int hash, V value, boolean onlyIfAbsent) {
+            V previous = table.put(key, hash, value, onlyIfAbsent);
+            if (previous == null && table.size > table.resizeThreshold) {
+                table = table.resized();
+            }
+            return previous;
+        }
+    }
+    
+    // A slot is free when its value is null. The arrays never change size; growing replaces the whole table,
+    // so an optimistic reader always sees keys and values of the same length.
+    private static final class Table<V> {
+        private final long[] keys;
+        private final Object[] values;
+        private final int mask;
+        private final int resizeThreshold;
+        private int size;
+        
+        Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+            this.mask = capacity - 1;
+            // Keep the load factor at or below 0.5 so probe runs stay short
+            this.resizeThreshold = capacity / 2;
+        }
+        
+        @SuppressWarnings("unchecked")
+        V get(long key, int hash) {
+            // Bounded so a read racing a write can never spin; the caller re-validates the result
+            for (int probe = 0, index = hash & mask; probe <= mask; probe++, index = (index + 1) & mask) {
+                Object value = values[index];
+                if (value == null) {
+                    return null;
+                }
+                if (keys[index] == key) {
+                    return (V) value;
+                }
+            }
+            return null;
+        }
+        
+        @SuppressWarnings("unchecked")
+        V put(long key, int hash, V value, boolean onlyIfAbsent) {
+            int index = hash & mask;
+            while (values[index] != null) {
+                if (keys[index] == key) {
+                    V previous = (V) values[index];
+                    if (!onlyIfAbsent) {
+                        values[index] = value;
+                    }
+                    return previous;
+                }
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            values[index] = value;
+            size++;
+            return null;
+        }
+        
+        @SuppressWarnings("unchecked")
+        V remove(long key, int hash) {
+            int index = hash & mask;
+            while (values[index] != null) {
+                if (keys[index] == key) {
+                    V previous = (V) values[index];
+                    shiftBack(index);
+                    size--;
+                    return previous;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+        
+        // Backward-shift deletion: pull later entries of the probe run into the gap so lookups need no tombstones
+        private void shiftBack(int gap) {
+            int index = gap;
+            while (true) {
+                index = (index + 1) & mask;
+                if (values[index] == null) {
+                    break;
+                }
+                int home = IdUtils.hash(keys[index]) & mask;
+                // Move the entry unless its home slot lies cyclically in (gap, index]
+                boolean movable = gap <= index ? (home <= gap || home > index) : (home <= gap && home > index);
+                if (movable) {
+                    keys[gap] = keys[index];
+                    values[gap] = values[index];
+                    gap = index;
+                }
+            }
+            values[gap] = null;
+            keys[gap] = 0;
+        }
+        
+        @SuppressWarnings("unchecked")
+        void collectValues(List<V> target) {
+            for (Object value : values) {
+                if (value != null) {
+                    target.add((V) value);
+                }
+            }
+        }
+        
+        Table<V> resized() {
+            Table<V> resized = new Table<>(values.length * 2);
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != null) {
+                    resized.insertFresh(keys[i], values[i]);
+                }
+            }
+            return resized;
+        }
+        
+        private void insertFresh(long key, Object value) {
+            int index = IdUtils.hash(key) & mask;
+            while (values[index] != null) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            values[index] = value;
+            size++;
+        }
+    }
+}
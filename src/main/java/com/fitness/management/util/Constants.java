@@ -4,6 +4,8 @@ public class Constants {
     
     public static final int PASSWORD_MIN_LENGTH = 6;
     
+    public static final int FITNESS_CLASS_LOCK_STRIPES = 256;
+    
     private Constants() {
     }
 }
\ No newline at end of file
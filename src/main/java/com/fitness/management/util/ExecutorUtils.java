@@ -0,0 +1,53 @@
+package com.fitness.management.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ExecutorUtils {
+    
+    // Executors.newVirtualThreadPerTaskExecutor exists from Java 21 on; it is looked up so older JVMs still run
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findVirtualThreadFactoryMethod();
+    
+    private ExecutorUtils() {
+    }
+    
+    public static boolean isVirtualThreadSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+    
+    // One virtual thread per task where the JVM has them, otherwise one (pooled) daemon platform thread per task
+    public static ExecutorService newThreadPerRequestExecutor(String namePrefix) {
+        if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Could not create a virtual thread executor", e);
+            }
+        }
+        return Executors.newCachedThreadPool(daemonThreads(namePrefix));
+    }
+    
+    public static ExecutorService newPlatformThreadPool(int threads, String namePrefix) {
+        return Executors.newFixedThreadPool(threads, daemonThreads(namePrefix));
+    }
+    
+    private static ThreadFactory daemonThreads(String namePrefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    private static Method findVirtualThreadFactoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
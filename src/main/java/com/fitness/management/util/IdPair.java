@@ -0,0 +1,42 @@
+package com.fitness.management.util;
+
+// Map key for two entity ids, e.g. a (user, class) pair
+public final class IdPair {
+    private final long first;
+    private final long second;
+    
+    public IdPair(long first, long second) {
+        this.first = first;
+        this.second = second;
+    }
+    
+    public long getFirst() {
+        return first;
+    }
+    
+    public long getSecond() {
+        return second;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IdPair)) {
+            return false;
+        }
+        IdPair other = (IdPair) o;
+        return first == other.first && second == other.second;
+    }
+    
+    @Override
+    public int hashCode() {
+        return IdUtils.hash(first * 31 + second);
+    }
+    
+    @Override
+    public String toString() {
+        return first + ":" + second;
+    }
+}
@@ -0,0 +1,66 @@
+package com.fitness.management.util;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Snowflake-style 63-bit ids: 41 bits of milliseconds since 2024-01-01, 10 bits of node id, 12 bits of sequence.
+// Ids from one node strictly increase; a burst of more than 4096 ids in a millisecond borrows from the next one.
+public class IdUtils {
+    
+    private static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = NODE_BITS + SEQUENCE_BITS;
+    
+    // Nodes writing to one shared store (e.g. MySQL) need distinct fitness.id.node values
+    private static final long NODE = nodeFromProperty();
+    private static final AtomicLong lastId = new AtomicLong();
+    
+    private IdUtils() {
+    }
+    
+    public static long nextId() {
+        while (true) {
+            long last = lastId.get();
+            long next = ((System.currentTimeMillis() - EPOCH_MILLIS) << TIMESTAMP_SHIFT) | (NODE << SEQUENCE_BITS);
+            if (next <= last) {
+                // Same millisecond (or the clock stepped back): continue from the last id
+                next = (last & SEQUENCE_MASK) == SEQUENCE_MASK
+                        ? (((last >>> TIMESTAMP_SHIFT) + 1) << TIMESTAMP_SHIFT) | (NODE << SEQUENCE_BITS)
+                        : last + 1;
+            }
+            if (lastId.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+    
+    public static long getNode() {
+        return NODE;
+    }
+    
+    public static Instant getTimestamp(long id) {
+        return Instant.ofEpochMilli((id >>> TIMESTAMP_SHIFT) + EPOCH_MILLIS);
+    }
+    
+    // Scrambles all 64 bits so ids that differ only in the sequence spread over hash tables, stripes and shards
+    public static int hash(long id) {
+        long h = id;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+    
+    private static long nodeFromProperty() {
+        long node = Long.getLong("fitness.id.node", 0L);
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalStateException("fitness.id.node must be between 0 and " + MAX_NODE + ": " + node);
+        }
+        return node;
+    }
+}
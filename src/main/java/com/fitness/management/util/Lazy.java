@@ -0,0 +1,31 @@
+package com.fitness.management.util;
+
+import java.util.function.Supplier;
+
+public class Lazy<T> implements Supplier<T> {
+    private final Supplier<T> factory;
+    private volatile T value;
+    
+    public Lazy(Supplier<T> factory) {
+        this.factory = factory;
+    }
+    
+    @Override
+    public T get() {
+        T result = value;
+        if (result == null) {
+            synchronized (this) {
+                result = value;
+                if (result == null) {
+                    result = factory.get();
+                    value = result;
+                }
+            }
+        }
+        return result;
+    }
+    
+    public boolean isInitialized() {
+        return value != null;
+    }
+}
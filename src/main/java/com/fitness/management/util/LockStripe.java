@@ -0,0 +1,134 @@
+package com.fitness.management.util;
+
+import com.fitness.management.metrics.MetricsRegistry;
+import com.fitness.management.metrics.OperationMetrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class LockStripe implements Lock {
+    // Shared by all stripes; null when metrics are switched off
+    private static final OperationMetrics LOCK_WAIT = MetricsRegistry.isEnabled()
+            ? MetricsRegistry.getDefault().operation("classLock.wait") : null;
+    private static final OperationMetrics LOCK_HOLD = MetricsRegistry.isEnabled()
+            ? MetricsRegistry.getDefault().operation("classLock.hold") : null;
+    
+    private final int index;
+    private final ReentrantLock delegate = new ReentrantLock();
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contendedAcquisitions = new LongAdder();
+    // Only touched by the thread holding the lock
+    private long acquiredAtNanos;
+    
+    LockStripe(int index) {
+        this.index = index;
+    }
+    
+    public int getIndex() {
+        return index;
+    }
+    
+    public long getAcquisitionCount() {
+        return acquisitions.sum();
+    }
+    
+    public long getContendedAcquisitionCount() {
+        return contendedAcquisitions.sum();
+    }
+    
+    public int getQueueLength() {
+        return delegate.getQueueLength();
+    }
+    
+    public boolean isLocked() {
+        return delegate.isLocked();
+    }
+    
+    void resetStats() {
+        acquisitions.reset();
+        contendedAcquisitions.reset();
+    }
+    
+    @Override
+    public void lock() {
+        // Try the uncontended fast path first so contention can be counted
+        if (delegate.tryLock()) {
+            acquired(0);
+            return;
+        }
+        contendedAcquisitions.increment();
+        long began = System.nanoTime();
+        delegate.lock();
+        acquired(System.nanoTime() - began);
+    }
+    
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        if (delegate.tryLock()) {
+            acquired(0);
+            return;
+        }
+        contendedAcquisitions.increment();
+        long began = System.nanoTime();
+        delegate.lockInterruptibly();
+        acquired(System.nanoTime() - began);
+    }
+    
+    @Override
+    public boolean tryLock() {
+        boolean acquired = delegate.tryLock();
+        if (acquired) {
+            acquired(0);
+        }
+        return acquired;
+    }
+    
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        if (delegate.tryLock()) {
+            acquired(0);
+            return true;
+        }
+        contendedAcquisitions.increment();
+        long began = System.nanoTime();
+        boolean acquired = delegate.tryLock(time, unit);
+        if (acquired) {
+            acquired(System.nanoTime() - began);
+        }
+        return acquired;
+    }
+    
+    @Override
+    public void unlock() {
+        if (LOCK_HOLD != null && delegate.isHeldByCurrentThread() && delegate.getHoldCount() == 1) {
+            LOCK_HOLD.record(System.nanoTime() - acquiredAtNanos, true);
+        }
+        delegate.unlock();
+    }
+    
+    @Override
+    public Condition newCondition() {
+        return delegate.newCondition();
+    }
+    
+    private void acquired(long waitedNanos) {
+        acquisitions.increment();
+        if (LOCK_WAIT != null) {
+            LOCK_WAIT.record(waitedNanos, true);
+            // Re-entrant acquisitions keep the outermost start time
+            if (delegate.getHoldCount() == 1) {
+                acquiredAtNanos = System.nanoTime();
+            }
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "LockStripe[" + index + "] acquisitions=" + getAcquisitionCount()
+                + ", contended=" + getContendedAcquisitionCount()
+                + ", queueLength=" + getQueueLength();
+    }
+}
@@ -0,0 +1,94 @@
+package com.fitness.management.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+// Per-call view of a class's lock stripe that charges wait, queue length and hold time to that class, or to every
+// class of a multi-class lock that shares the stripe. A new view is handed out for every call, so the acquire time
+// can live in a field.
+class ProfiledClassLock implements Lock {
+    private final LockStripe stripe;
+    private final ClassLockStats[] stats;
+    private long acquiredAtNanos;
+    private int holdCount;
+    
+    ProfiledClassLock(LockStripe stripe, ClassLockStats... stats) {
+        this.stripe = stripe;
+        this.stats = stats;
+    }
+    
+    @Override
+    public void lock() {
+        int queueLength = stripe.getQueueLength();
+        if (stripe.tryLock()) {
+            acquired(0, queueLength, false);
+            return;
+        }
+        long began = System.nanoTime();
+        stripe.lock();
+        acquired(System.nanoTime() - began, queueLength, true);
+    }
+    
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        int queueLength = stripe.getQueueLength();
+        if (stripe.tryLock()) {
+            acquired(0, queueLength, false);
+            return;
+        }
+        long began = System.nanoTime();
+        stripe.lockInterruptibly();
+        acquired(System.nanoTime() - began, queueLength, true);
+    }
+    
+    @Override
+    public boolean tryLock() {
+        int queueLength = stripe.getQueueLength();
+        if (stripe.tryLock()) {
+            acquired(0, queueLength, false);
+            return true;
+        }
+        return false;
+    }
+    
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        int queueLength = stripe.getQueueLength();
+        if (stripe.tryLock()) {
+            acquired(0, queueLength, false);
+            return true;
+        }
+        long began = System.nanoTime();
+        boolean acquired = stripe.tryLock(time, unit);
+        if (acquired) {
+            acquired(System.nanoTime() - began, queueLength, true);
+        }
+        return acquired;
+    }
+    
+    @Override
+    public void unlock() {
+        if (holdCount > 0 && --holdCount == 0) {
+            long heldNanos = System.nanoTime() - acquiredAtNanos;
+            for (ClassLockStats classStats : stats) {
+                classStats.recordHold(heldNanos);
+            }
+        }
+        stripe.unlock();
+    }
+    
+    @Override
+    public Condition newCondition() {
+        return stripe.newCondition();
+    }
+    
+    private void acquired(long waitNanos, int queueLength, boolean contended) {
+        for (ClassLockStats classStats : stats) {
+            classStats.recordAcquisition(waitNanos, queueLength, contended);
+        }
+        if (holdCount++ == 0) {
+            acquiredAtNanos = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.fitness.management.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bounded lock-free queue for many producers and a single consumer. Every slot carries a sequence number:
+// producers claim a position with CAS and publish by advancing the slot's sequence, the consumer frees
+// the slot by moving its sequence one lap ahead.
+public class RingBuffer<T> {
+    private final Object[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    
+    public RingBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be a power of two: " + capacity);
+        }
+        this.slots = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+    
+    // Returns false instead of waiting when the buffer is full
+    public boolean offer(T element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = element;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+    
+    // Only one thread may poll
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        long position = head;
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        T element = (T) slots[index];
+        slots[index] = null;
+        sequences.set(index, position + slots.length);
+        head = position + 1;
+        return element;
+    }
+    
+    public int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, slots.length));
+    }
+    
+    public int capacity() {
+        return slots.length;
+    }
+}
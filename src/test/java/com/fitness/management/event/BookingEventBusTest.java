@@ -0,0 +1,112 @@
+package com.fitness.management.event;
+
+import com.fitness.management.model.ClassType;
+import com.fitness.management.model.FitnessClass;
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BookingEventBusTest {
+    private BookingEventBus eventBus;
+    
+    @After
+    public void tearDown() throws InterruptedException {
+        eventBus.shutdown(5, TimeUnit.SECONDS);
+    }
+    
+    @Test
+    public void wakesIdleDispatcherAndDeliversInOrder() throws InterruptedException {
+        eventBus = new BookingEventBus();
+        List<Long> delivered = new CopyOnWriteArrayList<>();
+        CountDownLatch received = new CountDownLatch(3);
+        eventBus.subscribe(event -> {
+            delivered.add(event.getReferenceId());
+            received.countDown();
+        });
+        
+        // Give the dispatcher time to park on the empty buffer
+        Thread.sleep(50);
+        List<FitnessClass> fitnessClasses = newClasses(3);
+        for (FitnessClass fitnessClass : fitnessClasses) {
+            eventBus.publish(BookingEvent::classCancelled, fitnessClass);
+        }
+        
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        assertEquals(ids(fitnessClasses), delivered);
+        assertEquals(3, eventBus.getPublishedCount());
+    }
+    
+    @Test
+    public void dropsEventsWhileBufferIsFull() throws InterruptedException {
+        eventBus = new BookingEventBus(2, BookingEventBus.OverflowPolicy.DROP);
+        List<Long> delivered = new CopyOnWriteArrayList<>();
+        CountDownLatch firstTaken = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch received = new CountDownLatch(3);
+        eventBus.subscribe(event -> {
+            firstTaken.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            delivered.add(event.getReferenceId());
+            received.countDown();
+        });
+        
+        List<FitnessClass> fitnessClasses = newClasses(5);
+        eventBus.publish(BookingEvent::classCancelled, fitnessClasses.get(0));
+        assertTrue(firstTaken.await(5, TimeUnit.SECONDS));
+        // The dispatcher is stuck on the first event, so two fit in the buffer and the rest are dropped
+        for (FitnessClass fitnessClass : fitnessClasses.subList(1, 5)) {
+            eventBus.publish(BookingEvent::classCancelled, fitnessClass);
+        }
+        assertEquals(3, eventBus.getPublishedCount());
+        assertEquals(2, eventBus.getDroppedCount());
+        
+        release.countDown();
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        assertEquals(ids(fitnessClasses.subList(0, 3)), delivered);
+    }
+    
+    @Test
+    public void skipsEventFactoryWithoutSubscribers() {
+        eventBus = new BookingEventBus();
+        AtomicInteger created = new AtomicInteger();
+        FitnessClass fitnessClass = newClasses(1).get(0);
+        
+        eventBus.publish(source -> {
+            created.incrementAndGet();
+            return BookingEvent.classCancelled(source);
+        }, fitnessClass);
+        
+        assertEquals(0, created.get());
+        assertEquals(0, eventBus.getPublishedCount());
+    }
+    
+    private static List<FitnessClass> newClasses(int count) {
+        List<FitnessClass> fitnessClasses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            fitnessClasses.add(new FitnessClass("Yoga " + i, ClassType.YOGA, 10, LocalDateTime.of(2030, 1, 1, 9, 0), 60));
+        }
+        return fitnessClasses;
+    }
+    
+    private static List<Long> ids(List<FitnessClass> fitnessClasses) {
+        List<Long> ids = new ArrayList<>();
+        for (FitnessClass fitnessClass : fitnessClasses) {
+            ids.add(fitnessClass.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,62 @@
+package com.fitness.management.metrics;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+    
+    // Each value lands in a bucket whose upper bound is within about 6% above it
+    @Test
+    public void reportsValuesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1_000; value++) {
+            histogram.record(value * 1_000);
+        }
+        
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(1_000, snapshot.getCount());
+        assertEquals(1_000_000, snapshot.getMax());
+        assertEquals(500_500.0, snapshot.getMean(), 0.001);
+        long median = snapshot.getValueAtPercentile(50);
+        assertTrue(median >= 500_000 && median <= 500_000 * 1.07);
+        assertEquals(1_000_000, snapshot.getValueAtPercentile(100));
+    }
+    
+    @Test
+    public void clampsNegativeValuesToZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(1, snapshot.getCount());
+        assertEquals(0, snapshot.getValueAtPercentile(99));
+    }
+    
+    // Values recorded by threads that have since exited are still counted
+    @Test
+    public void keepsValuesFromShortLivedThreads() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 200; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 100; i++) {
+                    histogram.record(1_000);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(20_000, snapshot.getCount());
+        assertEquals(1_000.0, snapshot.getMean(), 0.001);
+    }
+}
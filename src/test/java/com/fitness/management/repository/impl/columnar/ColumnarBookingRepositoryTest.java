@@ -0,0 +1,100 @@
+package com.fitness.management.repository.impl.columnar;
+
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.ClassType;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.model.UserType;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ColumnarBookingRepositoryTest {
+    private final ColumnarBookingRepository repository = new ColumnarBookingRepository();
+    private final User user = new User("alice", "pass123", UserType.PLATINUM);
+    private final FitnessClass fitnessClass = new FitnessClass("Yoga", ClassType.YOGA, 10, LocalDateTime.of(2030, 1, 1, 9, 0), 60);
+    
+    @Test
+    public void prefersActiveBookingOverLaterCancelledOne() {
+        Booking active = new Booking(user, fitnessClass);
+        repository.save(active);
+        Booking rebooked = new Booking(user, fitnessClass);
+        rebooked.setCancelled(true);
+        repository.save(rebooked);
+        
+        Booking found = repository.findByUserAndFitnessClass(user, fitnessClass).orElseThrow();
+        assertEquals(active.getId(), found.getId());
+        assertFalse(found.isCancelled());
+    }
+    
+    // Two racing requests both save a booking and re-read; only the earlier one may see its own booking
+    @Test
+    public void returnsEarliestOfTwoActiveBookings() {
+        Booking first = repository.save(new Booking(user, fitnessClass));
+        assertEquals(first.getId(), repository.findByUserAndFitnessClass(user, fitnessClass).orElseThrow().getId());
+        repository.save(new Booking(user, fitnessClass));
+        assertEquals(first.getId(), repository.findByUserAndFitnessClass(user, fitnessClass).orElseThrow().getId());
+        
+        for (int i = 0; i < 5; i++) {
+            repository.save(new Booking(new User("other" + i, "pass123", UserType.GOLD), fitnessClass));
+        }
+        assertEquals(first.getId(), repository.findByUserAndFitnessClass(user, fitnessClass).orElseThrow().getId());
+        
+        for (int i = 0; i < 10; i++) {
+            repository.save(new Booking(user, new FitnessClass("Gym", ClassType.GYM, 10, LocalDateTime.of(2030, 1, 2 + i, 9, 0), 60)));
+        }
+        assertEquals(first.getId(), repository.findByUserAndFitnessClass(user, fitnessClass).orElseThrow().getId());
+    }
+    
+    @Test
+    public void returnsLatestCancelledBookingWhenNoneIsActive() {
+        Booking first = new Booking(user, fitnessClass);
+        first.setCancelled(true);
+        repository.save(first);
+        Booking second = new Booking(user, fitnessClass);
+        second.setCancelled(true);
+        repository.save(second);
+        
+        Booking found = repository.findByUserAndFitnessClass(user, fitnessClass).orElseThrow();
+        assertEquals(second.getId(), found.getId());
+        assertTrue(found.isCancelled());
+    }
+    
+    // With many bookings on the class the lookup walks the user's rows, with many for the user it walks the class's
+    @Test
+    public void prefersActiveBookingWhicheverRowListIsWalked() {
+        Booking cancelled = new Booking(user, fitnessClass);
+        cancelled.setCancelled(true);
+        repository.save(cancelled);
+        Booking active = repository.save(new Booking(user, fitnessClass));
+        Booking cancelledAgain = new Booking(user, fitnessClass);
+        cancelledAgain.setCancelled(true);
+        repository.save(cancelledAgain);
+        
+        for (int i = 0; i < 5; i++) {
+            repository.save(new Booking(new User("other" + i, "pass123", UserType.GOLD), fitnessClass));
+        }
+        assertEquals(active.getId(), repository.findByUserAndFitnessClass(user, fitnessClass).orElseThrow().getId());
+        
+        for (int i = 0; i < 10; i++) {
+            repository.save(new Booking(user, new FitnessClass("Gym", ClassType.GYM, 10, LocalDateTime.of(2030, 1, 2 + i, 9, 0), 60)));
+        }
+        assertEquals(active.getId(), repository.findByUserAndFitnessClass(user, fitnessClass).orElseThrow().getId());
+    }
+    
+    @Test
+    public void seesCancellationThroughReturnedView() {
+        repository.save(new Booking(user, fitnessClass));
+        Booking view = repository.findByUserAndFitnessClass(user, fitnessClass).orElseThrow();
+        view.setCancelled(true);
+        repository.save(view);
+        
+        assertTrue(repository.findByUserAndFitnessClass(user, fitnessClass).orElseThrow().isCancelled());
+        assertTrue(repository.findByFitnessClass(fitnessClass).isEmpty());
+        assertFalse(repository.findConflictingBooking(user, fitnessClass).isPresent());
+    }
+}
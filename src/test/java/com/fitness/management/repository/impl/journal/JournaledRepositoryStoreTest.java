@@ -0,0 +1,144 @@
+package com.fitness.management.repository.impl.journal;
+
+import com.fitness.management.event.BookingEventBus;
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.ClassType;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.model.UserType;
+import com.fitness.management.service.impl.BookingServiceImpl;
+import com.fitness.management.util.ConcurrencyUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JournaledRepositoryStoreTest {
+    private static final int CHUNK_BYTES = 4096;
+    private static final int JOURNAL_HEADER_BYTES = 8;
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    @Test
+    public void recoversRecordsBeforeTruncatedTail() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        long keptBytes;
+        try (JournaledRepositoryStore store = open(directory)) {
+            User alice = store.getUserRepository().save(new User("alice", "pass123", UserType.GOLD));
+            User bob = store.getUserRepository().save(new User("bob", "pass123", UserType.GOLD));
+            FitnessClass fitnessClass = store.getFitnessClassRepository().save(
+                    new FitnessClass("Yoga", ClassType.YOGA, 10, LocalDateTime.of(2030, 1, 1, 9, 0), 60));
+            store.getBookingRepository().save(new Booking(alice, fitnessClass));
+            keptBytes = store.getJournal().getAppendedBytes();
+            store.getBookingRepository().save(new Booking(bob, fitnessClass));
+        }
+        
+        // Cut the last record off halfway, as a crash mid-write would
+        try (RandomAccessFile file = new RandomAccessFile(journalFile(directory, 1), "rw")) {
+            file.setLength(JOURNAL_HEADER_BYTES + keptBytes + 6);
+        }
+        
+        try (JournaledRepositoryStore store = open(directory)) {
+            User alice = store.getUserRepository().findByUsername("alice").orElseThrow();
+            User bob = store.getUserRepository().findByUsername("bob").orElseThrow();
+            assertEquals(1, alice.getActiveBookingsCount());
+            assertEquals(0, bob.getActiveBookingsCount());
+            
+            FitnessClass fitnessClass = store.getBookingRepository().findByUser(alice).get(0).getFitnessClass();
+            assertEquals(1, fitnessClass.getCurrentAttendance());
+            assertEquals(1, store.getBookingRepository().findByFitnessClass(fitnessClass).size());
+            assertFalse(store.getBookingRepository().findByUserAndFitnessClass(bob, fitnessClass).isPresent());
+            
+            // The recovered store keeps journaling into a new generation
+            assertEquals(2, store.getJournal().getGeneration());
+            store.getBookingRepository().save(new Booking(bob, fitnessClass));
+        }
+        
+        try (JournaledRepositoryStore store = open(directory)) {
+            User bob = store.getUserRepository().findByUsername("bob").orElseThrow();
+            assertEquals(1, bob.getActiveBookingsCount());
+            assertEquals(1, store.getBookingRepository().findByUser(bob).size());
+        }
+    }
+    
+    @Test
+    public void dropsTailRecordWithBadChecksum() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        long keptBytes;
+        try (JournaledRepositoryStore store = open(directory)) {
+            User alice = store.getUserRepository().save(new User("alice", "pass123", UserType.GOLD));
+            keptBytes = store.getJournal().getAppendedBytes();
+            store.getFitnessClassRepository().save(
+                    new FitnessClass("Yoga", ClassType.YOGA, 10, LocalDateTime.of(2030, 1, 1, 9, 0), 60));
+            assertTrue(store.getUserRepository().findByUsername(alice.getUsername()).isPresent());
+        }
+        
+        // Flip a payload byte of the last record, past its length and checksum
+        try (RandomAccessFile file = new RandomAccessFile(journalFile(directory, 1), "rw")) {
+            long position = JOURNAL_HEADER_BYTES + keptBytes + 8;
+            file.seek(position);
+            int value = file.read();
+            file.seek(position);
+            file.write(value ^ 0xFF);
+        }
+        
+        try (JournaledRepositoryStore store = open(directory)) {
+            assertTrue(store.getUserRepository().findByUsername("alice").isPresent());
+            assertTrue(store.getFitnessClassRepository()
+                    .findByStartTimeBetween(LocalDateTime.of(2030, 1, 1, 0, 0), LocalDateTime.of(2030, 1, 2, 0, 0)).isEmpty());
+        }
+    }
+    
+    // With a flush interval far longer than the test, the booking can only finish once close() commits it
+    @Test
+    public void waitsForGroupCommitOutsideTheClassLock() throws Exception {
+        JournaledRepositoryStore store = new JournaledRepositoryStore(folder.getRoot().toPath(), CHUNK_BYTES, true, 60_000, 0);
+        BookingServiceImpl bookingService = new BookingServiceImpl(store.getBookingRepository(), store.getWaitlistRepository(),
+                store.getFitnessClassRepository(), BookingServiceImpl.SeatReservationMode.LOCKED, new BookingEventBus());
+        try {
+            User alice = new User("alice", "pass123", UserType.GOLD);
+            FitnessClass fitnessClass = new FitnessClass("Yoga", ClassType.YOGA, 10, LocalDateTime.of(2030, 1, 1, 9, 0), 60);
+            CompletableFuture<Booking> booking = CompletableFuture.supplyAsync(() -> bookingService.bookClass(alice, fitnessClass));
+            
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (store.getBookingRepository().findByUser(alice).isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(1, store.getBookingRepository().findByUser(alice).size());
+            // Once the booking is saved, the class lock is released without waiting for the flusher
+            Lock lock = ConcurrencyUtils.getLockForFitnessClass(fitnessClass);
+            assertTrue(lock.tryLock(5, TimeUnit.SECONDS));
+            lock.unlock();
+            assertTrue(store.getJournal().getDurableBytes() < store.getJournal().getAppendedBytes());
+            assertFalse(booking.isDone());
+            
+            store.close();
+            assertNotNull(booking.get(5, TimeUnit.SECONDS));
+        } finally {
+            bookingService.close();
+            store.close();
+        }
+    }
+    
+    private static JournaledRepositoryStore open(Path directory) {
+        return new JournaledRepositoryStore(directory, CHUNK_BYTES, false, 5, 0);
+    }
+    
+    private static File journalFile(Path directory, long generation) {
+        return directory.resolve(String.format("journal-%016d.log", generation)).toFile();
+    }
+}
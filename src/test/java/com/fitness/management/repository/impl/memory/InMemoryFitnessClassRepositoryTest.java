@@ -0,0 +1,85 @@
+package com.fitness.management.repository.impl.memory;
+
+import com.fitness.management.model.ClassType;
+import com.fitness.management.model.FitnessClass;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InMemoryFitnessClassRepositoryTest {
+    private static final LocalDateTime NINE = LocalDateTime.of(2030, 1, 1, 9, 0);
+    
+    private final InMemoryFitnessClassRepository repository = new InMemoryFitnessClassRepository();
+    
+    @Test
+    public void findsClassesAtMinuteBucketEdges() {
+        FitnessClass atMinute = save("atMinute", NINE);
+        FitnessClass midMinute = save("midMinute", NINE.plusSeconds(30));
+        FitnessClass endOfMinute = save("endOfMinute", NINE.plusSeconds(59));
+        FitnessClass nextMinute = save("nextMinute", NINE.plusMinutes(1));
+        
+        // Start and end inside the same bucket
+        assertEquals(List.of(midMinute), repository.findByStartTimeBetween(NINE.plusSeconds(1), NINE.plusSeconds(59)));
+        // Start mid-bucket, end on the next bucket's first second, which is excluded
+        assertEquals(List.of(midMinute, endOfMinute),
+                repository.findByStartTimeBetween(NINE.plusSeconds(30), NINE.plusMinutes(1)));
+        // End one second into the next bucket
+        assertEquals(List.of(atMinute, midMinute, endOfMinute, nextMinute),
+                repository.findByStartTimeBetween(NINE, NINE.plusMinutes(1).plusSeconds(1)));
+        // Start on the last second of a bucket
+        assertEquals(List.of(endOfMinute, nextMinute),
+                repository.findByStartTimeBetween(NINE.plusSeconds(59), NINE.plusMinutes(2)));
+    }
+    
+    @Test
+    public void returnsNothingForEmptyOrInvertedRange() {
+        save("atMinute", NINE);
+        
+        assertTrue(repository.findByStartTimeBetween(NINE, NINE).isEmpty());
+        assertTrue(repository.findByStartTimeBetween(NINE.plusMinutes(1), NINE).isEmpty());
+        assertTrue(repository.findByStartTimeBetween(NINE.minusMinutes(1), NINE).isEmpty());
+    }
+    
+    // Epoch minutes before 1970 are negative, so the bucket has to round down rather than toward zero
+    @Test
+    public void bucketsClassesBeforeEpoch() {
+        LocalDateTime beforeEpoch = LocalDateTime.of(1969, 12, 31, 23, 59, 30);
+        FitnessClass fitnessClass = save("beforeEpoch", beforeEpoch);
+        
+        assertEquals(List.of(fitnessClass), repository.findByStartTimeBetween(beforeEpoch, beforeEpoch.plusSeconds(1)));
+        assertTrue(repository.findByStartTimeBetween(beforeEpoch.plusSeconds(1), LocalDateTime.of(1970, 1, 1, 0, 1)).isEmpty());
+    }
+    
+    @Test
+    public void movesRescheduledClassToItsNewBucket() {
+        FitnessClass fitnessClass = save("moving", NINE.plusSeconds(59));
+        fitnessClass.setStartTime(NINE.plusMinutes(1));
+        repository.save(fitnessClass);
+        
+        assertTrue(repository.findByStartTimeBetween(NINE, NINE.plusMinutes(1)).isEmpty());
+        assertEquals(List.of(fitnessClass), repository.findByStartTimeBetween(NINE.plusMinutes(1), NINE.plusMinutes(2)));
+        assertEquals(List.of(fitnessClass),
+                repository.findByClassTypeAndStartTimeBetween(ClassType.YOGA, NINE.plusMinutes(1), NINE.plusMinutes(2)));
+    }
+    
+    @Test
+    public void skipsFullAndCancelledClassesWhenAskedForAvailable() {
+        FitnessClass open = save("open", NINE.plusSeconds(10));
+        FitnessClass full = repository.save(new FitnessClass("full", ClassType.YOGA, 1, NINE.plusSeconds(20), 45));
+        FitnessClass cancelled = save("cancelled", NINE.plusSeconds(30));
+        assertTrue(repository.reserveSpot(full));
+        cancelled.setCancelled(true);
+        repository.save(cancelled);
+        
+        assertEquals(List.of(open), repository.findAvailableByStartTimeBetween(NINE, NINE.plusMinutes(1)));
+        assertEquals(List.of(open, full, cancelled), repository.findByStartTimeBetween(NINE, NINE.plusMinutes(1)));
+    }
+    
+    private FitnessClass save(String name, LocalDateTime startTime) {
+        return repository.save(new FitnessClass(name, ClassType.YOGA, 10, startTime, 45));
+    }
+}
@@ -0,0 +1,184 @@
+package com.fitness.management.repository.impl.mysql;
+
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.ClassType;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.model.UserType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+// Runs the JDBC repositories against an in-memory H2 database in MySQL mode. The H2 jar ships in lib/; without it on
+// the classpath every test fails in setUp.
+public class MySQLRepositoriesTest {
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+    
+    private MySQLConnectionPool pool;
+    private Connection keepAlive;
+    private MySQLUserRepository userRepository;
+    private MySQLFitnessClassRepository fitnessClassRepository;
+    private MySQLBookingRepository bookingRepository;
+    
+    @Before
+    public void setUp() throws SQLException {
+        String url = "jdbc:h2:mem:fitness" + DATABASES.incrementAndGet() + ";MODE=MySQL";
+        // Holds the in-memory database open between pooled connections
+        keepAlive = DriverManager.getConnection(url, "sa", "");
+        pool = new MySQLConnectionPool(url, "sa", "", 2);
+        MySQLSchema.createTables(pool);
+        userRepository = new MySQLUserRepository(pool);
+        fitnessClassRepository = new MySQLFitnessClassRepository(pool);
+        bookingRepository = new MySQLBookingRepository(pool);
+    }
+    
+    @After
+    public void tearDown() throws SQLException {
+        if (pool != null) {
+            pool.close();
+        }
+        if (keepAlive != null) {
+            keepAlive.close();
+        }
+    }
+    
+    @Test
+    public void savesAndFindsUsers() {
+        User user = new User("alice", "pass123", UserType.GOLD);
+        userRepository.save(user);
+        
+        User found = userRepository.findByUsername("alice").orElseThrow();
+        assertEquals(user.getId(), found.getId());
+        assertEquals(UserType.GOLD, found.getUserType());
+        assertFalse(userRepository.findByUsername("bob").isPresent());
+        
+        // Saving again updates the row in place
+        user.setUserType(UserType.PLATINUM);
+        userRepository.save(user);
+        assertEquals(UserType.PLATINUM, userRepository.findByUsername("alice").orElseThrow().getUserType());
+    }
+    
+    @Test
+    public void rejectsTakenUsername() {
+        assertTrue(userRepository.saveIfUsernameAbsent(new User("alice", "pass123", UserType.GOLD)));
+        assertFalse(userRepository.saveIfUsernameAbsent(new User("alice", "pass123", UserType.SILVER)));
+        assertEquals(UserType.GOLD, userRepository.findByUsername("alice").orElseThrow().getUserType());
+    }
+    
+    @Test
+    public void savesAndFindsFitnessClasses() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 9, 0);
+        FitnessClass yoga = fitnessClassRepository.save(new FitnessClass("Yoga", ClassType.YOGA, 10, start, 60));
+        FitnessClass gym = fitnessClassRepository.save(new FitnessClass("Gym", ClassType.GYM, 10, start.plusHours(2), 60));
+        
+        FitnessClass found = fitnessClassRepository.findById(yoga.getId()).orElseThrow();
+        assertEquals("Yoga", found.getName());
+        assertEquals(start, found.getStartTime());
+        assertEquals(2, fitnessClassRepository.findByStartTimeBetween(start, start.plusHours(3)).size());
+        assertEquals(1, fitnessClassRepository.findByClassTypeAndStartTimeBetween(ClassType.GYM, start, start.plusHours(3)).size());
+        // The range is half-open
+        assertEquals(1, fitnessClassRepository.findByStartTimeBetween(start, gym.getStartTime()).size());
+    }
+    
+    @Test
+    public void updatesAttendanceOnlyWithinCapacity() {
+        FitnessClass fitnessClass = fitnessClassRepository.save(
+                new FitnessClass("Dance", ClassType.DANCE, 2, LocalDateTime.of(2030, 1, 1, 9, 0), 60));
+        
+        assertTrue(fitnessClassRepository.reserveSpot(fitnessClass));
+        assertTrue(fitnessClassRepository.reserveSpot(fitnessClass));
+        assertFalse(fitnessClassRepository.reserveSpot(fitnessClass));
+        assertEquals(2, fitnessClass.getCurrentAttendance());
+        assertTrue(fitnessClassRepository.findAvailableByStartTimeBetween(
+                fitnessClass.getStartTime(), fitnessClass.getEndTime()).isEmpty());
+        
+        fitnessClassRepository.releaseSpot(fitnessClass);
+        assertEquals(1, fitnessClass.getCurrentAttendance());
+        assertEquals(1, fitnessClassRepository.findById(fitnessClass.getId()).orElseThrow().getCurrentAttendance());
+        
+        // A later save of a stale instance leaves the stored counter alone
+        FitnessClass stale = fitnessClassRepository.findById(fitnessClass.getId()).orElseThrow();
+        stale.setCurrentAttendance(0);
+        stale.setName("Evening Dance");
+        fitnessClassRepository.save(stale);
+        FitnessClass stored = fitnessClassRepository.findById(fitnessClass.getId()).orElseThrow();
+        assertEquals("Evening Dance", stored.getName());
+        assertEquals(1, stored.getCurrentAttendance());
+    }
+    
+    @Test
+    public void savesAndFindsBookings() {
+        User user = userRepository.save(new User("alice", "pass123", UserType.GOLD));
+        FitnessClass fitnessClass = fitnessClassRepository.save(
+                new FitnessClass("Yoga", ClassType.YOGA, 10, LocalDateTime.of(2030, 1, 1, 9, 0), 60));
+        Booking booking = bookingRepository.save(new Booking(user, fitnessClass));
+        
+        assertEquals(booking.getId(), bookingRepository.findByUserAndFitnessClass(user, fitnessClass).orElseThrow().getId());
+        assertEquals(1, bookingRepository.findByUser(user).size());
+        assertEquals(1, bookingRepository.findByFitnessClass(fitnessClass).size());
+        
+        booking.setCancelled(true);
+        bookingRepository.save(booking);
+        assertTrue(bookingRepository.findByUser(user).isEmpty());
+        assertTrue(bookingRepository.findByFitnessClass(fitnessClass).isEmpty());
+        assertTrue(bookingRepository.findByUserAndFitnessClass(user, fitnessClass).orElseThrow().isCancelled());
+    }
+    
+    // Racing lock-free bookings must all read back the same winner
+    @Test
+    public void prefersEarliestActiveBooking() {
+        User user = userRepository.save(new User("alice", "pass123", UserType.GOLD));
+        FitnessClass fitnessClass = fitnessClassRepository.save(
+                new FitnessClass("Yoga", ClassType.YOGA, 10, LocalDateTime.of(2030, 1, 1, 9, 0), 60));
+        Booking cancelled = new Booking(user, fitnessClass);
+        cancelled.setCancelled(true);
+        Booking first = new Booking(user, fitnessClass);
+        Booking second = new Booking(user, fitnessClass);
+        bookingRepository.save(second);
+        bookingRepository.save(cancelled);
+        bookingRepository.save(first);
+        
+        assertEquals(first.getId(), bookingRepository.findByUserAndFitnessClass(user, fitnessClass).orElseThrow().getId());
+        
+        first.setCancelled(true);
+        bookingRepository.save(first);
+        assertEquals(second.getId(), bookingRepository.findByUserAndFitnessClass(user, fitnessClass).orElseThrow().getId());
+        
+        // With nothing active, the most recent cancelled booking is returned
+        second.setCancelled(true);
+        bookingRepository.save(second);
+        assertEquals(second.getId(), bookingRepository.findByUserAndFitnessClass(user, fitnessClass).orElseThrow().getId());
+    }
+    
+    @Test
+    public void findsConflictingBookings() {
+        User user = userRepository.save(new User("alice", "pass123", UserType.GOLD));
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 9, 0);
+        FitnessClass morning = fitnessClassRepository.save(new FitnessClass("Yoga", ClassType.YOGA, 10, start, 60));
+        FitnessClass overlapping = fitnessClassRepository.save(
+                new FitnessClass("Gym", ClassType.GYM, 10, start.plusMinutes(30), 60));
+        FitnessClass adjacent = fitnessClassRepository.save(
+                new FitnessClass("Dance", ClassType.DANCE, 10, start.plusMinutes(60), 60));
+        Booking booking = bookingRepository.save(new Booking(user, morning));
+        
+        Optional<Booking> conflict = bookingRepository.findConflictingBooking(user, overlapping);
+        assertEquals(booking.getId(), conflict.orElseThrow().getId());
+        assertFalse(bookingRepository.findConflictingBooking(user, adjacent).isPresent());
+        assertEquals(1, bookingRepository.findByUserBetween(user, start, start.plusHours(3)).size());
+        
+        booking.setCancelled(true);
+        bookingRepository.save(booking);
+        assertFalse(bookingRepository.findConflictingBooking(user, overlapping).isPresent());
+    }
+}
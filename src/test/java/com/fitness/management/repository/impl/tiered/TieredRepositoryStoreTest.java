@@ -0,0 +1,174 @@
+package com.fitness.management.repository.impl.tiered;
+
+import com.fitness.management.event.BookingEventBus;
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.ClassType;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.model.UserType;
+import com.fitness.management.repository.BookingRepository;
+import com.fitness.management.repository.FitnessClassRepository;
+import com.fitness.management.service.impl.BookingServiceImpl;
+import com.fitness.management.service.impl.BookingServiceImpl.SeatReservationMode;
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TieredRepositoryStoreTest {
+    private final TieredRepositoryStore store = new TieredRepositoryStore(0);
+    private final FitnessClassRepository fitnessClassRepository = store.getFitnessClassRepository();
+    private final BookingRepository bookingRepository = store.getBookingRepository();
+    private final LocalDateTime now = LocalDateTime.now();
+    
+    @After
+    public void tearDown() {
+        store.close();
+    }
+    
+    @Test
+    public void routesLookupsOnArchivedClassesToTheArchive() {
+        User user = new User("alice", "pass123", UserType.PLATINUM);
+        FitnessClass ended = fitnessClassRepository.save(new FitnessClass("Yoga", ClassType.YOGA, 10, now.minusHours(3), 60));
+        FitnessClass upcoming = fitnessClassRepository.save(new FitnessClass("Gym", ClassType.GYM, 10, now.plusDays(1), 60));
+        Booking endedBooking = bookingRepository.save(new Booking(user, ended));
+        Booking upcomingBooking = bookingRepository.save(new Booking(user, upcoming));
+        
+        assertEquals(1, store.archive());
+        
+        assertTrue(store.isArchived(ended));
+        assertFalse(store.isArchived(upcoming));
+        assertTrue(store.hotFitnessClasses().findById(ended.getId()).isEmpty());
+        assertTrue(store.hotBookings().findByFitnessClass(ended).isEmpty());
+        assertEquals(1, store.getArchivedBookingCount());
+        
+        assertEquals(ended, fitnessClassRepository.findById(ended.getId()).orElseThrow());
+        assertEquals(1, bookingRepository.findByFitnessClass(ended).size());
+        assertEquals(endedBooking.getId(), bookingRepository.findByUserAndFitnessClass(user, ended).orElseThrow().getId());
+        assertEquals(upcomingBooking.getId(), bookingRepository.findByUserAndFitnessClass(user, upcoming).orElseThrow().getId());
+        assertEquals(2, bookingRepository.findByUser(user).size());
+        
+        // A class overlapping the archived one still conflicts with its booking
+        FitnessClass overlapping = new FitnessClass("Dance", ClassType.DANCE, 10, now.minusHours(3).plusMinutes(30), 60);
+        assertEquals(endedBooking.getId(), bookingRepository.findConflictingBooking(user, overlapping).orElseThrow().getId());
+        
+        // Later writes to an archived class stay in the archive
+        endedBooking.setCancelled(true);
+        bookingRepository.save(endedBooking);
+        fitnessClassRepository.save(ended);
+        assertTrue(store.hotBookings().findByFitnessClass(ended).isEmpty());
+        assertTrue(store.hotFitnessClasses().findById(ended.getId()).isEmpty());
+        assertTrue(bookingRepository.findByUserAndFitnessClass(user, ended).orElseThrow().isCancelled());
+    }
+    
+    @Test
+    public void rangeQueriesSpanTheArchiveHorizon() {
+        User user = new User("alice", "pass123", UserType.PLATINUM);
+        FitnessClass ended = fitnessClassRepository.save(new FitnessClass("Yoga", ClassType.YOGA, 10, now.minusDays(1), 60));
+        FitnessClass upcoming = fitnessClassRepository.save(new FitnessClass("Gym", ClassType.GYM, 10, now.plusDays(1), 60));
+        Booking endedBooking = bookingRepository.save(new Booking(user, ended));
+        Booking upcomingBooking = bookingRepository.save(new Booking(user, upcoming));
+        store.archive();
+        
+        List<Booking> both = bookingRepository.findByUserBetween(user, now.minusDays(2), now.plusDays(2));
+        assertEquals(2, both.size());
+        List<Booking> past = bookingRepository.findByUserBetween(user, now.minusDays(2), now);
+        assertEquals(1, past.size());
+        assertEquals(endedBooking.getId(), past.get(0).getId());
+        List<Booking> future = bookingRepository.findByUserBetween(user, now, now.plusDays(2));
+        assertEquals(1, future.size());
+        assertEquals(upcomingBooking.getId(), future.get(0).getId());
+        
+        List<FitnessClass> classes = fitnessClassRepository.findByStartTimeBetween(now.minusDays(2), now.plusDays(2));
+        assertEquals(2, classes.size());
+        assertEquals(ended.getId(), classes.get(0).getId());
+        assertEquals(upcoming.getId(), classes.get(1).getId());
+        assertEquals(1, fitnessClassRepository.findByStartTimeBetween(now, now.plusDays(2)).size());
+    }
+    
+    @Test
+    public void cancelledBookingsOfUpcomingClassesMoveToTheArchive() {
+        User user = new User("alice", "pass123", UserType.PLATINUM);
+        FitnessClass upcoming = fitnessClassRepository.save(new FitnessClass("Yoga", ClassType.YOGA, 10, now.plusDays(1), 60));
+        Booking cancelled = new Booking(user, upcoming);
+        cancelled.setCancelled(true);
+        bookingRepository.save(cancelled);
+        
+        assertEquals(0, store.archive());
+        
+        assertFalse(store.isArchived(upcoming));
+        assertTrue(store.hotBookings().findByUser(user).isEmpty());
+        assertEquals(1, store.getArchivedBookingCount());
+        assertTrue(store.archivedBookings().findByUserAndFitnessClass(user, upcoming).orElseThrow().isCancelled());
+        assertTrue(bookingRepository.findByUser(user).isEmpty());
+        
+        // Rebooking lands in the hot tier and is the booking found for the class
+        Booking rebooked = bookingRepository.save(new Booking(user, upcoming));
+        assertEquals(rebooked.getId(), bookingRepository.findByUserAndFitnessClass(user, upcoming).orElseThrow().getId());
+        assertEquals(1, bookingRepository.findByFitnessClass(upcoming).size());
+        assertEquals(1, bookingRepository.findByUser(user).size());
+        
+        // Active bookings of upcoming classes stay hot
+        store.archive();
+        assertEquals(1, store.hotBookings().findByUser(user).size());
+        assertEquals(1, store.getArchivedBookingCount());
+    }
+    
+    // Bookings race the archiver on classes that have already ended. Each one lands in the hot tier before its class
+    // is moved, or in the archive after, but is never lost or left behind in the hot tier.
+    @Test
+    public void archivesWhileBooking() throws Exception {
+        BookingServiceImpl bookingService = new BookingServiceImpl(bookingRepository, store.getWaitlistRepository(),
+                fitnessClassRepository, SeatReservationMode.LOCKED, new BookingEventBus());
+        List<FitnessClass> ended = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            ended.add(fitnessClassRepository.save(
+                    new FitnessClass("Class " + i, ClassType.YOGA, 50, now.minusHours(20 - i), 60)));
+        }
+        
+        AtomicBoolean booking = new AtomicBoolean(true);
+        Thread archiver = new Thread(() -> {
+            while (booking.get()) {
+                store.archive();
+            }
+        });
+        archiver.start();
+        
+        int users = 320;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Booking>> futures = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                User user = new User("user" + i, "pass123", UserType.PLATINUM);
+                FitnessClass fitnessClass = ended.get(i % ended.size());
+                futures.add(executor.submit(() -> bookingService.bookClass(user, fitnessClass)));
+            }
+            for (Future<Booking> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+            booking.set(false);
+            archiver.join();
+        }
+        store.archive();
+        
+        for (FitnessClass fitnessClass : ended) {
+            assertTrue(store.isArchived(fitnessClass));
+            assertTrue(store.hotBookings().findByFitnessClass(fitnessClass).isEmpty());
+            assertEquals(users / ended.size(), fitnessClass.getCurrentAttendance());
+            assertEquals(users / ended.size(), bookingRepository.findByFitnessClass(fitnessClass).size());
+        }
+        assertEquals(users, store.getArchivedBookingCount());
+    }
+}
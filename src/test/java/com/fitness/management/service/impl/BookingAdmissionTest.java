@@ -0,0 +1,124 @@
+package com.fitness.management.service.impl;
+
+import com.fitness.management.exception.AdmissionRejectedException;
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.ClassType;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.model.UserType;
+import com.fitness.management.model.WaitlistEntry;
+import com.fitness.management.repository.impl.memory.InMemoryFitnessClassRepository;
+import com.fitness.management.repository.impl.memory.InMemoryWaitlistRepository;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BookingAdmissionTest {
+    private final InMemoryFitnessClassRepository fitnessClassRepository = new InMemoryFitnessClassRepository();
+    private final InMemoryWaitlistRepository waitlistRepository = new InMemoryWaitlistRepository();
+    private final BookingAdmission admission = new BookingAdmission(true, 1, waitlistRepository, fitnessClassRepository);
+    private final FitnessClass fitnessClass = fitnessClassRepository.save(
+            new FitnessClass("Yoga", ClassType.YOGA, 2, LocalDateTime.of(2030, 1, 1, 9, 0), 60));
+    private final Booking booking = new Booking(new User("alice", "pass123", UserType.GOLD), fitnessClass);
+    
+    // The caller's copy of the class still shows empty seats; the stored class and the waitlist decide
+    @Test
+    public void rejectsFromStoredAttendanceAndWaitlist() {
+        FitnessClass staleCopy = new FitnessClass(fitnessClass.getId(), "Yoga", ClassType.YOGA, 2, 0,
+                fitnessClass.getStartTime(), 60, false);
+        fitnessClassRepository.reserveSpot(fitnessClass);
+        fitnessClassRepository.reserveSpot(fitnessClass);
+        waitlistRepository.save(new WaitlistEntry(new User("bob", "pass123", UserType.GOLD), fitnessClass));
+        
+        assertRejected(staleCopy);
+        
+        // Entries cleared outside the service open the waitlist again
+        waitlistRepository.clearPendingByFitnessClasses(Collections.singletonList(fitnessClass));
+        assertSame(booking, admission.book(staleCopy, true, ticket -> booking));
+    }
+    
+    @Test
+    public void countsRequestsInProgress() throws Exception {
+        fitnessClassRepository.reserveSpot(fitnessClass);
+        fitnessClassRepository.reserveSpot(fitnessClass);
+        CountDownLatch admitted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Booking> first = CompletableFuture.supplyAsync(() -> admission.book(fitnessClass, true, ticket -> {
+            admitted.countDown();
+            await(release);
+            return booking;
+        }));
+        
+        assertTrue(admitted.await(5, TimeUnit.SECONDS));
+        // The one place left under the waitlist cap is taken by the request in progress
+        assertRejected(fitnessClass);
+        
+        release.countDown();
+        assertSame(booking, first.get(5, TimeUnit.SECONDS));
+        assertSame(booking, admission.book(fitnessClass, true, ticket -> booking));
+    }
+    
+    // A request whose seat is already stored is counted by the class, not by the gate as well
+    @Test
+    public void stopsCountingRequestOnceItsSeatIsStored() throws Exception {
+        BookingAdmission noWaitlist = new BookingAdmission(true, 0, waitlistRepository, fitnessClassRepository);
+        CountDownLatch reserved = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Booking> first = CompletableFuture.supplyAsync(() -> noWaitlist.book(fitnessClass, false, ticket -> {
+            fitnessClassRepository.reserveSpot(fitnessClass);
+            ticket.settled();
+            reserved.countDown();
+            await(release);
+            return booking;
+        }));
+        
+        try {
+            assertTrue(reserved.await(5, TimeUnit.SECONDS));
+            // One of the two seats is still free
+            assertSame(booking, noWaitlist.book(fitnessClass, false, ticket -> booking));
+        } finally {
+            release.countDown();
+        }
+        assertSame(booking, first.get(5, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    public void retiresGateOnceRequestsFinish() {
+        admission.book(fitnessClass, true, ticket -> booking);
+        try {
+            admission.book(fitnessClass, false, ticket -> {
+                throw new IllegalStateException("User has already booked this class");
+            });
+            fail("Expected the booking failure to propagate");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(0, admission.gateCount());
+    }
+    
+    private void assertRejected(FitnessClass requested) {
+        try {
+            admission.book(requested, true, ticket -> booking);
+            fail("Expected the request to be turned away");
+        } catch (AdmissionRejectedException e) {
+            // expected
+        }
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
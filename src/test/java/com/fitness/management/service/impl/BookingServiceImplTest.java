@@ -0,0 +1,84 @@
+package com.fitness.management.service.impl;
+
+import com.fitness.management.event.BookingEventBus;
+import com.fitness.management.exception.ClassFullException;
+import com.fitness.management.model.ClassType;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.model.UserType;
+import com.fitness.management.repository.BookingRepository;
+import com.fitness.management.repository.FitnessClassRepository;
+import com.fitness.management.repository.WaitlistRepository;
+import com.fitness.management.repository.impl.memory.InMemoryBookingRepository;
+import com.fitness.management.repository.impl.memory.InMemoryFitnessClassRepository;
+import com.fitness.management.repository.impl.memory.InMemoryWaitlistRepository;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class BookingServiceImplTest {
+    private static final int CAPACITY = 20;
+    private static final int USERS = 400;
+    
+    @Test
+    public void lockFreeBookingNeverOverbooks() throws Exception {
+        BookingRepository bookingRepository = new InMemoryBookingRepository();
+        WaitlistRepository waitlistRepository = new InMemoryWaitlistRepository();
+        FitnessClassRepository fitnessClassRepository = new InMemoryFitnessClassRepository();
+        BookingServiceImpl bookingService = new BookingServiceImpl(bookingRepository, waitlistRepository,
+                fitnessClassRepository, BookingServiceImpl.SeatReservationMode.LOCK_FREE, new BookingEventBus());
+        FitnessClass fitnessClass = fitnessClassRepository.save(
+                new FitnessClass("Spin", ClassType.YOGA, CAPACITY, LocalDateTime.now().plusDays(1), 45));
+        
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(new User("user" + i, "pass123", UserType.PLATINUM));
+        }
+        
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger full = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (User user : users) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        bookingService.bookClass(user, fitnessClass);
+                        booked.incrementAndGet();
+                    } catch (ClassFullException e) {
+                        full.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+            bookingService.close();
+        }
+        
+        assertEquals(CAPACITY, booked.get());
+        assertEquals(USERS - CAPACITY, full.get());
+        assertEquals(CAPACITY, fitnessClass.getCurrentAttendance());
+        assertEquals(CAPACITY, bookingRepository.findByFitnessClass(fitnessClass).size());
+        int activeBookings = 0;
+        for (User user : users) {
+            activeBookings += user.getActiveBookingsCount();
+        }
+        assertEquals(CAPACITY, activeBookings);
+    }
+}
@@ -0,0 +1,133 @@
+package com.fitness.management.service.impl;
+
+import com.fitness.management.exception.AdmissionRejectedException;
+import com.fitness.management.exception.TimeConflictException;
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.ClassType;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.model.UserType;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class IdempotencyCacheTest {
+    private final User user = new User("user", "pass123", UserType.GOLD);
+    private final FitnessClass fitnessClass = new FitnessClass("Spin", ClassType.YOGA, 10,
+            LocalDateTime.now().plusDays(1), 45);
+    
+    @Test
+    public void inFlightRequestSurvivesEviction() throws Exception {
+        // One completed key per segment, so every other key overflows its segment
+        IdempotencyCache cache = new IdempotencyCache(1, 1_000, Duration.ofHours(1));
+        Booking booking = new Booking(user, fitnessClass);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        
+        CompletableFuture<Booking> first = CompletableFuture.supplyAsync(() -> cache.execute("slow", user, fitnessClass, () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            await(release);
+            return booking;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 200; i++) {
+            cache.execute("key" + i, user, fitnessClass, () -> new Booking(user, fitnessClass));
+        }
+        CompletableFuture<Booking> retry = CompletableFuture.supplyAsync(() -> cache.execute("slow", user, fitnessClass, () -> {
+            runs.incrementAndGet();
+            return new Booking(user, fitnessClass);
+        }));
+        release.countDown();
+        
+        assertSame(booking, first.get(5, TimeUnit.SECONDS));
+        assertSame(booking, retry.get(5, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+    }
+    
+    @Test
+    public void keepsBusinessFailuresButNotAdmissionRejections() {
+        IdempotencyCache cache = new IdempotencyCache(100, 100, Duration.ofHours(1));
+        AtomicInteger runs = new AtomicInteger();
+        
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.execute("conflict", user, fitnessClass, () -> {
+                    runs.incrementAndGet();
+                    throw new TimeConflictException("conflict");
+                });
+                fail();
+            } catch (TimeConflictException expected) {
+            }
+        }
+        assertEquals(1, runs.get());
+        
+        try {
+            cache.execute("rejected", user, fitnessClass, () -> {
+                throw new AdmissionRejectedException("closed");
+            });
+            fail();
+        } catch (AdmissionRejectedException expected) {
+        }
+        Booking booking = new Booking(user, fitnessClass);
+        assertSame(booking, cache.execute("rejected", user, fitnessClass, () -> booking));
+    }
+    
+    @Test
+    public void boundsRequestsInFlight() throws Exception {
+        // One request in flight per segment
+        IdempotencyCache cache = new IdempotencyCache(100, 1, Duration.ofHours(1));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Booking> first = CompletableFuture.supplyAsync(() -> cache.execute("a", user, fitnessClass, () -> {
+            started.countDown();
+            await(release);
+            return new Booking(user, fitnessClass);
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        
+        String sameSegment = keyInSameSegment("a");
+        try {
+            cache.execute(sameSegment, user, fitnessClass, () -> new Booking(user, fitnessClass));
+            fail();
+        } catch (IllegalStateException expected) {
+        } finally {
+            release.countDown();
+        }
+        first.get(5, TimeUnit.SECONDS);
+        cache.execute(sameSegment, user, fitnessClass, () -> new Booking(user, fitnessClass));
+    }
+    
+    private static String keyInSameSegment(String key) {
+        for (int i = 0; ; i++) {
+            String candidate = "k" + i;
+            if (segmentIndex(candidate) == segmentIndex(key)) {
+                return candidate;
+            }
+        }
+    }
+    
+    private static int segmentIndex(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & 15;
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
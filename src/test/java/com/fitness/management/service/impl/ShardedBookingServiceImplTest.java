@@ -0,0 +1,133 @@
+package com.fitness.management.service.impl;
+
+import com.fitness.management.event.BookingEventBus;
+import com.fitness.management.exception.ClassFullException;
+import com.fitness.management.exception.TimeConflictException;
+import com.fitness.management.model.BookingResult;
+import com.fitness.management.model.ClassType;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.model.UserType;
+import com.fitness.management.repository.BookingRepository;
+import com.fitness.management.repository.FitnessClassRepository;
+import com.fitness.management.repository.WaitlistRepository;
+import com.fitness.management.repository.impl.memory.InMemoryBookingRepository;
+import com.fitness.management.repository.impl.memory.InMemoryFitnessClassRepository;
+import com.fitness.management.repository.impl.memory.InMemoryWaitlistRepository;
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ShardedBookingServiceImplTest {
+    private static final int CAPACITY = 20;
+    private static final int USERS = 400;
+    
+    private final BookingRepository bookingRepository = new InMemoryBookingRepository();
+    private final WaitlistRepository waitlistRepository = new InMemoryWaitlistRepository();
+    private final FitnessClassRepository fitnessClassRepository = new InMemoryFitnessClassRepository();
+    private final ShardedBookingServiceImpl bookingService = new ShardedBookingServiceImpl(bookingRepository,
+            waitlistRepository, fitnessClassRepository, 4, new BookingEventBus());
+    
+    @After
+    public void tearDown() {
+        bookingService.close();
+    }
+    
+    @Test
+    public void concurrentBookingsNeverOverbook() throws Exception {
+        List<FitnessClass> fitnessClasses = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            fitnessClasses.add(fitnessClassRepository.save(
+                    new FitnessClass("Spin " + i, ClassType.YOGA, CAPACITY, LocalDateTime.now().plusDays(1 + i), 45)));
+        }
+        
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger full = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < USERS; i++) {
+                User user = new User("user" + i, "pass123", UserType.PLATINUM);
+                FitnessClass fitnessClass = fitnessClasses.get(i % fitnessClasses.size());
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        bookingService.bookClass(user, fitnessClass);
+                        booked.incrementAndGet();
+                    } catch (ClassFullException e) {
+                        full.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        assertEquals(CAPACITY * fitnessClasses.size(), booked.get());
+        assertEquals(USERS - CAPACITY * fitnessClasses.size(), full.get());
+        for (FitnessClass fitnessClass : fitnessClasses) {
+            assertEquals(CAPACITY, fitnessClass.getCurrentAttendance());
+            assertEquals(CAPACITY, bookingRepository.findByFitnessClass(fitnessClass).size());
+        }
+    }
+    
+    // The classes land on different shards; the second overlaps the first and is rejected within the batch
+    @Test
+    public void booksSeriesAcrossShards() {
+        User user = new User("alice", "pass123", UserType.PLATINUM);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<FitnessClass> series = new ArrayList<>();
+        series.add(fitnessClassRepository.save(new FitnessClass("Yoga", ClassType.YOGA, 5, start, 60)));
+        series.add(fitnessClassRepository.save(new FitnessClass("Gym", ClassType.GYM, 5, start.plusMinutes(30), 60)));
+        series.add(fitnessClassRepository.save(new FitnessClass("Dance", ClassType.DANCE, 5, start.plusDays(1), 60)));
+        
+        List<BookingResult> results = bookingService.bookSeries(user, series);
+        
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(results.get(1).getFailure() instanceof TimeConflictException);
+        assertTrue(results.get(2).isSuccess());
+        assertEquals(2, user.getActiveBookingsCount());
+        assertEquals(2, bookingRepository.findByUser(user).size());
+    }
+    
+    @Test
+    public void rejectsRequestsAfterShutdown() throws Exception {
+        FitnessClass fitnessClass = fitnessClassRepository.save(
+                new FitnessClass("Yoga", ClassType.YOGA, 5, LocalDateTime.now().plusDays(1), 60));
+        User alice = new User("alice", "pass123", UserType.GOLD);
+        bookingService.bookClass(alice, fitnessClass);
+        
+        bookingService.shutdown(5, TimeUnit.SECONDS);
+        
+        try {
+            bookingService.bookClass(new User("bob", "pass123", UserType.GOLD), fitnessClass);
+            fail("Expected the shut down service to reject the booking");
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+        assertEquals(1, fitnessClass.getCurrentAttendance());
+        assertEquals(1, bookingRepository.findByFitnessClass(fitnessClass).size());
+    }
+}
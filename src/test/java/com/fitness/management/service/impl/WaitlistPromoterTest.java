@@ -0,0 +1,72 @@
+package com.fitness.management.service.impl;
+
+import com.fitness.management.exception.BookingLimitExceededException;
+import com.fitness.management.model.Booking;
+import com.fitness.management.model.ClassType;
+import com.fitness.management.model.FitnessClass;
+import com.fitness.management.model.User;
+import com.fitness.management.model.UserType;
+import com.fitness.management.model.WaitlistEntry;
+import com.fitness.management.repository.impl.memory.InMemoryWaitlistRepository;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+public class WaitlistPromoterTest {
+    private final InMemoryWaitlistRepository waitlistRepository = new InMemoryWaitlistRepository();
+    private final FitnessClass fitnessClass = new FitnessClass("Yoga", ClassType.YOGA, 2, LocalDateTime.of(2030, 1, 1, 9, 0), 60);
+    private final User alice = new User("alice", "pass123", UserType.GOLD);
+    private final User bob = new User("bob", "pass123", UserType.GOLD);
+    
+    @Test
+    public void keepsEntryWhenPromotionFailsToWrite() throws Exception {
+        WaitlistEntry entry = waitlistRepository.save(new WaitlistEntry(alice, fitnessClass));
+        WaitlistPromoter promoter = new WaitlistPromoter(waitlistRepository, (user, fitnessClass) -> {
+            throw new RuntimeException("Database unavailable");
+        });
+        
+        promoter.schedule(fitnessClass);
+        promoter.shutdown(5, TimeUnit.SECONDS);
+        
+        assertFalse(entry.isProcessed());
+        assertEquals(1, waitlistRepository.countPendingByFitnessClass(fitnessClass));
+        assertSame(entry, waitlistRepository.findFirstByFitnessClass(fitnessClass).orElseThrow());
+    }
+    
+    @Test
+    public void skipsEntryTheUserCannotBook() throws Exception {
+        waitlistRepository.save(new WaitlistEntry(alice, fitnessClass));
+        waitlistRepository.save(new WaitlistEntry(bob, fitnessClass));
+        List<User> promoted = new ArrayList<>();
+        WaitlistPromoter promoter = new WaitlistPromoter(waitlistRepository, (user, fitnessClass) -> {
+            if (user == alice) {
+                throw new BookingLimitExceededException("User has reached the booking limit of 1");
+            }
+            promoted.add(user);
+            return new Booking(user, fitnessClass);
+        });
+        
+        promoter.schedule(fitnessClass);
+        promoter.shutdown(5, TimeUnit.SECONDS);
+        
+        assertEquals(List.of(bob), promoted);
+        assertEquals(0, waitlistRepository.countPendingByFitnessClass(fitnessClass));
+    }
+    
+    @Test
+    public void ignoresScheduleAfterClose() {
+        waitlistRepository.save(new WaitlistEntry(alice, fitnessClass));
+        WaitlistPromoter promoter = new WaitlistPromoter(waitlistRepository, (user, fitnessClass) -> new Booking(user, fitnessClass));
+        promoter.close();
+        
+        promoter.schedule(fitnessClass);
+        assertEquals(1, waitlistRepository.countPendingByFitnessClass(fitnessClass));
+    }
+}
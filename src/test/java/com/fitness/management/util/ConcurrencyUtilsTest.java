@@ -0,0 +1,63 @@
+package com.fitness.management.util;
+
+import com.fitness.management.model.ClassType;
+import com.fitness.management.model.FitnessClass;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.Lock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrencyUtilsTest {
+    private final FitnessClass yoga = new FitnessClass("Yoga", ClassType.YOGA, 10, LocalDateTime.of(2030, 1, 1, 9, 0), 60);
+    private final FitnessClass gym = new FitnessClass("Gym", ClassType.GYM, 10, LocalDateTime.of(2030, 1, 1, 11, 0), 60);
+    
+    @Before
+    public void setUp() {
+        ConcurrencyUtils.resetLockProfile();
+        ConcurrencyUtils.setLockProfilingEnabled(true);
+    }
+    
+    @After
+    public void tearDown() {
+        ConcurrencyUtils.setLockProfilingEnabled(false);
+        ConcurrencyUtils.resetLockProfile();
+    }
+    
+    // A series waiting behind a single-class booking shows up in the profile under the class it waited for
+    @Test
+    public void profilesLocksTakenForSeveralClasses() throws Exception {
+        Lock held = ConcurrencyUtils.getLockForFitnessClass(yoga);
+        held.lock();
+        CountDownLatch done = new CountDownLatch(1);
+        Thread series = new Thread(() -> {
+            ConcurrencyUtils.withLocksForFitnessClasses(Arrays.asList(yoga, gym), () -> null);
+            done.countDown();
+        });
+        try {
+            series.start();
+            // Hold the lock until the series is queued on it, so its acquisition counts as contended
+            while (!series.getState().equals(Thread.State.WAITING)) {
+                Thread.sleep(1);
+            }
+        } finally {
+            held.unlock();
+        }
+        done.await();
+        series.join();
+        
+        ClassLockStats yogaStats = ConcurrencyUtils.getMostContendedClasses(10).stream()
+                .filter(stats -> stats.getClassId() == yoga.getId())
+                .findFirst()
+                .orElseThrow();
+        assertEquals(2, yogaStats.getAcquisitionCount());
+        assertEquals(1, yogaStats.getContendedAcquisitionCount());
+        assertTrue(yogaStats.getTotalWaitNanos() > 0);
+    }
+}
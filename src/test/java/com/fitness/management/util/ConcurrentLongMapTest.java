@@ -0,0 +1,204 @@
+package com.fitness.management.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentLongMapTest {
+    
+    // Random operations over a small key range, so keys collide, probe runs form and tables grow and shrink back
+    @Test
+    public void matchesHashMapAcrossSegmentCounts() {
+        for (int segmentCount : new int[] {1, 2, 16, 64}) {
+            ConcurrentLongMap<Long> map = new ConcurrentLongMap<>(segmentCount);
+            Map<Long, Long> expected = new HashMap<>();
+            Random random = new Random(segmentCount);
+            
+            for (int i = 0; i < 50_000; i++) {
+                long key = random.nextInt(2_000) - 1_000;
+                long value = random.nextLong();
+                switch (random.nextInt(6)) {
+                    case 0:
+                    case 1:
+                        assertEquals(expected.put(key, value), map.put(key, value));
+                        break;
+                    case 2:
+                        assertEquals(expected.putIfAbsent(key, value), map.putIfAbsent(key, value));
+                        break;
+                    case 3:
+                        assertEquals(expected.remove(key), map.remove(key));
+                        break;
+                    case 4:
+                        Long current = expected.get(key);
+                        if (current != null) {
+                            assertTrue(map.remove(key, current));
+                            expected.remove(key);
+                        } else {
+                            assertFalse(map.remove(key, value));
+                        }
+                        break;
+                    default:
+                        assertEquals(expected.computeIfAbsent(key, k -> value), map.computeIfAbsent(key, k -> value));
+                        break;
+                }
+                assertEquals(expected.get(key), map.get(key));
+            }
+            
+            assertEquals(expected.size(), map.size());
+            for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+                assertEquals(entry.getValue(), map.get(entry.getKey()));
+            }
+            List<Long> values = map.values();
+            values.sort(null);
+            List<Long> expectedValues = new ArrayList<>(expected.values());
+            expectedValues.sort(null);
+            assertEquals(expectedValues, values);
+        }
+    }
+    
+    // Keys homed in the last slots of a single 16-slot table run past the end and continue at slot 0; removing any
+    // of them has to shift the wrapped part of the run back across the boundary
+    @Test
+    public void removalsShiftProbeRunsAcrossTheTableEnd() {
+        List<Long> keys = new ArrayList<>();
+        keys.addAll(keysHomedAt(15, 3));
+        keys.addAll(keysHomedAt(14, 1));
+        keys.addAll(keysHomedAt(0, 2));
+        keys.addAll(keysHomedAt(1, 1));
+        
+        for (int removed = 0; removed < keys.size(); removed++) {
+            ConcurrentLongMap<Long> map = new ConcurrentLongMap<>(1);
+            for (long key : keys) {
+                map.put(key, key);
+            }
+            
+            assertEquals(Long.valueOf(keys.get(removed)), map.remove(keys.get(removed)));
+            assertNull(map.get(keys.get(removed)));
+            for (int i = 0; i < keys.size(); i++) {
+                if (i != removed) {
+                    assertEquals(keys.get(i), map.get(keys.get(i)));
+                }
+            }
+            assertEquals(keys.size() - 1, map.size());
+            
+            // Drain the rest in reverse so every remaining run is shifted again
+            for (int i = keys.size() - 1; i >= 0; i--) {
+                if (i != removed) {
+                    assertEquals(keys.get(i), map.remove(keys.get(i)));
+                }
+            }
+            assertTrue(map.isEmpty());
+        }
+    }
+    
+    // Readers never miss a key that stays mapped, and never see a value that was not stored for a churned key,
+    // while writers put, remove and grow the same segments
+    @Test
+    public void readersSeeConsistentValuesWhileWritersChurn() throws Exception {
+        ConcurrentLongMap<Long> map = new ConcurrentLongMap<>(4);
+        int stableKeys = 1_000;
+        for (long key = 0; key < stableKeys; key++) {
+            map.put(key, key);
+        }
+        
+        int writers = 4;
+        int readers = 4;
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch writersDone = new CountDownLatch(writers);
+        List<Thread> threads = new ArrayList<>();
+        
+        for (int w = 0; w < writers; w++) {
+            long base = 1_000_000L * (w + 1);
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    for (int round = 0; round < 20; round++) {
+                        for (long key = base; key < base + 2_000; key++) {
+                            map.put(key, -key);
+                        }
+                        for (long key = base; key < base + 2_000; key++) {
+                            map.remove(key);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    writersDone.countDown();
+                }
+            }));
+        }
+        for (int r = 0; r < readers; r++) {
+            long seed = r;
+            threads.add(new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    start.await();
+                    while (writing.get() && failure.get() == null) {
+                        long stable = random.nextInt(stableKeys);
+                        Long value = map.get(stable);
+                        if (value == null || value != stable) {
+                            failure.set("Stable key " + stable + " read as " + value);
+                        }
+                        long churned = 1_000_000L * (1 + random.nextInt(writers)) + random.nextInt(2_000);
+                        value = map.get(churned);
+                        if (value != null && value != -churned) {
+                            failure.set("Churned key " + churned + " read as " + value);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        start.countDown();
+        writersDone.await();
+        writing.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        assertNull(failure.get());
+        assertEquals(stableKeys, map.size());
+        for (long key = 0; key < stableKeys; key++) {
+            assertEquals(Long.valueOf(key), map.get(key));
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void requiresPowerOfTwoSegmentCount() {
+        new ConcurrentLongMap<>(3);
+    }
+    
+    @Test(expected = NullPointerException.class)
+    public void rejectsNullValues() {
+        new ConcurrentLongMap<>().put(1L, null);
+    }
+    
+    private static List<Long> keysHomedAt(int slot, int count) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 1; keys.size() < count; key++) {
+            if ((IdUtils.hash(key) & 15) == slot) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+}
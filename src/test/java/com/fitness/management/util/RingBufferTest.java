@@ -0,0 +1,105 @@
+package com.fitness.management.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RingBufferTest {
+    
+    @Test
+    public void pollsInOfferOrderAcrossLaps() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        int next = 0;
+        int expected = 0;
+        // Stay partly full so positions wrap around the slots several times
+        for (int round = 0; round < 10; round++) {
+            while (buffer.offer(next)) {
+                next++;
+            }
+            assertEquals(4, buffer.size());
+            for (int i = 0; i < 3; i++) {
+                assertEquals(Integer.valueOf(expected++), buffer.poll());
+            }
+        }
+        while (expected < next) {
+            assertEquals(Integer.valueOf(expected++), buffer.poll());
+        }
+        assertNull(buffer.poll());
+        assertEquals(0, buffer.size());
+    }
+    
+    @Test
+    public void rejectsOffersWhileFull() {
+        RingBuffer<String> buffer = new RingBuffer<>(2);
+        assertTrue(buffer.offer("a"));
+        assertTrue(buffer.offer("b"));
+        assertFalse(buffer.offer("c"));
+        assertEquals(2, buffer.size());
+        
+        // A freed slot takes the next offer, and the rejected element is gone for good
+        assertEquals("a", buffer.poll());
+        assertTrue(buffer.offer("d"));
+        assertEquals("b", buffer.poll());
+        assertEquals("d", buffer.poll());
+        assertNull(buffer.poll());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void requiresPowerOfTwoCapacity() {
+        new RingBuffer<>(6);
+    }
+    
+    // Producers interleave, but each producer's elements come out in the order it offered them
+    @Test
+    public void keepsEachProducersOrderUnderContention() throws Exception {
+        int producers = 4;
+        int perProducer = 50_000;
+        RingBuffer<long[]> buffer = new RingBuffer<>(1024);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final long producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (long i = 0; i < perProducer; i++) {
+                    long[] element = {producer, i};
+                    while (!buffer.offer(element)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        
+        start.countDown();
+        long[] nextExpected = new long[producers];
+        int received = 0;
+        while (received < producers * perProducer) {
+            long[] element = buffer.poll();
+            if (element == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int producer = (int) element[0];
+            assertEquals(nextExpected[producer], element[1]);
+            nextExpected[producer]++;
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(buffer.poll());
+    }
+}